@@ -0,0 +1,41 @@
+package com.example.lab2;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.example.lab2.admission.MutationAdmissionFilter;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Admission control for Turismo mutations: a token bucket per client and a bounded
+ * mutation queue in front of the store. Settings are the turismo.admission.* properties;
+ * turismo.admission.enabled=false removes the filter.
+ */
+@Configuration
+@ConditionalOnProperty(name = "turismo.admission.enabled", havingValue = "true", matchIfMissing = true)
+public class AdmissionConfig {
+
+    @Bean
+    public FilterRegistrationBean<MutationAdmissionFilter> mutationAdmissionFilter(
+            @Value("${turismo.admission.rate-per-second:10}") double ratePerSecond,
+            @Value("${turismo.admission.burst:20}") double burst,
+            @Value("${turismo.admission.max-concurrent:2}") int maxConcurrent,
+            @Value("${turismo.admission.queue-capacity:64}") int queueCapacity,
+            @Value("${turismo.admission.queue-timeout:2s}") Duration queueTimeout,
+            @Value("${turismo.admission.retry-after-seconds:1}") long retryAfterSeconds,
+            @Value("${turismo.admission.trust-forwarded-for:false}") boolean trustForwardedFor,
+            MeterRegistry registry) {
+        MutationAdmissionFilter filter = new MutationAdmissionFilter(ratePerSecond, burst, maxConcurrent,
+                queueCapacity, queueTimeout, retryAfterSeconds, trustForwardedFor, registry);
+        FilterRegistrationBean<MutationAdmissionFilter> registration = new FilterRegistrationBean<>(filter);
+        // En la API asíncrona el permiso se mantiene hasta que termina el trabajo en IoExecutor
+        registration.addUrlPatterns("/api/turismo", "/api/turismo/*", "/api/async/turismo", "/api/async/turismo/*");
+        return registration;
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.lab2;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.example.lab2.async.IoExecutor;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * The I/O pool behind AsyncTurismoController. Its size, queue and timeout are the
+ * turismo.async.* properties; Spring calls close() on shutdown.
+ */
+@Configuration
+public class AsyncConfig {
+
+    @Bean
+    public IoExecutor ioExecutor(@Value("${turismo.async.threads:8}") int threads,
+                                 @Value("${turismo.async.queue-capacity:1000}") int queueCapacity,
+                                 @Value("${turismo.async.timeout:5s}") Duration timeout,
+                                 MeterRegistry registry) {
+        return new IoExecutor(threads, queueCapacity, timeout, registry);
+    }
+}
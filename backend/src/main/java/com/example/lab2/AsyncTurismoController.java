@@ -0,0 +1,119 @@
+package com.example.lab2;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.AsyncRequestTimeoutException;
+
+import com.example.lab2.async.IoExecutor;
+
+/**
+ * The Turismo API under /api/async/turismo, with the same parameters and responses as
+ * TurismoController. Each request hands its store work to the IoExecutor and returns;
+ * the request thread goes back to Tomcat while the I/O is pending and the response is
+ * written when it completes.
+ *
+ * A full queue, or a request that waited in the queue past turismo.async.timeout,
+ * answers 503 with Retry-After: the work never ran, so retrying cannot apply a mutation
+ * twice. Once the work has started the response waits for it. If it is still running
+ * when spring.mvc.async.request-timeout expires the answer is 504 without Retry-After,
+ * since a mutation may yet be applied.
+ */
+@RestController
+@RequestMapping("/api/async/turismo")
+public class AsyncTurismoController {
+
+    private final TurismoController controller;
+    private final IoExecutor ioExecutor;
+    private final long retryAfterSeconds;
+
+    public AsyncTurismoController(TurismoController controller, IoExecutor ioExecutor,
+                                  @Value("${turismo.async.retry-after-seconds:1}") long retryAfterSeconds) {
+        this.controller = controller;
+        this.ioExecutor = ioExecutor;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    @GetMapping
+    public CompletableFuture<ResponseEntity<List<Turismo>>> getAllOrPaginatedRecords(
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size) {
+        return submit(() -> controller.getAllOrPaginatedRecords(page, size));
+    }
+
+    @GetMapping(params = "fields")
+    public CompletableFuture<ResponseEntity<Object>> getProjectedRecords(
+            @RequestParam String fields,
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size) {
+        return submit(() -> controller.getProjectedRecords(fields, page, size));
+    }
+
+    @PostMapping
+    public CompletableFuture<ResponseEntity<String>> addRecord(@RequestBody Turismo turismo) {
+        return submit(() -> controller.addRecord(turismo));
+    }
+
+    @PutMapping("/{id}")
+    public CompletableFuture<ResponseEntity<String>> updateRecord(@PathVariable String id,
+                                                                  @RequestBody Turismo updatedTurismo) {
+        return submit(() -> controller.updateRecord(id, updatedTurismo));
+    }
+
+    @DeleteMapping("/{id}")
+    public CompletableFuture<ResponseEntity<String>> deleteRecord(@PathVariable String id) {
+        return submit(() -> controller.deleteRecord(id));
+    }
+
+    @GetMapping("/{id}")
+    public CompletableFuture<ResponseEntity<Turismo>> getRecordById(@PathVariable String id) {
+        return submit(() -> controller.getRecordById(id));
+    }
+
+    @GetMapping("/community/{community}")
+    public CompletableFuture<ResponseEntity<List<Turismo>>> getRecordsByCommunity(@PathVariable String community) {
+        return submit(() -> controller.getRecordsByCommunity(community));
+    }
+
+    @GetMapping(value = "/community/{community}", params = "fields")
+    public CompletableFuture<ResponseEntity<Object>> getProjectedRecordsByCommunity(@PathVariable String community,
+                                                                                    @RequestParam String fields) {
+        return submit(() -> controller.getProjectedRecordsByCommunity(community, fields));
+    }
+
+    @ExceptionHandler(AsyncRequestTimeoutException.class)
+    public ResponseEntity<String> handleStillRunning() {
+        return ResponseEntity.status(504)
+                .body("The request is still being processed; check its effect before retrying.");
+    }
+
+    private <T> CompletableFuture<ResponseEntity<T>> submit(Callable<ResponseEntity<T>> work) {
+        return ioExecutor.submit(work).exceptionally(error -> {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null
+                    ? error.getCause() : error;
+            if (cause instanceof RejectedExecutionException || cause instanceof TimeoutException) {
+                // No llegó a ejecutarse. El cuerpo se omite: T es el tipo de la respuesta correcta
+                return ResponseEntity.status(503)
+                        .header("Retry-After", Long.toString(retryAfterSeconds))
+                        .build();
+            }
+            throw error instanceof CompletionException completion ? completion : new CompletionException(cause);
+        });
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.lab2;
+
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import com.example.lab2.jfr.RequestEventFilter;
+
+/**
+ * Java Flight Recorder events for the API. The events in com.example.lab2.jfr cost next
+ * to nothing unless a recording is running; the Dockerfile starts a continuous one
+ * (see JAVA_OPTS there), and on any other JVM it can be started with
+ *
+ * <pre>
+ *   java -XX:StartFlightRecording=name=turismo,settings=default,disk=true,maxage=1h,maxsize=100m -jar lab2.jar
+ *   jcmd &lt;pid&gt; JFR.start name=turismo settings=default disk=true maxage=1h   (on a running JVM)
+ *   jcmd &lt;pid&gt; JFR.dump name=turismo filename=turismo.jfr
+ *   jfr print --events com.example.lab2.Request,com.example.lab2.Lookup turismo.jfr
+ * </pre>
+ *
+ * A slow Request event is broken down by the Parse, Lookup, Serialize and Persist
+ * events with its requestId. Those of a synchronous request are also on its thread
+ * inside its time span; those of an async request are not, since its store work runs
+ * on the turismo-io-* pool.
+ */
+@Configuration
+public class JfrConfig {
+
+    @Bean
+    public FilterRegistrationBean<RequestEventFilter> requestEventFilter() {
+        FilterRegistrationBean<RequestEventFilter> registration =
+                new FilterRegistrationBean<>(new RequestEventFilter());
+        registration.addUrlPatterns("/api/*");
+        // Justo después de la puerta de arranque, para incluir la espera de admisión
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+        return registration;
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.lab2;
+
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+
+/**
+ * Hints for the GraalVM native image (mvn -Pnative native:compile, see Dockerfile.native).
+ * Spring AOT already covers beans and controller signatures; these add what it cannot
+ * see: Jackson databind reflecting over Turismo and its nested classes (responses the
+ * TurismoHttpMessageConverter does not write), and the JSON data files when they are
+ * on the classpath.
+ *
+ * AOT evaluates @ConditionalOnProperty at build time, so turismo.cluster.enabled,
+ * turismo.replication.mode, turismo.admission.enabled and turismo.warmup.enabled are
+ * fixed in the executable (see the native profile in pom.xml, which passes them to
+ * process-aot as JVM arguments). Everything else, turismo.store.mode included, is
+ * still read at startup. target/spring-aot/main/sources/.../
+ * Lab2Application__BeanFactoryRegistrations.java lists the beans that made it in.
+ */
+@Configuration
+@ImportRuntimeHints(NativeConfig.TurismoRuntimeHints.class)
+public class NativeConfig {
+
+    static class TurismoRuntimeHints implements RuntimeHintsRegistrar {
+
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            for (Class<?> type : new Class<?>[] {Turismo.class, Turismo.FromTo.class, Turismo.TimeRange.class}) {
+                hints.reflection().registerType(type,
+                        MemberCategory.DECLARED_FIELDS,
+                        MemberCategory.INVOKE_DECLARED_CONSTRUCTORS,
+                        MemberCategory.INVOKE_PUBLIC_METHODS);
+            }
+            hints.resources().registerPattern("*.json");
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.lab2;
+
+import java.time.Duration;
+import java.util.concurrent.ForkJoinPool;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.example.lab2.query.FlowRanking;
+import com.example.lab2.query.PlaceIndex;
+import com.example.lab2.query.QueryCache;
+import com.example.lab2.query.ScanEngine;
+import com.example.lab2.query.VisitorRollups;
+import com.example.lab2.store.ObservableTurismoStore;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Query engine wiring. turismo.query.parallelism = 0 runs scans on the common
+ * ForkJoinPool; a positive value gives them a dedicated pool of that size.
+ * Incrementally maintained structures are registered as store listeners here.
+ */
+@Configuration
+public class QueryConfig {
+
+    @Bean
+    public ScanEngine scanEngine(@Value("${turismo.query.parallelism:0}") int parallelism) {
+        ForkJoinPool pool = parallelism > 0 ? new ForkJoinPool(parallelism) : ForkJoinPool.commonPool();
+        return new ScanEngine(pool);
+    }
+
+    @Bean
+    public FlowRanking flowRanking(ObservableTurismoStore store) {
+        FlowRanking flowRanking = new FlowRanking();
+        store.addListener(flowRanking);
+        return flowRanking;
+    }
+
+    @Bean
+    public VisitorRollups visitorRollups(ObservableTurismoStore store) {
+        VisitorRollups visitorRollups = new VisitorRollups();
+        store.addListener(visitorRollups);
+        return visitorRollups;
+    }
+
+    /**
+     * Result cache for community lookups, pages and ad-hoc queries. It follows changes
+     * from now on, so it starts empty rather than replaying the store.
+     */
+    @Bean
+    public QueryCache queryCache(ObservableTurismoStore store,
+                                 @Value("${turismo.cache.max-records:100000}") long maxRecords,
+                                 @Value("${turismo.cache.ttl:5m}") Duration ttl,
+                                 MeterRegistry registry) {
+        QueryCache queryCache = new QueryCache(store, maxRecords, ttl, registry);
+        store.subscribe(queryCache);
+        return queryCache;
+    }
+
+    @Bean
+    public PlaceIndex placeIndex(ObservableTurismoStore store) {
+        PlaceIndex placeIndex = new PlaceIndex();
+        store.addListener(placeIndex);
+        return placeIndex;
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.lab2;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.example.lab2.replication.MutationLog;
+import com.example.lab2.replication.ReplicaFilter;
+import com.example.lab2.replication.ReplicationFollower;
+import com.example.lab2.store.ObservableTurismoStore;
+
+/**
+ * Read replicas by log shipping, chosen with turismo.replication.mode.
+ *
+ * A primary keeps its last turismo.replication.log-capacity mutations in a MutationLog
+ * and serves it under /internal/replication. A replica keeps its records in memory only
+ * (see StoreConfig), follows the primary at turismo.replication.primary-url and serves
+ * reads with bounded staleness; its writes are redirected to the primary.
+ */
+@Configuration
+public class ReplicationConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "turismo.replication.mode", havingValue = "primary")
+    public MutationLog mutationLog(ObservableTurismoStore store,
+                                   @Value("${turismo.replication.log-capacity:100000}") int capacity) {
+        MutationLog log = new MutationLog(capacity);
+        store.subscribe(log);
+        return log;
+    }
+
+    @Bean(initMethod = "start")
+    @ConditionalOnProperty(name = "turismo.replication.mode", havingValue = "replica")
+    public ReplicationFollower replicationFollower(
+            ObservableTurismoStore store,
+            @Value("${turismo.replication.primary-url}") String primaryUrl,
+            @Value("${turismo.replication.poll-interval:200ms}") Duration pollInterval,
+            @Value("${turismo.replication.batch-size:500}") int batchSize,
+            @Value("${turismo.replication.connect-timeout:500ms}") Duration connectTimeout,
+            @Value("${turismo.replication.timeout:5s}") Duration timeout) {
+        return new ReplicationFollower(store, primaryUrl, pollInterval, batchSize, connectTimeout, timeout);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "turismo.replication.mode", havingValue = "replica")
+    public FilterRegistrationBean<ReplicaFilter> replicaFilter(
+            ReplicationFollower follower,
+            @Value("${turismo.replication.primary-url}") String primaryUrl,
+            @Value("${turismo.replication.max-staleness:5s}") Duration maxStaleness) {
+        FilterRegistrationBean<ReplicaFilter> registration =
+                new FilterRegistrationBean<>(new ReplicaFilter(follower, primaryUrl, maxStaleness));
+        registration.addUrlPatterns("/api/turismo", "/api/turismo/*", "/api/async/turismo", "/api/async/turismo/*");
+        return registration;
+    }
+}
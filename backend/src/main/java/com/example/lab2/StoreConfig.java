@@ -0,0 +1,181 @@
+package com.example.lab2;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.util.unit.DataSize;
+
+import com.example.lab2.cluster.ClusterChangeBroadcaster;
+import com.example.lab2.cluster.ClusterClient;
+import com.example.lab2.cluster.ClusterSecretFilter;
+import com.example.lab2.cluster.ClusterTopology;
+import com.example.lab2.cluster.ClusteredTurismoStore;
+import com.example.lab2.jfr.StoreLoadEvent;
+import com.example.lab2.store.InMemoryTurismoStore;
+import com.example.lab2.store.JsonFileTurismoStore;
+import com.example.lab2.store.LsmTurismoStore;
+import com.example.lab2.store.MappedSnapshotTurismoStore;
+import com.example.lab2.store.ObservableTurismoStore;
+import com.example.lab2.store.OffHeapTurismoStore;
+import com.example.lab2.store.ShardedTurismoStore;
+import com.example.lab2.store.TurismoStore;
+
+/**
+ * Chooses the TurismoStore implementation from turismo.store.mode and wraps it so
+ * derived structures can follow its mutations. Spring calls the store's close() on
+ * shutdown, which flushes a write-behind store.
+ *
+ * With turismo.cluster.enabled the store also routes by id to the owning node. The node
+ * catches up with its peers before the store is wrapped, and announces the mutations
+ * made through it to the other nodes, so every node's derived structures follow the
+ * whole cluster.
+ *
+ * With turismo.replication.mode=replica the records live in memory only and are
+ * loaded from the primary (see ReplicationConfig); turismo.store.mode is ignored.
+ */
+@Configuration
+public class StoreConfig {
+
+    @Value("${turismo.data.json:src/main/resources/TurismoComunidades.json}")
+    private String jsonFilePath;
+
+    @Value("${turismo.data.snapshot:src/main/resources/TurismoComunidades.snapshot}")
+    private String snapshotFilePath;
+
+    @Value("${turismo.data.shards:src/main/resources/shards}")
+    private String shardDirectory;
+
+    @Value("${turismo.data.lsm:src/main/resources/lsm}")
+    private String lsmDirectory;
+
+    @Value("${turismo.lsm.memtable-records:10000}")
+    private int memtableRecords;
+
+    @Value("${turismo.lsm.max-segments:4}")
+    private int maxSegments;
+
+    @Value("${turismo.lsm.max-segment-size:256MB}")
+    private DataSize maxSegmentSize;
+
+    @Value("${turismo.persistence.mode:write-through}")
+    private String persistenceMode;
+
+    @Value("${turismo.persistence.flush-interval:200ms}")
+    private Duration flushInterval;
+
+    @Value("${turismo.persistence.max-lag:2s}")
+    private Duration maxLag;
+
+    @Bean
+    @Primary
+    public ObservableTurismoStore turismoStore(@Value("${turismo.store.mode:json}") String mode,
+                                               @Value("${turismo.replication.mode:off}") String replication,
+                                               ObjectProvider<ClusteredTurismoStore> clustered) throws IOException {
+        if ("replica".equals(replication)) {
+            return new ObservableTurismoStore(new InMemoryTurismoStore());
+        }
+        ClusteredTurismoStore clusteredStore = clustered.getIfAvailable();
+        return new ObservableTurismoStore(clusteredStore != null ? clusteredStore : createStore(mode));
+    }
+
+    /**
+     * In cluster mode the local store is wrapped in a ClusteredTurismoStore, which the
+     * node-to-node endpoints use directly. turismoStore closes it on shutdown.
+     */
+    @Bean(destroyMethod = "")
+    @ConditionalOnProperty(name = "turismo.cluster.enabled", havingValue = "true")
+    public ClusteredTurismoStore clusteredTurismoStore(
+            @Value("${turismo.store.mode:json}") String mode,
+            @Value("${turismo.cluster.nodes}") List<String> nodes,
+            @Value("${turismo.cluster.self}") int self,
+            @Value("${turismo.cluster.connect-timeout:500ms}") Duration connectTimeout,
+            @Value("${turismo.cluster.timeout:5s}") Duration timeout,
+            @Value("${turismo.cluster.resync-interval:1s}") Duration resyncInterval,
+            @Value("${turismo.cluster.secret:}") String secret) throws IOException {
+        ClusteredTurismoStore store = new ClusteredTurismoStore(createStore(mode), new ClusterTopology(nodes, self),
+                new ClusterClient(connectTimeout, timeout, secret), resyncInterval);
+        store.catchUp();
+        return store;
+    }
+
+    /**
+     * The node-to-node endpoints share the API's port, so they take only requests that
+     * carry turismo.cluster.secret.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "turismo.cluster.enabled", havingValue = "true")
+    public FilterRegistrationBean<ClusterSecretFilter> clusterSecretFilter(
+            @Value("${turismo.cluster.secret:}") String secret) {
+        FilterRegistrationBean<ClusterSecretFilter> registration =
+                new FilterRegistrationBean<>(new ClusterSecretFilter(secret));
+        registration.addUrlPatterns("/internal/cluster/*");
+        return registration;
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "turismo.cluster.enabled", havingValue = "true")
+    public ClusterChangeBroadcaster clusterChangeBroadcaster(ObservableTurismoStore store,
+                                                             ClusteredTurismoStore clustered) {
+        ClusterChangeBroadcaster broadcaster = new ClusterChangeBroadcaster(clustered.topology(), clustered.client());
+        store.subscribeLocal(broadcaster);
+        return broadcaster;
+    }
+
+    /**
+     * Open the store for the mode, recorded as a StoreLoadEvent.
+     */
+    private TurismoStore createStore(String mode) throws IOException {
+        StoreLoadEvent event = new StoreLoadEvent();
+        event.begin();
+        TurismoStore store = openStore(mode);
+        event.end();
+        if (event.shouldCommit()) {
+            event.mode = mode;
+            event.records = store.size();
+            event.commit();
+        }
+        return store;
+    }
+
+    private TurismoStore openStore(String mode) throws IOException {
+        switch (mode) {
+            case "json":
+                return new JsonFileTurismoStore(Path.of(jsonFilePath), writeBehindInterval(), maxLag);
+            case "sharded":
+                return new ShardedTurismoStore(Path.of(shardDirectory), Path.of(jsonFilePath),
+                        writeBehindInterval(), maxLag);
+            case "snapshot":
+                return new MappedSnapshotTurismoStore(Path.of(snapshotFilePath), Path.of(jsonFilePath));
+            case "offheap":
+                return new OffHeapTurismoStore(Path.of(jsonFilePath), writeBehindInterval(), maxLag);
+            case "lsm":
+                return new LsmTurismoStore(Path.of(lsmDirectory), Path.of(jsonFilePath), memtableRecords, maxSegments,
+                        maxSegmentSize.toBytes());
+            default:
+                throw new IllegalArgumentException("Unknown turismo.store.mode: " + mode);
+        }
+    }
+
+    /**
+     * Flush interval for JSON-backed stores: null for write-through.
+     */
+    private Duration writeBehindInterval() {
+        switch (persistenceMode) {
+            case "write-through":
+                return null;
+            case "write-behind":
+                return flushInterval;
+            default:
+                throw new IllegalArgumentException("Unknown turismo.persistence.mode: " + persistenceMode);
+        }
+    }
+}
@@ -1,15 +1,12 @@
 package com.example.lab2;
 
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.lang.reflect.Type;
 import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
+import java.nio.file.Path;
 import java.util.List;
-import java.util.Map;
 import java.util.UUID;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -21,52 +18,76 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
-import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
+import com.example.lab2.codec.TurismoProjection;
+import com.example.lab2.query.QueryCache;
+import com.example.lab2.query.TurismoFilters;
+import com.example.lab2.store.JsonFileTurismoStore;
+import com.example.lab2.store.TurismoStore;
 
 @RestController
 @RequestMapping("/api/turismo")
 public class TurismoController {
 
-    private final String jsonFilePath;
-    private final String groupedJsonFilePath = "src/main/resources/Comunidades_Agrupadas.json";
-    private final Gson gson = new Gson();
+    private final TurismoStore store;
+    private final QueryCache queryCache;
 
-    // Constructor para inicializar jsonFilePath con un valor predeterminado
-    public TurismoController() {
-        this.jsonFilePath = "src/main/resources/TurismoComunidades.json";
+    // Constructor usado por Spring: el store lo elige StoreConfig
+    @Autowired
+    public TurismoController(TurismoStore store, QueryCache queryCache) {
+        this.store = store;
+        this.queryCache = queryCache;
     }
 
-    // Constructor adicional para pruebas (testJsonPath)
+    // Constructor adicional para pruebas (testJsonPath), sin caché
     public TurismoController(String testJsonPath) {
-        this.jsonFilePath = testJsonPath;
+        this(new JsonFileTurismoStore(Path.of(testJsonPath)), new QueryCache());
     }
 
     /**
-     * Fetch all records or a paginated subset of records.
+     * Fetch all records or a paginated subset of records. Pages are cached until a
+     * mutation shifts or changes their records.
      */
     @GetMapping
     public ResponseEntity<List<Turismo>> getAllOrPaginatedRecords(
             @RequestParam(required = false) Integer page,
             @RequestParam(required = false) Integer size) {
-        try {
-            List<Turismo> records = loadRecords();
-            if (page == null || size == null) {
-                return ResponseEntity.ok(records);
-            }
+        if (page == null || size == null) {
+            return ResponseEntity.ok(store.findAll());
+        }
 
-            int start = Math.min(page * size, records.size());
-            int end = Math.min(start + size, records.size());
-            if (start > end) {
-                return ResponseEntity.badRequest().body(null);
-            }
+        List<Turismo> paginatedRecords = queryCache.getRange("page:" + page + ":" + size,
+                page * size, page * size + size, () -> {
+                    int total = store.size();
+                    int start = Math.min(page * size, total);
+                    int end = Math.min(start + size, total);
+                    if (start < 0 || start > end) {
+                        return null;
+                    }
+                    // Sólo se leen los registros de la página, no el store entero
+                    return List.copyOf(store.findRange(start, end - start));
+                });
+        if (paginatedRecords == null) {
+            return ResponseEntity.badRequest().body(null);
+        }
+        return ResponseEntity.ok(paginatedRecords);
+    }
 
-            List<Turismo> paginatedRecords = records.subList(start, end);
-            return ResponseEntity.ok(paginatedRecords);
-        } catch (IOException e) {
-            System.err.println("Error fetching records: " + e.getMessage());
-            return ResponseEntity.status(500).body(null);
+    /**
+     * Same as getAllOrPaginatedRecords, writing only the fields listed in fields, e.g.
+     * fields=_id,to.comunidad,total (see TurismoProjection).
+     */
+    @GetMapping(params = "fields")
+    public ResponseEntity<Object> getProjectedRecords(
+            @RequestParam String fields,
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size) {
+        TurismoProjection projection;
+        try {
+            projection = TurismoProjection.parse(fields);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
         }
+        return project(getAllOrPaginatedRecords(page, size), projection);
     }
 
     /**
@@ -78,10 +99,8 @@ public class TurismoController {
             return ResponseEntity.badRequest().body("Invalid payload: Missing required fields.");
         }
         try {
-            List<Turismo> records = loadRecords();
             turismo.set_id(UUID.randomUUID().toString());
-            records.add(turismo);
-            saveRecords(records);
+            store.add(turismo);
             return ResponseEntity.ok("Record added successfully.");
         } catch (IOException e) {
             System.err.println("Error saving record: " + e.getMessage());
@@ -95,25 +114,13 @@ public class TurismoController {
     @PutMapping("/{id}")
     public ResponseEntity<String> updateRecord(@PathVariable String id, @RequestBody Turismo updatedTurismo) {
         try {
-            List<Turismo> records = loadRecords();
-            boolean found = false;
-
-            for (Turismo turismo : records) {
-                if (turismo.get_id().equals(id)) {
-                    turismo.setFrom(updatedTurismo.getFrom());
-                    turismo.setTo(updatedTurismo.getTo());
-                    turismo.setTimeRange(updatedTurismo.getTimeRange());
-                    turismo.setTotal(updatedTurismo.getTotal());
-                    found = true;
-                    break;
-                }
-            }
+            updatedTurismo.set_id(id);
+            boolean found = store.update(id, updatedTurismo);
 
             if (!found) {
                 return ResponseEntity.status(404).body("Record not found.");
             }
 
-            saveRecords(records);
             return ResponseEntity.ok("Record updated successfully.");
         } catch (IOException e) {
             System.err.println("Error updating record: " + e.getMessage());
@@ -127,14 +134,12 @@ public class TurismoController {
     @DeleteMapping("/{id}")
     public ResponseEntity<String> deleteRecord(@PathVariable String id) {
         try {
-            List<Turismo> records = loadRecords();
-            boolean removed = records.removeIf(turismo -> turismo.get_id().equals(id));
+            boolean removed = store.delete(id);
 
             if (!removed) {
                 return ResponseEntity.status(404).body("Record not found.");
             }
 
-            saveRecords(records);
             return ResponseEntity.ok("Record deleted successfully.");
         } catch (IOException e) {
             System.err.println("Error deleting record: " + e.getMessage());
@@ -147,74 +152,52 @@ public class TurismoController {
      */
     @GetMapping("/{id}")
     public ResponseEntity<Turismo> getRecordById(@PathVariable String id) {
-        try {
-            List<Turismo> records = loadRecords();
-
-            for (Turismo turismo : records) {
-                if (turismo.get_id() != null && turismo.get_id().equals(id)) {
-                    return ResponseEntity.ok(turismo);
-                }
-            }
-
-            System.err.println("Record with ID " + id + " not found.");
-            return ResponseEntity.status(404).body(null);
-        } catch (IOException e) {
-            System.err.println("Error fetching record by ID: " + e.getMessage());
-            return ResponseEntity.status(500).body(null);
+        Turismo turismo = store.findById(id);
+        if (turismo != null) {
+            return ResponseEntity.ok(turismo);
         }
+
+        System.err.println("Record with ID " + id + " not found.");
+        return ResponseEntity.status(404).body(null);
     }
 
     /**
-     * Get records by community code.
+     * Get records by community code (destination comunidad). The result is cached until
+     * a record going to or leaving that comunidad changes.
      */
     @GetMapping("/community/{community}")
     public ResponseEntity<List<Turismo>> getRecordsByCommunity(@PathVariable String community) {
-        try {
-            String decodedCommunity = java.net.URLDecoder.decode(community, StandardCharsets.UTF_8);
+        String decodedCommunity = java.net.URLDecoder.decode(community, StandardCharsets.UTF_8);
+        List<Turismo> filteredRecords = queryCache.get("community:" + decodedCommunity,
+                TurismoFilters.toComunidad(decodedCommunity), () -> store.findByComunidad(decodedCommunity));
 
-            Map<String, List<Turismo>> groupedRecords = loadGroupedRecords();
-            List<Turismo> filteredRecords = groupedRecords.getOrDefault(decodedCommunity, new ArrayList<>());
-
-            if (filteredRecords.isEmpty()) {
-                return ResponseEntity.status(404).body(null);
-            }
-
-            return ResponseEntity.ok(filteredRecords);
-        } catch (IOException e) {
-            System.err.println("Error loading grouped records: " + e.getMessage());
-            return ResponseEntity.status(500).body(null);
+        if (filteredRecords.isEmpty()) {
+            return ResponseEntity.status(404).body(null);
         }
-    }
 
-    /**
-     * Load records from the JSON file.
-     */
-    private List<Turismo> loadRecords() throws IOException {
-        try (FileReader reader = new FileReader(jsonFilePath)) {
-            Type listType = new TypeToken<List<Turismo>>() {}.getType();
-            return gson.fromJson(reader, listType);
-        } catch (IOException e) {
-            System.err.println("Error reading records file: " + e.getMessage());
-            return new ArrayList<>();
-        }
+        return ResponseEntity.ok(filteredRecords);
     }
 
     /**
-     * Save records to the JSON file.
+     * Same as getRecordsByCommunity, writing only the fields listed in fields.
      */
-    private void saveRecords(List<Turismo> records) throws IOException {
-        try (FileWriter writer = new FileWriter(jsonFilePath)) {
-            gson.toJson(records, writer);
+    @GetMapping(value = "/community/{community}", params = "fields")
+    public ResponseEntity<Object> getProjectedRecordsByCommunity(@PathVariable String community,
+                                                                 @RequestParam String fields) {
+        TurismoProjection projection;
+        try {
+            projection = TurismoProjection.parse(fields);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
         }
+        return project(getRecordsByCommunity(community), projection);
     }
 
-    /**
-     * Load grouped records from the JSON file.
-     */
-    private Map<String, List<Turismo>> loadGroupedRecords() throws IOException {
-        try (FileReader reader = new FileReader(groupedJsonFilePath)) {
-            Type mapType = new TypeToken<Map<String, List<Turismo>>>() {}.getType();
-            return gson.fromJson(reader, mapType);
-        }
+    // El cuerpo se escribe con TurismoHttpMessageConverter a partir de los registros originales
+    private static ResponseEntity<Object> project(ResponseEntity<List<Turismo>> response,
+                                                  TurismoProjection projection) {
+        List<Turismo> records = response.getBody();
+        return ResponseEntity.status(response.getStatusCode())
+                .body(records != null ? new TurismoProjection.Records(records, projection) : null);
     }
 }
@@ -0,0 +1,214 @@
+package com.example.lab2;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collector;
+import java.util.stream.Collectors;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.lab2.query.FlowRanking;
+import com.example.lab2.query.PlaceIndex;
+import com.example.lab2.query.QueryCache;
+import com.example.lab2.query.ScanEngine;
+import com.example.lab2.query.TurismoFilters;
+import com.example.lab2.query.VisitorRollups;
+import com.example.lab2.store.TurismoStore;
+
+@RestController
+@RequestMapping("/api/turismo")
+public class TurismoQueryController {
+
+    private final TurismoStore store;
+    private final ScanEngine scanEngine;
+    private final FlowRanking flowRanking;
+    private final VisitorRollups visitorRollups;
+    private final PlaceIndex placeIndex;
+    private final QueryCache queryCache;
+
+    public TurismoQueryController(TurismoStore store, ScanEngine scanEngine, FlowRanking flowRanking,
+                                  VisitorRollups visitorRollups, PlaceIndex placeIndex, QueryCache queryCache) {
+        this.store = store;
+        this.scanEngine = scanEngine;
+        this.flowRanking = flowRanking;
+        this.visitorRollups = visitorRollups;
+        this.placeIndex = placeIndex;
+        this.queryCache = queryCache;
+    }
+
+    /**
+     * Ad-hoc filter and aggregation over all records, evaluated by a parallel scan.
+     *
+     * Every filter parameter is optional and they are combined with AND; minTotal and
+     * maxTotal are inclusive. metric is records (default), count or sum (of total);
+     * groupBy is any field accepted by TurismoFilters.field, e.g. to.comunidad.
+     *
+     * Results are cached under the normalized parameters until a record the filter
+     * accepts changes.
+     */
+    @GetMapping("/query")
+    public ResponseEntity<Object> query(
+            @RequestParam(required = false) Integer minTotal,
+            @RequestParam(required = false) Integer maxTotal,
+            @RequestParam(required = false) String fromComunidad,
+            @RequestParam(required = false) String toComunidad,
+            @RequestParam(required = false) String fromProvincia,
+            @RequestParam(required = false) String toProvincia,
+            @RequestParam(required = false) String period,
+            @RequestParam(required = false) String startFrom,
+            @RequestParam(required = false) String startTo,
+            @RequestParam(required = false) String groupBy,
+            @RequestParam(defaultValue = "records") String metric) {
+        Predicate<Turismo> filter = TurismoFilters.all();
+        if (minTotal != null) {
+            filter = filter.and(TurismoFilters.totalAtLeast(minTotal));
+        }
+        if (maxTotal != null) {
+            filter = filter.and(TurismoFilters.totalAtMost(maxTotal));
+        }
+        if (fromComunidad != null) {
+            filter = filter.and(TurismoFilters.fromComunidad(fromComunidad));
+        }
+        if (toComunidad != null) {
+            filter = filter.and(TurismoFilters.toComunidad(toComunidad));
+        }
+        if (fromProvincia != null) {
+            filter = filter.and(TurismoFilters.fromProvincia(fromProvincia));
+        }
+        if (toProvincia != null) {
+            filter = filter.and(TurismoFilters.toProvincia(toProvincia));
+        }
+        if (period != null) {
+            filter = filter.and(TurismoFilters.period(period));
+        }
+        if (startFrom != null || startTo != null) {
+            filter = filter.and(TurismoFilters.startsBetween(startFrom, startTo));
+        }
+
+        Collector<Turismo, ?, ?> aggregation;
+        switch (metric) {
+            case "records":
+                aggregation = Collectors.toList();
+                break;
+            case "count":
+                aggregation = Collectors.counting();
+                break;
+            case "sum":
+                aggregation = Collectors.summingLong(Turismo::getTotal);
+                break;
+            default:
+                return ResponseEntity.badRequest().body("Unknown metric: " + metric);
+        }
+
+        if (groupBy != null) {
+            Function<Turismo, String> field;
+            try {
+                field = TurismoFilters.field(groupBy);
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(e.getMessage());
+            }
+            Function<Turismo, String> key = turismo -> Objects.toString(field.apply(turismo), "");
+            aggregation = Collectors.groupingBy(key, aggregation);
+        }
+
+        // La clave no depende del orden de los parámetros en la URL
+        String key = "query:" + String.join("|", metric, Objects.toString(groupBy),
+                Objects.toString(minTotal), Objects.toString(maxTotal), Objects.toString(fromComunidad),
+                Objects.toString(toComunidad), Objects.toString(fromProvincia), Objects.toString(toProvincia),
+                Objects.toString(period), Objects.toString(startFrom), Objects.toString(startTo));
+        Predicate<Turismo> dependsOn = filter;
+        Collector<Turismo, ?, ?> collector = aggregation;
+        Object result = queryCache.get(key, dependsOn, () -> {
+            Object scanned = scanEngine.scan(store, dependsOn, collector);
+            return groupBy == null && !"records".equals(metric) ? Map.of(metric, scanned) : scanned;
+        });
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * The n origin→destination pairs with the most visitors, optionally for one period.
+     * level is comunidad (default) or provincia.
+     */
+    @GetMapping("/top-flows")
+    public ResponseEntity<List<FlowRanking.FlowTotal>> getTopFlows(
+            @RequestParam(defaultValue = "10") int n,
+            @RequestParam(required = false) String period,
+            @RequestParam(defaultValue = "comunidad") String level) {
+        if (n < 0) {
+            return ResponseEntity.badRequest().body(null);
+        }
+        FlowRanking.Level rankingLevel;
+        try {
+            rankingLevel = FlowRanking.Level.valueOf(level.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(null);
+        }
+        return ResponseEntity.ok(flowRanking.top(rankingLevel, period, n));
+    }
+
+    /**
+     * Visitor totals per calendar bucket, for charting. granularity is day, week,
+     * month (default) or year; comunidad is the destination (all when omitted);
+     * from and to are optional ISO dates.
+     */
+    @GetMapping("/rollups")
+    public ResponseEntity<List<VisitorRollups.BucketTotal>> getRollups(
+            @RequestParam(defaultValue = "month") String granularity,
+            @RequestParam(required = false) String comunidad,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to) {
+        try {
+            VisitorRollups.Granularity bucketGranularity =
+                    VisitorRollups.Granularity.valueOf(granularity.toUpperCase(Locale.ROOT));
+            LocalDate fromDate = from != null ? LocalDate.parse(from) : null;
+            LocalDate toDate = to != null ? LocalDate.parse(to) : null;
+            return ResponseEntity.ok(visitorRollups.trend(bucketGranularity, comunidad, fromDate, toDate));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            return ResponseEntity.badRequest().body(null);
+        }
+    }
+
+    /**
+     * Comunidad or provincia names matching what the user has typed so far, ignoring case
+     * and accents, best matches first (see PlaceIndex). field is comunidad (default) or
+     * provincia for either side of the trip, or one of from.comunidad, to.comunidad,
+     * from.provincia and to.provincia. offset and limit page through the matches.
+     */
+    @GetMapping("/places")
+    public ResponseEntity<List<String>> searchPlaces(
+            @RequestParam(defaultValue = "") String q,
+            @RequestParam(defaultValue = "comunidad") String field,
+            @RequestParam(defaultValue = "0") int offset,
+            @RequestParam(defaultValue = "20") int limit) {
+        if (offset < 0 || limit < 0 || limit > 1000) {
+            return ResponseEntity.badRequest().body(null);
+        }
+        Set<String> fields;
+        switch (field) {
+            case "comunidad":
+                fields = Set.of("from.comunidad", "to.comunidad");
+                break;
+            case "provincia":
+                fields = Set.of("from.provincia", "to.provincia");
+                break;
+            default:
+                fields = Set.of(field);
+        }
+        try {
+            return ResponseEntity.ok(placeIndex.search(q, fields, offset, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(null);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.lab2;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.HexFormat;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import com.example.lab2.store.TurismoStore;
+import com.example.lab2.warmup.ReadinessGateFilter;
+import com.example.lab2.warmup.WarmUpRunner;
+
+/**
+ * Startup warm-up and readiness gating. The API answers 503 until the warm-up has run
+ * and Spring Boot reports readiness, which load balancers can also poll at
+ * /actuator/health/readiness. turismo.warmup.enabled=false skips both.
+ */
+@Configuration
+@ConditionalOnProperty(name = "turismo.warmup.enabled", havingValue = "true", matchIfMissing = true)
+public class WarmUpConfig {
+
+    // Sólo el warm-up de este proceso la conoce: se genera en cada arranque
+    private final String warmUpToken = newToken();
+
+    @Bean
+    public WarmUpRunner warmUpRunner(TurismoStore store, ApplicationContext context,
+                                     @Value("${turismo.warmup.iterations:20}") int iterations,
+                                     @Value("${turismo.warmup.max-duration:20s}") Duration maxDuration) {
+        return new WarmUpRunner(store, context, iterations, maxDuration, warmUpToken);
+    }
+
+    @Bean
+    public FilterRegistrationBean<ReadinessGateFilter> readinessGateFilter(ApplicationAvailability availability) {
+        FilterRegistrationBean<ReadinessGateFilter> registration =
+                new FilterRegistrationBean<>(new ReadinessGateFilter(availability, warmUpToken));
+        registration.addUrlPatterns("/api/*");
+        // Antes que el control de admisión: un 503 de arranque no debe gastar tokens
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+
+    private static String newToken() {
+        byte[] token = new byte[16];
+        new SecureRandom().nextBytes(token);
+        return HexFormat.of().formatHex(token);
+    }
+}
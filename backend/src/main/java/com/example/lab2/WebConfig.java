@@ -0,0 +1,36 @@
+package com.example.lab2;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+import com.example.lab2.codec.TurismoHttpMessageConverter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+
+/**
+ * HTTP wire formats. Clients that send Accept: application/x-jackson-smile get Smile,
+ * a binary JSON encoding that writes each field name once per response and, with
+ * shared string values on, each repeated comunidad/provincia/date once as well.
+ * Everyone else keeps getting JSON. gzip is configured in application.properties.
+ *
+ * Turismo bodies in either format go through TurismoCodec; Spring Boot puts converter
+ * beans ahead of its defaults, so Jackson only sees the other response types.
+ */
+@Configuration
+public class WebConfig {
+
+    @Bean
+    public TurismoHttpMessageConverter turismoHttpMessageConverter() {
+        return new TurismoHttpMessageConverter();
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter() {
+        SmileFactory smileFactory = SmileFactory.builder()
+                .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)
+                .build();
+        return new MappingJackson2SmileHttpMessageConverter(new ObjectMapper(smileFactory));
+    }
+}
@@ -0,0 +1,209 @@
+package com.example.lab2.admission;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Admission control for POST/PUT/DELETE on the Turismo API. Reads pass straight through.
+ *
+ * A mutation is admitted in three steps:
+ * <ol>
+ *   <li>The client's token bucket must have a token, otherwise 429 with Retry-After set to
+ *       the time until the next token.</li>
+ *   <li>There must be a free place in the mutation queue (running plus waiting), otherwise
+ *       503 right away.</li>
+ *   <li>It waits its turn for one of maxConcurrent execution permits; if that takes longer
+ *       than queueTimeout it gets 503 as well.</li>
+ * </ol>
+ * Every outcome is counted in turismo.admission.requests, tagged by outcome. An admitted
+ * mutation holds its permit and its queue place until its response is complete; for an
+ * async request (/api/async/turismo) that is when the async work finishes, errors or
+ * times out, not when the request thread returns.
+ *
+ * Buckets are kept for the MAX_TRACKED_CLIENTS most recently seen clients; a client
+ * evicted from them starts again with a full bucket. A client is an address (see
+ * clientKey), so the browser users of the Vaadin frontend, whose requests all come from
+ * the frontend server, share one bucket.
+ */
+public class MutationAdmissionFilter extends OncePerRequestFilter {
+
+    // Con más clientes que esto se descarta el usado hace más tiempo
+    private static final int MAX_TRACKED_CLIENTS = 10_000;
+
+    private final double ratePerSecond;
+    private final double burst;
+    private final long queueTimeoutNanos;
+    private final long retryAfterSeconds;
+    private final Semaphore queueSlots;
+    private final Semaphore workers;
+    private final boolean trustForwardedFor;
+    // Orden de acceso: el primero es el cliente visto hace más tiempo
+    private final Map<String, TokenBucket> buckets = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, TokenBucket> eldest) {
+            return size() > MAX_TRACKED_CLIENTS;
+        }
+    };
+
+    private final Counter accepted;
+    private final Counter rateLimited;
+    private final Counter queueFull;
+    private final Counter queueTimeout;
+
+    public MutationAdmissionFilter(double ratePerSecond, double burst, int maxConcurrent, int queueCapacity,
+                                   Duration queueTimeout, long retryAfterSeconds, boolean trustForwardedFor,
+                                   MeterRegistry registry) {
+        this.ratePerSecond = ratePerSecond;
+        this.burst = burst;
+        this.queueTimeoutNanos = queueTimeout.toNanos();
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.trustForwardedFor = trustForwardedFor;
+        this.queueSlots = new Semaphore(maxConcurrent + queueCapacity);
+        this.workers = new Semaphore(maxConcurrent, true);
+        this.accepted = counter(registry, "accepted");
+        this.rateLimited = counter(registry, "rate_limited");
+        this.queueFull = counter(registry, "queue_full");
+        this.queueTimeout = counter(registry, "queue_timeout");
+        int slots = maxConcurrent + queueCapacity;
+        registry.gauge("turismo.admission.queue", queueSlots, s -> slots - s.availablePermits());
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String method = request.getMethod();
+        return !("POST".equals(method) || "PUT".equals(method) || "DELETE".equals(method));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long now = System.nanoTime();
+        long waitNanos = bucket(clientKey(request), now).tryAcquire(now);
+        if (waitNanos > 0) {
+            rateLimited.increment();
+            reject(response, 429, Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L)),
+                    "Too many requests.");
+            return;
+        }
+        if (!queueSlots.tryAcquire()) {
+            queueFull.increment();
+            reject(response, 503, retryAfterSeconds, "Server busy, try again later.");
+            return;
+        }
+        boolean async = false;
+        try {
+            if (!workers.tryAcquire(queueTimeoutNanos, TimeUnit.NANOSECONDS)) {
+                queueTimeout.increment();
+                reject(response, 503, retryAfterSeconds, "Server busy, try again later.");
+                return;
+            }
+            try {
+                accepted.increment();
+                chain.doFilter(request, response);
+            } finally {
+                if (request.isAsyncStarted()) {
+                    // La mutación sigue en otro hilo: los permisos se liberan cuando termine
+                    request.getAsyncContext().addListener(new ReleaseOnCompletion());
+                    async = true;
+                } else {
+                    workers.release();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            queueTimeout.increment();
+            reject(response, 503, retryAfterSeconds, "Server busy, try again later.");
+        } finally {
+            if (!async) {
+                queueSlots.release();
+            }
+        }
+    }
+
+    private TokenBucket bucket(String client, long now) {
+        synchronized (buckets) {
+            return buckets.computeIfAbsent(client, c -> new TokenBucket(ratePerSecond, burst, now));
+        }
+    }
+
+    /**
+     * With trustForwardedFor (behind a proxy such as Heroku's router, which appends the
+     * address it saw) the client is the last X-Forwarded-For address: the entries before
+     * it come from the client and can be anything. Otherwise it is the remote address.
+     */
+    private String clientKey(HttpServletRequest request) {
+        String forwarded = trustForwardedFor ? request.getHeader("X-Forwarded-For") : null;
+        if (forwarded != null && !forwarded.isBlank()) {
+            return forwarded.substring(forwarded.lastIndexOf(',') + 1).trim();
+        }
+        return request.getRemoteAddr();
+    }
+
+    private static void reject(HttpServletResponse response, int status, long retryAfter, String message)
+            throws IOException {
+        response.setStatus(status);
+        response.setHeader("Retry-After", Long.toString(retryAfter));
+        response.setContentType("text/plain;charset=UTF-8");
+        response.getWriter().write(message);
+    }
+
+    /**
+     * Releases an async mutation's permit and queue place once, on whichever of
+     * complete, timeout or error the container reports first.
+     */
+    private final class ReleaseOnCompletion implements AsyncListener {
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // Un nuevo startAsync descarta los listeners: hay que volver a registrarse
+            event.getAsyncContext().addListener(this);
+        }
+
+        private void release() {
+            if (released.compareAndSet(false, true)) {
+                workers.release();
+                queueSlots.release();
+            }
+        }
+    }
+
+    private static Counter counter(MeterRegistry registry, String outcome) {
+        return Counter.builder("turismo.admission.requests")
+                .description("Mutation requests by admission outcome")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+}
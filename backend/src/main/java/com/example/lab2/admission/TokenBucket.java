@@ -0,0 +1,54 @@
+package com.example.lab2.admission;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Token bucket: holds up to capacity tokens and refills at a fixed rate. Each request
+ * takes one token, so a client can burst up to capacity and then sustain the rate.
+ * Time is passed in by the caller (System.nanoTime()) to keep the class testable.
+ */
+public class TokenBucket {
+
+    private final double capacity;
+    private final double tokensPerNano;
+    private final ReentrantLock lock = new ReentrantLock();
+    private double tokens;
+    private long lastRefill;
+
+    public TokenBucket(double tokensPerSecond, double capacity, long nowNanos) {
+        if (tokensPerSecond <= 0 || capacity < 1) {
+            throw new IllegalArgumentException("Rate must be positive and capacity at least 1");
+        }
+        this.capacity = capacity;
+        this.tokensPerNano = tokensPerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.tokens = capacity;
+        this.lastRefill = nowNanos;
+    }
+
+    /**
+     * Take one token. Returns 0 when it was taken, otherwise the nanoseconds until one
+     * becomes available.
+     */
+    public long tryAcquire(long nowNanos) {
+        lock.lock();
+        try {
+            refill(nowNanos);
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            return (long) Math.ceil((1 - tokens) / tokensPerNano);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void refill(long nowNanos) {
+        long elapsed = nowNanos - lastRefill;
+        if (elapsed > 0) {
+            tokens = Math.min(capacity, tokens + elapsed * tokensPerNano);
+            lastRefill = nowNanos;
+        }
+    }
+}
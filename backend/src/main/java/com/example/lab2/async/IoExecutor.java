@@ -0,0 +1,100 @@
+package com.example.lab2.async;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import com.example.lab2.jfr.RequestContext;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Bounded pool for the store and persistence work of the async Turismo API.
+ *
+ * submit() never blocks the caller. The task waits in a queue of queueCapacity for one
+ * of threads workers; with the queue full the future fails at once with
+ * RejectedExecutionException. A task still waiting in the queue after timeout is taken
+ * out of it and its future fails with TimeoutException, so a failed future always means
+ * the task never ran and is safe to retry. A task that has started is not timed out:
+ * it runs to completion (interrupting it would close the store's file channels) and
+ * completes its future. Rejections and timeouts are counted in turismo.async.tasks,
+ * tagged by outcome. Tasks run under the caller's RequestContext id, so their JFR stage
+ * events can be matched with the request.
+ */
+public class IoExecutor implements Closeable {
+
+    private final ThreadPoolExecutor executor;
+    private final ScheduledThreadPoolExecutor timer;
+    private final long timeoutMillis;
+    private final Counter completed;
+    private final Counter rejected;
+    private final Counter timedOut;
+
+    public IoExecutor(int threads, int queueCapacity, Duration timeout, MeterRegistry registry) {
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), Thread.ofPlatform().name("turismo-io-", 0).daemon().factory(),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.timer = new ScheduledThreadPoolExecutor(1, Thread.ofPlatform().name("turismo-io-timer").daemon().factory());
+        this.timer.setRemoveOnCancelPolicy(true);
+        this.timeoutMillis = timeout.toMillis();
+        this.completed = counter(registry, "completed");
+        this.rejected = counter(registry, "rejected");
+        this.timedOut = counter(registry, "timeout");
+        registry.gauge("turismo.async.queue", executor, e -> e.getQueue().size());
+        registry.gauge("turismo.async.active", executor, ThreadPoolExecutor::getActiveCount);
+    }
+
+    /**
+     * Run task on the pool and complete the returned future with its result.
+     */
+    public <T> CompletableFuture<T> submit(Callable<T> task) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Callable<T> traced = RequestContext.wrap(task);
+        Runnable work = () -> {
+            try {
+                result.complete(traced.call());
+                completed.increment();
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        };
+        try {
+            executor.execute(work);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            result.completeExceptionally(e);
+            return result;
+        }
+        ScheduledFuture<?> expiry = timer.schedule(() -> {
+            // Sólo caduca si sigue en la cola: lo que ya se ejecuta termina y responde
+            if (executor.remove(work)) {
+                timedOut.increment();
+                result.completeExceptionally(new TimeoutException("Queued for more than " + timeoutMillis + " ms"));
+            }
+        }, timeoutMillis, TimeUnit.MILLISECONDS);
+        result.whenComplete((value, error) -> expiry.cancel(false));
+        return result;
+    }
+
+    @Override
+    public void close() {
+        timer.shutdownNow();
+        executor.shutdown();
+    }
+
+    private static Counter counter(MeterRegistry registry, String outcome) {
+        return Counter.builder("turismo.async.tasks")
+                .description("Async API tasks by outcome")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+}
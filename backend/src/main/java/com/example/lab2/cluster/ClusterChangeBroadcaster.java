@@ -0,0 +1,80 @@
+package com.example.lab2.cluster;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.example.lab2.Turismo;
+import com.example.lab2.store.StoreListener;
+
+/**
+ * Passes the mutations clients make on this node to every other node, which hands them
+ * to its own ObservableTurismoStore listeners (ClusterController's /changes). Only the
+ * owner and follower of a record store it, but every node keeps FlowRanking,
+ * VisitorRollups, PlaceIndex and the QueryCache for the whole cluster, so all of them
+ * must hear about every change.
+ *
+ * Each node gets its changes in order from one thread, off the request path. A node
+ * that cannot be reached misses them (logged); it rebuilds its structures from the
+ * cluster's records when it restarts.
+ */
+public class ClusterChangeBroadcaster implements StoreListener, Closeable {
+
+    private final ClusterTopology topology;
+    private final ClusterClient client;
+    private final ExecutorService[] senders;
+
+    public ClusterChangeBroadcaster(ClusterTopology topology, ClusterClient client) {
+        this.topology = topology;
+        this.client = client;
+        this.senders = new ExecutorService[topology.size()];
+        for (int node = 0; node < topology.size(); node++) {
+            if (node != topology.self()) {
+                senders[node] = Executors.newSingleThreadExecutor(
+                        Thread.ofPlatform().name("cluster-changes-" + node).daemon().factory());
+            }
+        }
+    }
+
+    @Override
+    public void onAdd(Turismo turismo) {
+        announce(null, turismo);
+    }
+
+    @Override
+    public void onDelete(Turismo previous) {
+        announce(previous, null);
+    }
+
+    @Override
+    public void onUpdate(Turismo previous, Turismo current) {
+        announce(previous, current);
+    }
+
+    @Override
+    public void close() {
+        for (ExecutorService sender : senders) {
+            if (sender != null) {
+                sender.shutdown();
+            }
+        }
+    }
+
+    private void announce(Turismo previous, Turismo current) {
+        for (int node = 0; node < senders.length; node++) {
+            if (senders[node] == null) {
+                continue;
+            }
+            String url = topology.url(node);
+            int n = node;
+            senders[node].execute(() -> {
+                try {
+                    client.announce(url, previous, current);
+                } catch (IOException e) {
+                    System.err.println("Change not announced to node " + n + ": " + e.getMessage());
+                }
+            });
+        }
+    }
+}
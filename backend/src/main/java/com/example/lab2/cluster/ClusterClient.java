@@ -0,0 +1,181 @@
+package com.example.lab2.cluster;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.ConnectException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+
+import com.example.lab2.Turismo;
+import com.example.lab2.codec.TurismoCodec;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+
+/**
+ * Calls the internal endpoints of other nodes (ClusterController). A node that cannot be
+ * reached or times out, or answers 503 with CATCHING_UP_HEADER, is reported as a
+ * NodeUnavailableException so the caller can fail over to the partition's other replica.
+ * Any other 5xx is a plain IOException: the node was reached and may have applied the
+ * request. 404 is a normal answer (no such record). Every request carries the cluster's
+ * shared secret in SECRET_HEADER, which ClusterSecretFilter checks.
+ */
+public class ClusterClient {
+
+    public static final String ROLE_HEADER = "X-Cluster-Role";
+    public static final String CATCHING_UP_HEADER = "X-Cluster-Catching-Up";
+    public static final String SECRET_HEADER = "X-Cluster-Secret";
+
+    private final HttpClient http;
+    private final Duration timeout;
+    private final String secret;
+
+    public ClusterClient(Duration connectTimeout, Duration timeout, String secret) {
+        this.http = HttpClient.newBuilder().connectTimeout(connectTimeout).build();
+        this.timeout = timeout;
+        this.secret = secret;
+    }
+
+    /**
+     * The node's local copy of a record, or null.
+     */
+    public Turismo get(String node, String id) throws IOException {
+        HttpResponse<byte[]> response = send(request(node, "/records/" + encode(id)).GET());
+        if (response.statusCode() == 404) {
+            return null;
+        }
+        try (JsonParser parser = TurismoCodec.JSON.createParser(response.body())) {
+            return TurismoCodec.read(parser);
+        }
+    }
+
+    /**
+     * The node's local records of one partition.
+     */
+    public List<Turismo> partition(String node, int partition) throws IOException {
+        return partition(node, partition, 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * The node's local records of one partition at positions [offset, offset + limit).
+     */
+    public List<Turismo> partition(String node, int partition, int offset, int limit) throws IOException {
+        String range = "?offset=" + offset + "&limit=" + limit;
+        try (JsonParser parser = TurismoCodec.JSON.createParser(
+                send(request(node, "/partitions/" + partition + range).GET()).body())) {
+            return TurismoCodec.readList(parser);
+        }
+    }
+
+    /**
+     * Number of records of one partition the node holds.
+     */
+    public int count(String node, int partition) throws IOException {
+        String body = new String(send(request(node, "/partitions/" + partition + "/count").GET()).body(),
+                StandardCharsets.UTF_8);
+        try {
+            return Integer.parseInt(body.trim());
+        } catch (NumberFormatException e) {
+            throw new IOException("Invalid count from cluster node " + node + ": " + body);
+        }
+    }
+
+    /**
+     * Ask the node to replace its copy of a partition with the copy on node from, an index
+     * into the topology. Returns once it has done so.
+     */
+    public void resync(String node, int partition, int from) throws IOException {
+        send(request(node, "/partitions/" + partition + "/resync?from=" + from)
+                .POST(HttpRequest.BodyPublishers.noBody()));
+    }
+
+    /**
+     * Tell the node about a change applied elsewhere in the cluster, so its derived
+     * structures follow it. previous is null for an add, current for a delete.
+     */
+    public void announce(String node, Turismo previous, Turismo current) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(512);
+        try (JsonGenerator generator = TurismoCodec.JSON.createGenerator(out)) {
+            generator.writeStartArray();
+            writeOrNull(generator, previous);
+            writeOrNull(generator, current);
+            generator.writeEndArray();
+        }
+        send(request(node, "/changes")
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(out.toByteArray())));
+    }
+
+    public void add(String node, Turismo turismo, ClusteredTurismoStore.Role role) throws IOException {
+        send(request(node, "/records").header(ROLE_HEADER, role.name())
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(write(turismo))));
+    }
+
+    public boolean update(String node, String id, Turismo turismo, ClusteredTurismoStore.Role role)
+            throws IOException {
+        HttpResponse<byte[]> response = send(request(node, "/records/" + encode(id))
+                .header(ROLE_HEADER, role.name())
+                .header("Content-Type", "application/json")
+                .PUT(HttpRequest.BodyPublishers.ofByteArray(write(turismo))));
+        return response.statusCode() != 404;
+    }
+
+    public boolean delete(String node, String id, ClusteredTurismoStore.Role role) throws IOException {
+        HttpResponse<byte[]> response = send(request(node, "/records/" + encode(id))
+                .header(ROLE_HEADER, role.name())
+                .DELETE());
+        return response.statusCode() != 404;
+    }
+
+    private HttpRequest.Builder request(String node, String path) {
+        return HttpRequest.newBuilder(URI.create(node + "/internal/cluster" + path)).timeout(timeout)
+                .header(SECRET_HEADER, secret);
+    }
+
+    private HttpResponse<byte[]> send(HttpRequest.Builder request) throws IOException {
+        HttpResponse<byte[]> response;
+        try {
+            response = http.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+        } catch (ConnectException | HttpTimeoutException e) {
+            throw new NodeUnavailableException("Cluster node " + request.build().uri() + " unavailable", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted calling cluster node");
+        }
+        if (response.statusCode() == 503 && response.headers().firstValue(CATCHING_UP_HEADER).isPresent()) {
+            throw new NodeUnavailableException("Cluster node " + response.uri() + " is catching up", null);
+        }
+        if (response.statusCode() >= 500) {
+            throw new IOException("Cluster node " + response.uri() + " answered " + response.statusCode());
+        }
+        return response;
+    }
+
+    private static byte[] write(Turismo turismo) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+        try (JsonGenerator generator = TurismoCodec.JSON.createGenerator(out)) {
+            TurismoCodec.write(generator, turismo);
+        }
+        return out.toByteArray();
+    }
+
+    private static void writeOrNull(JsonGenerator generator, Turismo turismo) throws IOException {
+        if (turismo != null) {
+            TurismoCodec.write(generator, turismo);
+        } else {
+            generator.writeNull();
+        }
+    }
+
+    private static String encode(String id) {
+        return URLEncoder.encode(id, StandardCharsets.UTF_8).replace("+", "%20");
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.lab2.cluster;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.lab2.Turismo;
+import com.example.lab2.codec.TurismoCodec;
+import com.example.lab2.store.ObservableTurismoStore;
+import com.fasterxml.jackson.core.JsonParser;
+
+/**
+ * Node-to-node endpoints used by ClusterClient. They act on this node's local store
+ * only and never route further; the X-Cluster-Role header says whether to replicate.
+ * While the node is catching up on a partition, requests for it get 503 with
+ * CATCHING_UP_HEADER so the caller uses the other replica. Changes announced by other
+ * nodes go to this node's store listeners.
+ * ClusterSecretFilter lets only requests with the cluster's shared secret reach them.
+ */
+@RestController
+@RequestMapping("/internal/cluster")
+@ConditionalOnProperty(name = "turismo.cluster.enabled", havingValue = "true")
+public class ClusterController {
+
+    private final ClusteredTurismoStore store;
+    private final ObservableTurismoStore observable;
+
+    public ClusterController(ClusteredTurismoStore store, ObservableTurismoStore observable) {
+        this.store = store;
+        this.observable = observable;
+    }
+
+    @GetMapping("/records/{id}")
+    public ResponseEntity<Turismo> getRecord(@PathVariable String id) {
+        if (catchingUp(id)) {
+            return catchingUpResponse();
+        }
+        Turismo turismo = store.localFindById(id);
+        return turismo != null ? ResponseEntity.ok(turismo) : ResponseEntity.status(404).body(null);
+    }
+
+    @GetMapping("/partitions/{partition}")
+    public ResponseEntity<List<Turismo>> getPartition(@PathVariable int partition,
+                                                      @RequestParam(defaultValue = "0") int offset,
+                                                      @RequestParam(defaultValue = "2147483647") int limit) {
+        if (partition < 0 || partition >= store.topology().size() || offset < 0 || limit < 0) {
+            return ResponseEntity.badRequest().body(null);
+        }
+        if (store.isCatchingUp(partition)) {
+            return catchingUpResponse();
+        }
+        return ResponseEntity.ok(store.localPartition(partition, offset, limit));
+    }
+
+    @GetMapping("/partitions/{partition}/count")
+    public ResponseEntity<String> countPartition(@PathVariable int partition) {
+        if (partition < 0 || partition >= store.topology().size()) {
+            return ResponseEntity.badRequest().body(null);
+        }
+        if (store.isCatchingUp(partition)) {
+            return catchingUpResponse();
+        }
+        return ResponseEntity.ok(Integer.toString(store.localCount(partition)));
+    }
+
+    @PostMapping("/partitions/{partition}/resync")
+    public ResponseEntity<String> resyncPartition(@PathVariable int partition, @RequestParam int from) {
+        try {
+            store.resyncFrom(partition, from);
+            return ResponseEntity.ok("Partition resynced.");
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (IOException e) {
+            System.err.println("Error resyncing partition " + partition + ": " + e.getMessage());
+            return ResponseEntity.status(500).body("Error resyncing partition.");
+        }
+    }
+
+    @PostMapping("/changes")
+    public ResponseEntity<String> announceChange(@RequestBody byte[] body) {
+        try (JsonParser parser = TurismoCodec.JSON.createParser(body)) {
+            parser.nextToken();
+            parser.nextToken();
+            Turismo previous = TurismoCodec.read(parser);
+            parser.nextToken();
+            Turismo current = TurismoCodec.read(parser);
+            if (previous == null && current == null) {
+                return ResponseEntity.badRequest().body("Empty change.");
+            }
+            observable.publish(previous, current);
+            return ResponseEntity.ok("Change applied.");
+        } catch (IOException e) {
+            return ResponseEntity.badRequest().body("Invalid change: " + e.getMessage());
+        }
+    }
+
+    @PostMapping("/records")
+    public ResponseEntity<String> addRecord(@RequestHeader(ClusterClient.ROLE_HEADER) ClusteredTurismoStore.Role role,
+                                            @RequestBody Turismo turismo) {
+        if (catchingUp(turismo.get_id())) {
+            return catchingUpResponse();
+        }
+        try {
+            store.applyAdd(turismo, role);
+            return ResponseEntity.ok("Record added successfully.");
+        } catch (IOException e) {
+            System.err.println("Error saving record: " + e.getMessage());
+            return ResponseEntity.status(500).body("Error saving record.");
+        }
+    }
+
+    @PutMapping("/records/{id}")
+    public ResponseEntity<String> updateRecord(@RequestHeader(ClusterClient.ROLE_HEADER) ClusteredTurismoStore.Role role,
+                                               @PathVariable String id, @RequestBody Turismo turismo) {
+        if (catchingUp(id)) {
+            return catchingUpResponse();
+        }
+        try {
+            if (!store.applyUpdate(id, turismo, role)) {
+                return ResponseEntity.status(404).body("Record not found.");
+            }
+            return ResponseEntity.ok("Record updated successfully.");
+        } catch (IOException e) {
+            System.err.println("Error updating record: " + e.getMessage());
+            return ResponseEntity.status(500).body("Error updating record.");
+        }
+    }
+
+    @DeleteMapping("/records/{id}")
+    public ResponseEntity<String> deleteRecord(@RequestHeader(ClusterClient.ROLE_HEADER) ClusteredTurismoStore.Role role,
+                                               @PathVariable String id) {
+        if (catchingUp(id)) {
+            return catchingUpResponse();
+        }
+        try {
+            if (!store.applyDelete(id, role)) {
+                return ResponseEntity.status(404).body("Record not found.");
+            }
+            return ResponseEntity.ok("Record deleted successfully.");
+        } catch (IOException e) {
+            System.err.println("Error deleting record: " + e.getMessage());
+            return ResponseEntity.status(500).body("Error deleting record.");
+        }
+    }
+
+    private boolean catchingUp(String id) {
+        return store.isCatchingUp(store.topology().partition(id));
+    }
+
+    private static <T> ResponseEntity<T> catchingUpResponse() {
+        return ResponseEntity.status(503).header(ClusterClient.CATCHING_UP_HEADER, "true").body(null);
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.lab2.cluster;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Closes the node-to-node endpoints (/internal/cluster) to anyone but the other nodes.
+ * They share the public API's port, so every request must carry the cluster's shared
+ * secret in ClusterClient.SECRET_HEADER; any other gets 403.
+ */
+public class ClusterSecretFilter extends OncePerRequestFilter {
+
+    private final byte[] secret;
+
+    public ClusterSecretFilter(String secret) {
+        if (secret == null || secret.isBlank()) {
+            throw new IllegalArgumentException("turismo.cluster.secret must be set in cluster mode");
+        }
+        this.secret = secret.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String given = request.getHeader(ClusterClient.SECRET_HEADER);
+        // Comparación en tiempo constante: no revela cuántos caracteres coinciden
+        if (given == null || !MessageDigest.isEqual(secret, given.getBytes(StandardCharsets.UTF_8))) {
+            response.setStatus(403);
+            response.setContentType("text/plain");
+            response.getWriter().write("Cluster endpoints are for cluster nodes only.");
+            return;
+        }
+        chain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.lab2.cluster;
+
+import java.util.List;
+
+/**
+ * Static cluster layout: the base URLs of every node, in the same order on every node,
+ * and the index of this node.
+ *
+ * The id space is split into one partition per node by String.hashCode, which is the
+ * same on every JVM. Node p owns partition p and node p+1 (wrapping around) follows it,
+ * keeping a replica and taking over when the owner does not answer.
+ */
+public class ClusterTopology {
+
+    private final List<String> nodes;
+    private final int self;
+
+    public ClusterTopology(List<String> nodes, int self) {
+        if (nodes.isEmpty() || self < 0 || self >= nodes.size()) {
+            throw new IllegalArgumentException("turismo.cluster.self must index turismo.cluster.nodes");
+        }
+        this.nodes = List.copyOf(nodes);
+        this.self = self;
+    }
+
+    public int size() {
+        return nodes.size();
+    }
+
+    public int self() {
+        return self;
+    }
+
+    public String url(int node) {
+        return nodes.get(node);
+    }
+
+    public int partition(String id) {
+        return Math.floorMod(id.hashCode(), nodes.size());
+    }
+
+    public int owner(int partition) {
+        return partition;
+    }
+
+    public int follower(int partition) {
+        return (partition + 1) % nodes.size();
+    }
+
+    /**
+     * Nodes holding the partition, owner first. A single-node cluster has no follower.
+     */
+    public int[] replicas(int partition) {
+        int owner = owner(partition);
+        int follower = follower(partition);
+        return owner == follower ? new int[] {owner} : new int[] {owner, follower};
+    }
+}
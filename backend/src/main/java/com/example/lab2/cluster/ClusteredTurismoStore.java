@@ -0,0 +1,476 @@
+package com.example.lab2.cluster;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import com.example.lab2.Turismo;
+import com.example.lab2.store.TurismoStore;
+
+/**
+ * Store for one node of a cluster. Each record belongs to the partition of its id
+ * (ClusterTopology); this node's local store holds the partition it owns plus the one
+ * it follows.
+ *
+ * Reads and writes go to the partition's owner, locally or over HTTP. The owner applies
+ * a write and passes it on to the follower before answering. Only when the owner cannot
+ * be reached in time (NodeUnavailableException) does the request go to the follower,
+ * which applies it on its own, so the partition stays readable and writable while its
+ * owner is down. Errors from a node that was reached, including this node's own disk
+ * errors, are returned to the caller as they are.
+ *
+ * Keeping the two copies of a partition equal:
+ * <ul>
+ *   <li>On startup (catchUp) a node replaces its copy of both partitions it holds with
+ *       the other replica's, if that one is up. Peers reach it only once it is done.</li>
+ *   <li>A follower that took writes for an unreachable owner, and an owner whose
+ *       replication to the follower failed, remember the partition. Every
+ *       resyncInterval they ask the other replica to resync it, which makes that node
+ *       replace its copy with theirs; until it has, it answers its peers 503 with
+ *       CATCHING_UP_HEADER and they keep using this node. A partition stays marked
+ *       until a resync started after its last missed write has succeeded.</li>
+ * </ul>
+ * While an owner is unreachable without having restarted (a network partition) it can
+ * still answer clients that reach it, and a resync then keeps the follower's copy. The
+ * marks live in memory only: a node restarted before its resync succeeded takes the
+ * other replica's copy on startup.
+ *
+ * findAll gathers every partition from its owner, or its follower when the owner is
+ * down. Partitions with both nodes down are left out and logged. forEach and findRange
+ * fetch one partition at a time, findRange only the part of it in the range, and size
+ * adds up the partition counts each node keeps for the partitions it holds.
+ */
+public class ClusteredTurismoStore implements TurismoStore {
+
+    /**
+     * How a node applies a write it receives: OWNER also replicates it to the follower,
+     * REPLICA only stores it, and FAILOVER stores it for an unreachable owner and marks
+     * the partition for a resync.
+     */
+    public enum Role {
+        OWNER, REPLICA, FAILOVER
+    }
+
+    private interface Call<T> {
+        T on(int node, Role role) throws IOException;
+    }
+
+    private interface Replication {
+        void to(String follower) throws IOException;
+    }
+
+    private static final int LOCKS = 64;
+
+    private final TurismoStore local;
+    private final ClusterTopology topology;
+    private final ClusterClient client;
+    private final long resyncIntervalMillis;
+    // Particiones cuya otra réplica se ha perdido escrituras, con la versión de la última
+    private final Map<Integer, Long> missed = new ConcurrentHashMap<>();
+    private final Set<Integer> catchingUp = ConcurrentHashMap.newKeySet();
+    private final AtomicLong writes = new AtomicLong();
+    // Registros locales por partición; los cambios de un mismo id se serializan con locks
+    private final AtomicInteger[] counts;
+    private final Object[] locks = new Object[LOCKS];
+    private final Thread resyncThread;
+    private volatile boolean closed;
+
+    public ClusteredTurismoStore(TurismoStore local, ClusterTopology topology, ClusterClient client,
+                                 Duration resyncInterval) {
+        this.local = local;
+        this.topology = topology;
+        this.client = client;
+        this.resyncIntervalMillis = resyncInterval.toMillis();
+        this.resyncThread = Thread.ofPlatform().name("cluster-resync").daemon().unstarted(this::resyncLoop);
+        this.counts = new AtomicInteger[topology.size()];
+        for (int partition = 0; partition < counts.length; partition++) {
+            counts[partition] = new AtomicInteger();
+        }
+        for (int i = 0; i < LOCKS; i++) {
+            locks[i] = new Object();
+        }
+        local.forEach(turismo -> counts[topology.partition(turismo.get_id())].incrementAndGet());
+    }
+
+    public ClusterTopology topology() {
+        return topology;
+    }
+
+    public ClusterClient client() {
+        return client;
+    }
+
+    /**
+     * Bring both partitions this node holds up to date from their other replica, then
+     * start the background resync. Called once at startup, before the node serves
+     * requests. A partition whose other replica is down or fails keeps this node's copy.
+     */
+    public void catchUp() throws IOException {
+        for (int partition : heldPartitions()) {
+            List<Turismo> records;
+            try {
+                records = client.partition(topology.url(peer(partition)), partition);
+            } catch (IOException e) {
+                System.err.println("Partition " + partition + " not caught up from node " + peer(partition)
+                        + ": " + e.getMessage());
+                continue;
+            }
+            replacePartition(partition, records);
+        }
+        resyncThread.start();
+    }
+
+    /**
+     * Replace this node's copy of a partition with the copy on node from, which must be
+     * the partition's other replica. Requests from peers for the partition get 503 until
+     * it is done.
+     */
+    public void resyncFrom(int partition, int from) throws IOException {
+        if (partition < 0 || partition >= topology.size() || !heldPartitions().contains(partition)
+                || from != peer(partition)) {
+            throw new IllegalArgumentException("Node " + from + " does not hold the other replica of partition "
+                    + partition);
+        }
+        catchingUp.add(partition);
+        try {
+            replacePartition(partition, client.partition(topology.url(from), partition));
+        } finally {
+            catchingUp.remove(partition);
+        }
+    }
+
+    /**
+     * Whether peers should be told to use the partition's other replica for now.
+     */
+    public boolean isCatchingUp(int partition) {
+        return catchingUp.contains(partition);
+    }
+
+    @Override
+    public List<Turismo> findAll() {
+        List<Turismo> all = new ArrayList<>();
+        for (int partition = 0; partition < topology.size(); partition++) {
+            int p = partition;
+            try {
+                all.addAll(route(p, (node, role) ->
+                        node == topology.self() ? localPartition(p) : client.partition(topology.url(node), p)));
+            } catch (IOException e) {
+                System.err.println("Partition " + p + " unavailable: " + e.getMessage());
+            }
+        }
+        return all;
+    }
+
+    @Override
+    public void forEach(Consumer<? super Turismo> action) {
+        for (int partition = 0; partition < topology.size(); partition++) {
+            try {
+                fetchPartition(partition, 0, Integer.MAX_VALUE).forEach(action);
+            } catch (IOException e) {
+                System.err.println("Partition " + partition + " unavailable: " + e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public List<Turismo> findRange(int offset, int limit) {
+        List<Turismo> range = new ArrayList<>();
+        int skip = offset;
+        for (int partition = 0; partition < topology.size() && range.size() < limit; partition++) {
+            try {
+                int count = partitionSize(partition);
+                if (skip >= count) {
+                    skip -= count;
+                    continue;
+                }
+                range.addAll(fetchPartition(partition, skip, limit - range.size()));
+                skip = 0;
+            } catch (IOException e) {
+                System.err.println("Partition " + partition + " unavailable: " + e.getMessage());
+            }
+        }
+        return range;
+    }
+
+    @Override
+    public Turismo findById(String id) {
+        try {
+            return route(topology.partition(id), (node, role) ->
+                    node == topology.self() ? local.findById(id) : client.get(topology.url(node), id));
+        } catch (IOException e) {
+            System.err.println("Record " + id + " unavailable: " + e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public void add(Turismo turismo) throws IOException {
+        route(topology.partition(turismo.get_id()), (node, role) -> {
+            if (node == topology.self()) {
+                applyAdd(turismo, role);
+            } else {
+                client.add(topology.url(node), turismo, role);
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public boolean update(String id, Turismo turismo) throws IOException {
+        return route(topology.partition(id), (node, role) -> node == topology.self()
+                ? applyUpdate(id, turismo, role)
+                : client.update(topology.url(node), id, turismo, role));
+    }
+
+    @Override
+    public boolean delete(String id) throws IOException {
+        return route(topology.partition(id), (node, role) -> node == topology.self()
+                ? applyDelete(id, role)
+                : client.delete(topology.url(node), id, role));
+    }
+
+    /**
+     * findAll lists records partition by partition.
+     */
+    @Override
+    public boolean insertionOrdered() {
+        return false;
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (int partition = 0; partition < topology.size(); partition++) {
+            try {
+                size += partitionSize(partition);
+            } catch (IOException e) {
+                System.err.println("Partition " + partition + " unavailable: " + e.getMessage());
+            }
+        }
+        return size;
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        resyncThread.interrupt();
+        local.close();
+    }
+
+    /**
+     * This node's copy of a record, without routing.
+     */
+    public Turismo localFindById(String id) {
+        return local.findById(id);
+    }
+
+    /**
+     * This node's records of one partition, without routing.
+     */
+    public List<Turismo> localPartition(int partition) {
+        return localPartition(partition, 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * This node's records of one partition at positions [offset, offset + limit), without
+     * routing.
+     */
+    public List<Turismo> localPartition(int partition, int offset, int limit) {
+        List<Turismo> records = new ArrayList<>();
+        int[] position = {0};
+        local.forEach(turismo -> {
+            if (topology.partition(turismo.get_id()) == partition) {
+                int p = position[0]++;
+                if (p >= offset && records.size() < limit) {
+                    records.add(turismo);
+                }
+            }
+        });
+        return records;
+    }
+
+    /**
+     * Number of records of a partition this node holds, without routing.
+     */
+    public int localCount(int partition) {
+        return counts[partition].get();
+    }
+
+    public void applyAdd(Turismo turismo, Role role) throws IOException {
+        String id = turismo.get_id();
+        synchronized (lock(id)) {
+            boolean existed = local.findById(id) != null;
+            local.add(turismo);
+            if (!existed) {
+                counts[topology.partition(id)].incrementAndGet();
+            }
+        }
+        afterWrite(turismo.get_id(), role, follower -> client.add(follower, turismo, Role.REPLICA));
+    }
+
+    public boolean applyUpdate(String id, Turismo turismo, Role role) throws IOException {
+        boolean found;
+        synchronized (lock(id)) {
+            found = local.update(id, turismo);
+            if (!found && role != Role.OWNER) {
+                // La réplica pudo perderse el alta; la actualización la repone
+                local.add(turismo);
+                counts[topology.partition(id)].incrementAndGet();
+                found = true;
+            }
+        }
+        if (found) {
+            afterWrite(id, role, follower -> client.update(follower, id, turismo, Role.REPLICA));
+        }
+        return found;
+    }
+
+    public boolean applyDelete(String id, Role role) throws IOException {
+        boolean removed;
+        synchronized (lock(id)) {
+            removed = local.delete(id);
+            if (removed) {
+                counts[topology.partition(id)].decrementAndGet();
+            }
+        }
+        if (removed) {
+            afterWrite(id, role, follower -> client.delete(follower, id, Role.REPLICA));
+        }
+        return removed;
+    }
+
+    private void afterWrite(String id, Role role, Replication replication) {
+        int partition = topology.partition(id);
+        if (role == Role.FAILOVER) {
+            markMissed(partition);
+        } else if (role == Role.OWNER) {
+            int follower = topology.follower(partition);
+            if (follower == topology.self()) {
+                return;
+            }
+            try {
+                replication.to(topology.url(follower));
+            } catch (IOException e) {
+                System.err.println("Replication of " + id + " to node " + follower + " failed: " + e.getMessage());
+                markMissed(partition);
+            }
+        }
+    }
+
+    private void markMissed(int partition) {
+        missed.put(partition, writes.incrementAndGet());
+    }
+
+    private void resyncLoop() {
+        while (!closed) {
+            try {
+                Thread.sleep(resyncIntervalMillis);
+            } catch (InterruptedException e) {
+                return;
+            }
+            for (Map.Entry<Integer, Long> entry : Map.copyOf(missed).entrySet()) {
+                int partition = entry.getKey();
+                try {
+                    client.resync(topology.url(peer(partition)), partition, topology.self());
+                    // Una escritura perdida durante el resync vuelve a marcar la partición
+                    missed.remove(partition, entry.getValue());
+                } catch (IOException e) {
+                    System.err.println("Resync of partition " + partition + " on node " + peer(partition)
+                            + " failed: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Make the local copy of a partition equal to records, through the local store.
+     */
+    private void replacePartition(int partition, List<Turismo> records) throws IOException {
+        Set<String> ids = new HashSet<>();
+        for (Turismo turismo : records) {
+            ids.add(turismo.get_id());
+            if (!local.update(turismo.get_id(), turismo)) {
+                local.add(turismo);
+            }
+        }
+        for (Turismo turismo : localPartition(partition)) {
+            if (!ids.contains(turismo.get_id())) {
+                local.delete(turismo.get_id());
+            }
+        }
+        counts[partition].set(ids.size());
+    }
+
+    private Object lock(String id) {
+        return locks[Math.floorMod(id.hashCode(), LOCKS)];
+    }
+
+    /**
+     * Number of records in a partition, from its owner or its follower.
+     */
+    private int partitionSize(int partition) throws IOException {
+        return route(partition, (node, role) ->
+                node == topology.self() ? localCount(partition) : client.count(topology.url(node), partition));
+    }
+
+    /**
+     * Records of a partition at positions [offset, offset + limit), from its owner or its
+     * follower.
+     */
+    private List<Turismo> fetchPartition(int partition, int offset, int limit) throws IOException {
+        return route(partition, (node, role) -> node == topology.self()
+                ? localPartition(partition, offset, limit)
+                : client.partition(topology.url(node), partition, offset, limit));
+    }
+
+    /**
+     * The partitions this node holds: the one it owns and the one it follows.
+     */
+    private Set<Integer> heldPartitions() {
+        Set<Integer> partitions = new HashSet<>();
+        for (int partition = 0; partition < topology.size(); partition++) {
+            int[] replicas = topology.replicas(partition);
+            if (replicas.length > 1 && (replicas[0] == topology.self() || replicas[1] == topology.self())) {
+                partitions.add(partition);
+            }
+        }
+        return partitions;
+    }
+
+    /**
+     * The other node holding a partition this node holds.
+     */
+    private int peer(int partition) {
+        int owner = topology.owner(partition);
+        return owner == topology.self() ? topology.follower(partition) : owner;
+    }
+
+    /**
+     * Run a call on the partition's owner, falling back to its follower when the owner
+     * cannot be reached or is catching up. The follower gets FAILOVER so it stores the
+     * write without replicating it and resyncs the owner later.
+     */
+    private <T> T route(int partition, Call<T> call) throws IOException {
+        int[] replicas = topology.replicas(partition);
+        NodeUnavailableException failure = null;
+        for (int i = 0; i < replicas.length; i++) {
+            if (replicas[i] == topology.self() && isCatchingUp(partition) && i < replicas.length - 1) {
+                continue;
+            }
+            try {
+                return call.on(replicas[i], i == 0 ? Role.OWNER : Role.FAILOVER);
+            } catch (NodeUnavailableException e) {
+                failure = e;
+            }
+        }
+        throw failure != null ? failure : new NodeUnavailableException("Partition " + partition + " unavailable", null);
+    }
+}
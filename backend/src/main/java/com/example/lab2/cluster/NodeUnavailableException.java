@@ -0,0 +1,16 @@
+package com.example.lab2.cluster;
+
+import java.io.IOException;
+
+/**
+ * A node could not be reached in time, or answered that it is still catching up on a
+ * partition. Only this failure makes a request fail over to the partition's other
+ * replica; any other IOException means the node was reached and the request may have
+ * been applied there.
+ */
+public class NodeUnavailableException extends IOException {
+
+    public NodeUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,368 @@
+package com.example.lab2.codec;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.example.lab2.Turismo;
+import com.example.lab2.jfr.ParseEvent;
+import com.example.lab2.jfr.PersistEvent;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+
+/**
+ * Hand-written streaming codec for Turismo, FromTo and TimeRange.
+ *
+ * This is the only serializer for records: file persistence, HTTP bodies (through
+ * TurismoHttpMessageConverter) and snapshot import/export all go through it. It works
+ * on Jackson's streaming parser and generator, so the same code reads and writes JSON
+ * and Smile, and it never uses reflection. Field names are pre-encoded, null fields
+ * are omitted on write, and unknown fields are skipped on read.
+ *
+ * comunidad, provincia, dates and period take few distinct values, so on read they go
+ * through a small shared table that hands back the previous String instance instead of
+ * allocating a new one per record.
+ */
+public final class TurismoCodec {
+
+    public static final JsonFactory JSON = JsonFactory.builder().build();
+    public static final SmileFactory SMILE = SmileFactory.builder()
+            .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)
+            .build();
+
+    private static final SerializableString ID = new SerializedString("_id");
+    private static final SerializableString FROM = new SerializedString("from");
+    private static final SerializableString TO = new SerializedString("to");
+    private static final SerializableString TIME_RANGE = new SerializedString("timeRange");
+    private static final SerializableString TOTAL = new SerializedString("total");
+    private static final SerializableString COMUNIDAD = new SerializedString("comunidad");
+    private static final SerializableString PROVINCIA = new SerializedString("provincia");
+    private static final SerializableString FECHA_INICIO = new SerializedString("fecha_inicio");
+    private static final SerializableString FECHA_FIN = new SerializedString("fecha_fin");
+    private static final SerializableString PERIOD = new SerializedString("period");
+
+    private static final int MAX_SHARED_LENGTH = 48;
+    // Tabla de tamaño fijo sin lock: una carrera sólo pierde una entrada, los String son inmutables
+    private static final String[] SHARED = new String[4096];
+
+    private TurismoCodec() {}
+
+    public static void write(JsonGenerator generator, Turismo turismo) throws IOException {
+        generator.writeStartObject();
+        writeString(generator, ID, turismo.get_id());
+        if (turismo.getFrom() != null) {
+            generator.writeFieldName(FROM);
+            writeFromTo(generator, turismo.getFrom());
+        }
+        if (turismo.getTo() != null) {
+            generator.writeFieldName(TO);
+            writeFromTo(generator, turismo.getTo());
+        }
+        Turismo.TimeRange timeRange = turismo.getTimeRange();
+        if (timeRange != null) {
+            generator.writeFieldName(TIME_RANGE);
+            generator.writeStartObject();
+            writeString(generator, FECHA_INICIO, timeRange.getFecha_inicio());
+            writeString(generator, FECHA_FIN, timeRange.getFecha_fin());
+            writeString(generator, PERIOD, timeRange.getPeriod());
+            generator.writeEndObject();
+        }
+        generator.writeFieldName(TOTAL);
+        generator.writeNumber(turismo.getTotal());
+        generator.writeEndObject();
+    }
+
+    /**
+     * Write only the fields of the projection. An object (from, to, timeRange) is left
+     * out when the record has none or none of its selected fields are set.
+     */
+    public static void write(JsonGenerator generator, Turismo turismo, TurismoProjection projection)
+            throws IOException {
+        generator.writeStartObject();
+        if (projection.includes(TurismoProjection.ID)) {
+            writeString(generator, ID, turismo.get_id());
+        }
+        if (projection.includes(TurismoProjection.FROM)) {
+            writeFromTo(generator, FROM, turismo.getFrom(), projection,
+                    TurismoProjection.FROM_COMUNIDAD, TurismoProjection.FROM_PROVINCIA);
+        }
+        if (projection.includes(TurismoProjection.TO)) {
+            writeFromTo(generator, TO, turismo.getTo(), projection,
+                    TurismoProjection.TO_COMUNIDAD, TurismoProjection.TO_PROVINCIA);
+        }
+        Turismo.TimeRange timeRange = turismo.getTimeRange();
+        if (timeRange != null && projection.includes(TurismoProjection.TIME_RANGE)) {
+            String fechaInicio = projection.includes(TurismoProjection.FECHA_INICIO)
+                    ? timeRange.getFecha_inicio() : null;
+            String fechaFin = projection.includes(TurismoProjection.FECHA_FIN) ? timeRange.getFecha_fin() : null;
+            String period = projection.includes(TurismoProjection.PERIOD) ? timeRange.getPeriod() : null;
+            if (fechaInicio != null || fechaFin != null || period != null) {
+                generator.writeFieldName(TIME_RANGE);
+                generator.writeStartObject();
+                writeString(generator, FECHA_INICIO, fechaInicio);
+                writeString(generator, FECHA_FIN, fechaFin);
+                writeString(generator, PERIOD, period);
+                generator.writeEndObject();
+            }
+        }
+        if (projection.includes(TurismoProjection.TOTAL)) {
+            generator.writeFieldName(TOTAL);
+            generator.writeNumber(turismo.getTotal());
+        }
+        generator.writeEndObject();
+    }
+
+    /**
+     * Write records as an array with a projection and return how many were written.
+     */
+    public static int writeList(JsonGenerator generator, Iterable<Turismo> records, TurismoProjection projection)
+            throws IOException {
+        int count = 0;
+        generator.writeStartArray();
+        for (Turismo turismo : records) {
+            write(generator, turismo, projection);
+            count++;
+        }
+        generator.writeEndArray();
+        return count;
+    }
+
+    /**
+     * Write records as an array and return how many were written.
+     */
+    public static int writeList(JsonGenerator generator, Iterable<Turismo> records) throws IOException {
+        int count = 0;
+        generator.writeStartArray();
+        for (Turismo turismo : records) {
+            write(generator, turismo);
+            count++;
+        }
+        generator.writeEndArray();
+        return count;
+    }
+
+    /**
+     * Write records as a JSON array to a file.
+     */
+    public static void writeJsonFile(Path path, Iterable<Turismo> records) throws IOException {
+        PersistEvent event = new PersistEvent();
+        event.begin();
+        int count = 0;
+        try (JsonGenerator generator = JSON.createGenerator(Files.newBufferedWriter(path))) {
+            count = writeList(generator, records);
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.kind = "json";
+            event.file = path.toString();
+            event.records = count;
+            event.bytes = Files.size(path);
+            event.commit();
+        }
+    }
+
+    /**
+     * Read one record. The parser may be positioned before or on its START_OBJECT;
+     * a JSON null gives null.
+     */
+    public static Turismo read(JsonParser parser) throws IOException {
+        JsonToken token = current(parser);
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        expect(parser, token, JsonToken.START_OBJECT);
+        Turismo turismo = new Turismo();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            parser.nextToken();
+            switch (name) {
+                case "_id":
+                    turismo.set_id(parser.getValueAsString());
+                    break;
+                case "from":
+                    turismo.setFrom(readFromTo(parser));
+                    break;
+                case "to":
+                    turismo.setTo(readFromTo(parser));
+                    break;
+                case "timeRange":
+                    turismo.setTimeRange(readTimeRange(parser));
+                    break;
+                case "total":
+                    turismo.setTotal(parser.getValueAsInt());
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        return turismo;
+    }
+
+    /**
+     * Read an array of records; a JSON null gives an empty list.
+     */
+    public static List<Turismo> readList(JsonParser parser) throws IOException {
+        List<Turismo> records = new ArrayList<>();
+        JsonToken token = current(parser);
+        if (token == null || token == JsonToken.VALUE_NULL) {
+            return records;
+        }
+        expect(parser, token, JsonToken.START_ARRAY);
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            records.add(read(parser));
+        }
+        return records;
+    }
+
+    /**
+     * Read a JSON array of records from a file. An empty file gives an empty list.
+     */
+    public static List<Turismo> readJsonFile(Path path) throws IOException {
+        ParseEvent event = new ParseEvent();
+        event.begin();
+        List<Turismo> records;
+        try (JsonParser parser = JSON.createParser(Files.newBufferedReader(path))) {
+            records = readList(parser);
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.source = path.toString();
+            event.format = "json";
+            event.records = records.size();
+            event.bytes = Files.size(path);
+            event.commit();
+        }
+        return records;
+    }
+
+    private static void writeFromTo(JsonGenerator generator, Turismo.FromTo fromTo) throws IOException {
+        generator.writeStartObject();
+        writeString(generator, COMUNIDAD, fromTo.getComunidad());
+        writeString(generator, PROVINCIA, fromTo.getProvincia());
+        generator.writeEndObject();
+    }
+
+    private static void writeFromTo(JsonGenerator generator, SerializableString name, Turismo.FromTo fromTo,
+                                    TurismoProjection projection, int comunidadBit, int provinciaBit)
+            throws IOException {
+        if (fromTo == null) {
+            return;
+        }
+        String comunidad = projection.includes(comunidadBit) ? fromTo.getComunidad() : null;
+        String provincia = projection.includes(provinciaBit) ? fromTo.getProvincia() : null;
+        if (comunidad != null || provincia != null) {
+            generator.writeFieldName(name);
+            generator.writeStartObject();
+            writeString(generator, COMUNIDAD, comunidad);
+            writeString(generator, PROVINCIA, provincia);
+            generator.writeEndObject();
+        }
+    }
+
+    private static void writeString(JsonGenerator generator, SerializableString name, String value)
+            throws IOException {
+        if (value != null) {
+            generator.writeFieldName(name);
+            generator.writeString(value);
+        }
+    }
+
+    private static Turismo.FromTo readFromTo(JsonParser parser) throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        expect(parser, parser.currentToken(), JsonToken.START_OBJECT);
+        Turismo.FromTo fromTo = new Turismo.FromTo();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            parser.nextToken();
+            switch (name) {
+                case "comunidad":
+                    fromTo.setComunidad(sharedText(parser));
+                    break;
+                case "provincia":
+                    fromTo.setProvincia(sharedText(parser));
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        return fromTo;
+    }
+
+    private static Turismo.TimeRange readTimeRange(JsonParser parser) throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        expect(parser, parser.currentToken(), JsonToken.START_OBJECT);
+        Turismo.TimeRange timeRange = new Turismo.TimeRange();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            parser.nextToken();
+            switch (name) {
+                case "fecha_inicio":
+                    timeRange.setFecha_inicio(sharedText(parser));
+                    break;
+                case "fecha_fin":
+                    timeRange.setFecha_fin(sharedText(parser));
+                    break;
+                case "period":
+                    timeRange.setPeriod(sharedText(parser));
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        return timeRange;
+    }
+
+    private static String sharedText(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.VALUE_STRING || parser.getTextLength() > MAX_SHARED_LENGTH) {
+            return parser.getValueAsString();
+        }
+        char[] chars = parser.getTextCharacters();
+        int offset = parser.getTextOffset();
+        int length = parser.getTextLength();
+        int hash = 0;
+        for (int i = 0; i < length; i++) {
+            hash = 31 * hash + chars[offset + i];
+        }
+        int slot = (hash ^ (hash >>> 16)) & (SHARED.length - 1);
+        String candidate = SHARED[slot];
+        if (candidate != null && candidate.length() == length && matches(candidate, chars, offset)) {
+            return candidate;
+        }
+        String value = new String(chars, offset, length);
+        SHARED[slot] = value;
+        return value;
+    }
+
+    private static boolean matches(String candidate, char[] chars, int offset) {
+        for (int i = 0; i < candidate.length(); i++) {
+            if (candidate.charAt(i) != chars[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static JsonToken current(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        return token != null ? token : parser.nextToken();
+    }
+
+    private static void expect(JsonParser parser, JsonToken actual, JsonToken expected) throws IOException {
+        if (actual != expected) {
+            throw new JsonParseException(parser, "Expected " + expected + " but found " + actual);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.lab2.codec;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.util.StreamUtils;
+
+import com.example.lab2.Turismo;
+import com.example.lab2.jfr.ParseEvent;
+import com.example.lab2.jfr.SerializeEvent;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+
+/**
+ * Reads and writes Turismo and List&lt;Turismo&gt; bodies with TurismoCodec, as JSON or
+ * Smile depending on the content type, and writes TurismoProjection.Records with only
+ * the requested fields. Every other body type is left to the Jackson converters.
+ */
+public class TurismoHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+    public static final MediaType APPLICATION_SMILE = new MediaType("application", "x-jackson-smile");
+
+    public TurismoHttpMessageConverter() {
+        super(MediaType.APPLICATION_JSON, new MediaType("application", "*+json"), APPLICATION_SMILE);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return Turismo.class == clazz;
+    }
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        return isTurismoType(type) && canRead(mediaType);
+    }
+
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        return (isTurismoType(type != null ? type : clazz) || clazz == TurismoProjection.Records.class)
+                && canWrite(mediaType);
+    }
+
+    @Override
+    public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) throws IOException {
+        ParseEvent event = new ParseEvent();
+        event.begin();
+        JsonFactory factory = factory(inputMessage.getHeaders().getContentType());
+        try (JsonParser parser = factory.createParser(inputMessage.getBody())) {
+            Object body = type == Turismo.class ? TurismoCodec.read(parser) : TurismoCodec.readList(parser);
+            event.end();
+            if (event.shouldCommit()) {
+                event.source = "request";
+                event.format = factory == TurismoCodec.SMILE ? "smile" : "json";
+                event.records = body instanceof List<?> list ? list.size() : 1;
+                event.bytes = parser.currentLocation().getByteOffset();
+                event.commit();
+            }
+            return body;
+        } catch (JsonProcessingException e) {
+            throw new HttpMessageNotReadableException("Invalid Turismo payload: " + e.getOriginalMessage(),
+                    e, inputMessage);
+        }
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) throws IOException {
+        return read(clazz, null, inputMessage);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void writeInternal(Object body, Type type, HttpOutputMessage outputMessage) throws IOException {
+        SerializeEvent event = new SerializeEvent();
+        event.begin();
+        JsonFactory factory = factory(outputMessage.getHeaders().getContentType());
+        // El tamaño sólo se cuenta si el evento está activado en la grabación
+        CountingOutputStream out = event.isEnabled() ? new CountingOutputStream(outputMessage.getBody()) : null;
+        int records = 1;
+        try (JsonGenerator generator = factory.createGenerator(
+                StreamUtils.nonClosing(out != null ? out : outputMessage.getBody()))) {
+            if (body instanceof Turismo turismo) {
+                TurismoCodec.write(generator, turismo);
+            } else if (body instanceof TurismoProjection.Records projected) {
+                records = TurismoCodec.writeList(generator, projected.getRecords(), projected.getProjection());
+            } else {
+                records = TurismoCodec.writeList(generator, (Collection<Turismo>) body);
+            }
+        } catch (JsonProcessingException e) {
+            throw new HttpMessageNotWritableException("Could not write Turismo body: " + e.getOriginalMessage(), e);
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.format = factory == TurismoCodec.SMILE ? "smile" : "json";
+            event.records = records;
+            event.bytes = out != null ? out.count : 0;
+            event.commit();
+        }
+    }
+
+    /**
+     * Counts the bytes of the encoded body on their way to the response.
+     */
+    private static final class CountingOutputStream extends FilterOutputStream {
+
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+
+    private static JsonFactory factory(MediaType contentType) {
+        return APPLICATION_SMILE.isCompatibleWith(contentType) ? TurismoCodec.SMILE : TurismoCodec.JSON;
+    }
+
+    private static boolean isTurismoType(Type type) {
+        if (type == Turismo.class) {
+            return true;
+        }
+        if (type instanceof ParameterizedType parameterized
+                && parameterized.getRawType() instanceof Class<?> raw
+                && raw.isAssignableFrom(List.class) && Collection.class.isAssignableFrom(raw)) {
+            Type[] arguments = parameterized.getActualTypeArguments();
+            return arguments.length == 1 && arguments[0] == Turismo.class;
+        }
+        return false;
+    }
+}
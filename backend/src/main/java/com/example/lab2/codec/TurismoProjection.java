@@ -0,0 +1,100 @@
+package com.example.lab2.codec;
+
+import java.util.List;
+import java.util.Map;
+
+import com.example.lab2.Turismo;
+
+/**
+ * The fields of a record a client asked for with fields=, e.g.
+ * fields=_id,to.comunidad,total. A path names a leaf (from.comunidad, timeRange.period)
+ * or a whole object (from, to, timeRange); unknown paths are rejected.
+ *
+ * TurismoCodec writes the selected fields straight from the stored records, so a narrow
+ * projection costs neither copies nor the encoding of the fields it leaves out.
+ */
+public final class TurismoProjection {
+
+    static final int ID = 1;
+    static final int FROM_COMUNIDAD = 1 << 1;
+    static final int FROM_PROVINCIA = 1 << 2;
+    static final int TO_COMUNIDAD = 1 << 3;
+    static final int TO_PROVINCIA = 1 << 4;
+    static final int FECHA_INICIO = 1 << 5;
+    static final int FECHA_FIN = 1 << 6;
+    static final int PERIOD = 1 << 7;
+    static final int TOTAL = 1 << 8;
+
+    static final int FROM = FROM_COMUNIDAD | FROM_PROVINCIA;
+    static final int TO = TO_COMUNIDAD | TO_PROVINCIA;
+    static final int TIME_RANGE = FECHA_INICIO | FECHA_FIN | PERIOD;
+
+    private static final Map<String, Integer> PATHS = Map.ofEntries(
+            Map.entry("_id", ID),
+            Map.entry("from", FROM),
+            Map.entry("from.comunidad", FROM_COMUNIDAD),
+            Map.entry("from.provincia", FROM_PROVINCIA),
+            Map.entry("to", TO),
+            Map.entry("to.comunidad", TO_COMUNIDAD),
+            Map.entry("to.provincia", TO_PROVINCIA),
+            Map.entry("timeRange", TIME_RANGE),
+            Map.entry("timeRange.fecha_inicio", FECHA_INICIO),
+            Map.entry("timeRange.fecha_fin", FECHA_FIN),
+            Map.entry("timeRange.period", PERIOD),
+            Map.entry("total", TOTAL));
+
+    private final int mask;
+
+    private TurismoProjection(int mask) {
+        this.mask = mask;
+    }
+
+    /**
+     * Parse a comma-separated list of paths. Throws IllegalArgumentException for an
+     * empty list or an unknown path.
+     */
+    public static TurismoProjection parse(String fields) {
+        int mask = 0;
+        for (String path : fields.split(",")) {
+            String trimmed = path.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            Integer bits = PATHS.get(trimmed);
+            if (bits == null) {
+                throw new IllegalArgumentException("Unknown field: " + trimmed);
+            }
+            mask |= bits;
+        }
+        if (mask == 0) {
+            throw new IllegalArgumentException("No fields requested");
+        }
+        return new TurismoProjection(mask);
+    }
+
+    boolean includes(int bits) {
+        return (mask & bits) != 0;
+    }
+
+    /**
+     * A response body of records to be written with a projection.
+     */
+    public static final class Records {
+
+        private final List<Turismo> records;
+        private final TurismoProjection projection;
+
+        public Records(List<Turismo> records, TurismoProjection projection) {
+            this.records = records;
+            this.projection = projection;
+        }
+
+        public List<Turismo> getRecords() {
+            return records;
+        }
+
+        public TurismoProjection getProjection() {
+            return projection;
+        }
+    }
+}
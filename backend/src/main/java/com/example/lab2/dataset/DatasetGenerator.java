@@ -0,0 +1,301 @@
+package com.example.lab2.dataset;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.SplittableRandom;
+import java.util.UUID;
+
+import com.example.lab2.Turismo;
+import com.example.lab2.codec.TurismoCodec;
+import com.example.lab2.store.TurismoSnapshot;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+
+/**
+ * Deterministic synthetic Turismo records for tests and benchmarks at any size.
+ *
+ * Record i depends only on the seed and i, so the same arguments always give the same
+ * dataset, record by record, and any record can be regenerated without the others.
+ * Trips go between all 52 provincias of the 19 comunidades and ciudades autónomas:
+ * <ul>
+ *   <li>the origin is drawn in proportion to population and the destination to
+ *       population times a tourism weight (islands and the Mediterranean coast draw
+ *       more visitors);</li>
+ *   <li>each record covers one calendar month between FIRST_MONTH and LAST_MONTH, with
+ *       fecha_inicio and fecha_fin its first and last day and period like 2024M08;</li>
+ *   <li>totals follow a log-normal distribution scaled by both provincias and a summer
+ *       peak, so a few flows are very large and most are small.</li>
+ * </ul>
+ *
+ * Usage from the fat jar:
+ * <pre>
+ *   java -cp lab2-0.0.1-SNAPSHOT.jar -Dloader.main=com.example.lab2.dataset.DatasetGenerator \
+ *        org.springframework.boot.loader.launch.PropertiesLauncher &lt;records&gt; &lt;json|ndjson|smile|snapshot&gt; &lt;file&gt; [seed]
+ * </pre>
+ */
+public final class DatasetGenerator implements Iterable<Turismo> {
+
+    public enum Format {
+        /** A JSON array, as read by the json, sharded, offheap and lsm stores. */
+        JSON,
+        /** One JSON record per line. */
+        NDJSON,
+        /** A Smile array, the binary form of the JSON array. */
+        SMILE,
+        /** The mapped binary snapshot read by the snapshot store. */
+        SNAPSHOT
+    }
+
+    public static final long DEFAULT_SEED = 20240801L;
+    public static final YearMonth FIRST_MONTH = YearMonth.of(2019, 1);
+    public static final YearMonth LAST_MONTH = YearMonth.of(2024, 12);
+
+    // Comunidad, provincia, población en millones (aprox. INE 2023), peso turístico del destino
+    private static final Object[][] PROVINCIAS = {
+            {"Andalucía", "Almería", 0.74, 1.6}, {"Andalucía", "Cádiz", 1.25, 1.8},
+            {"Andalucía", "Córdoba", 0.77, 1.0}, {"Andalucía", "Granada", 0.93, 1.4},
+            {"Andalucía", "Huelva", 0.53, 1.5}, {"Andalucía", "Jaén", 0.62, 0.7},
+            {"Andalucía", "Málaga", 1.72, 2.2}, {"Andalucía", "Sevilla", 1.95, 1.2},
+            {"Aragón", "Huesca", 0.23, 1.2}, {"Aragón", "Teruel", 0.13, 0.9},
+            {"Aragón", "Zaragoza", 0.97, 0.8},
+            {"Asturias", "Asturias", 1.01, 1.3},
+            {"Illes Balears", "Illes Balears", 1.20, 3.0},
+            {"Canarias", "Las Palmas", 1.13, 2.5}, {"Canarias", "Santa Cruz de Tenerife", 1.05, 2.5},
+            {"Cantabria", "Cantabria", 0.59, 1.5},
+            {"Castilla y León", "Ávila", 0.16, 1.0}, {"Castilla y León", "Burgos", 0.36, 0.9},
+            {"Castilla y León", "León", 0.45, 1.0}, {"Castilla y León", "Palencia", 0.16, 0.6},
+            {"Castilla y León", "Salamanca", 0.33, 1.0}, {"Castilla y León", "Segovia", 0.15, 1.1},
+            {"Castilla y León", "Soria", 0.09, 0.8}, {"Castilla y León", "Valladolid", 0.52, 0.8},
+            {"Castilla y León", "Zamora", 0.17, 0.7},
+            {"Castilla - La Mancha", "Albacete", 0.39, 0.7}, {"Castilla - La Mancha", "Ciudad Real", 0.49, 0.7},
+            {"Castilla - La Mancha", "Cuenca", 0.20, 0.9}, {"Castilla - La Mancha", "Guadalajara", 0.27, 0.8},
+            {"Castilla - La Mancha", "Toledo", 0.71, 1.0},
+            {"Cataluña", "Barcelona", 5.71, 1.6}, {"Cataluña", "Girona", 0.79, 2.0},
+            {"Cataluña", "Lleida", 0.44, 1.0}, {"Cataluña", "Tarragona", 0.83, 1.8},
+            {"Comunitat Valenciana", "Alicante/Alacant", 1.93, 2.2},
+            {"Comunitat Valenciana", "Castellón/Castelló", 0.59, 1.6},
+            {"Comunitat Valenciana", "Valencia/València", 2.60, 1.5},
+            {"Extremadura", "Badajoz", 0.67, 0.8}, {"Extremadura", "Cáceres", 0.39, 1.0},
+            {"Galicia", "A Coruña", 1.12, 1.2}, {"Galicia", "Lugo", 0.33, 1.0},
+            {"Galicia", "Ourense", 0.31, 0.9}, {"Galicia", "Pontevedra", 0.94, 1.5},
+            {"Madrid", "Madrid", 6.87, 1.3},
+            {"Región de Murcia", "Murcia", 1.54, 1.4},
+            {"Navarra", "Navarra", 0.67, 1.0},
+            {"País Vasco", "Araba/Álava", 0.33, 0.8}, {"País Vasco", "Bizkaia", 1.15, 1.1},
+            {"País Vasco", "Gipuzkoa", 0.73, 1.3},
+            {"La Rioja", "La Rioja", 0.32, 0.9},
+            {"Ceuta", "Ceuta", 0.08, 0.6},
+            {"Melilla", "Melilla", 0.09, 0.6},
+    };
+
+    // Afluencia relativa por mes (enero = 0): pico en verano y repunte en Semana Santa y Navidad
+    private static final double[] SEASON = {0.6, 0.6, 0.8, 1.0, 1.0, 1.3, 1.9, 2.2, 1.2, 0.9, 0.7, 1.1};
+
+    private static final int MONTHS = (int) FIRST_MONTH.until(LAST_MONTH, ChronoUnit.MONTHS) + 1;
+
+    private static final double[] ORIGIN_WEIGHTS = new double[PROVINCIAS.length];
+    private static final double[] DESTINATION_WEIGHTS = new double[PROVINCIAS.length];
+
+    static {
+        double origins = 0;
+        double destinations = 0;
+        for (int i = 0; i < PROVINCIAS.length; i++) {
+            origins += population(i);
+            destinations += population(i) * attraction(i);
+            ORIGIN_WEIGHTS[i] = origins;
+            DESTINATION_WEIGHTS[i] = destinations;
+        }
+    }
+
+    private final long seed;
+    private final long records;
+
+    public DatasetGenerator(long records, long seed) {
+        this.records = records;
+        this.seed = seed;
+    }
+
+    public long size() {
+        return records;
+    }
+
+    /**
+     * Every comunidad the generator draws from, in a fixed order.
+     */
+    public static List<String> comunidades() {
+        List<String> comunidades = new ArrayList<>();
+        for (Object[] provincia : PROVINCIAS) {
+            if (!comunidades.contains(provincia[0])) {
+                comunidades.add((String) provincia[0]);
+            }
+        }
+        return comunidades;
+    }
+
+    /**
+     * Number of distinct provincias the generator draws from.
+     */
+    public static int provinciaCount() {
+        return PROVINCIAS.length;
+    }
+
+    /**
+     * Record number index (0-based) of this dataset.
+     */
+    public Turismo record(long index) {
+        SplittableRandom random = new SplittableRandom(mix(seed + mix(index)));
+        int from = pick(ORIGIN_WEIGHTS, random.nextDouble() * ORIGIN_WEIGHTS[PROVINCIAS.length - 1]);
+        int to = pick(DESTINATION_WEIGHTS, random.nextDouble() * DESTINATION_WEIGHTS[PROVINCIAS.length - 1]);
+        YearMonth month = FIRST_MONTH.plusMonths(random.nextInt(MONTHS));
+
+        Turismo turismo = new Turismo();
+        turismo.set_id(new UUID(random.nextLong(), random.nextLong()).toString());
+        turismo.setFrom(place(from));
+        turismo.setTo(place(to));
+        Turismo.TimeRange timeRange = new Turismo.TimeRange();
+        timeRange.setFecha_inicio(month.atDay(1).toString());
+        timeRange.setFecha_fin(month.atEndOfMonth().toString());
+        timeRange.setPeriod(String.format("%dM%02d", month.getYear(), month.getMonthValue()));
+        turismo.setTimeRange(timeRange);
+
+        double scale = 400 * Math.sqrt(population(from) * population(to)) * attraction(to)
+                * SEASON[month.getMonthValue() - 1];
+        long total = Math.round(scale * Math.exp(1.1 * gaussian(random)));
+        turismo.setTotal((int) Math.max(1, Math.min(Integer.MAX_VALUE, total)));
+        return turismo;
+    }
+
+    @Override
+    public Iterator<Turismo> iterator() {
+        return new Iterator<>() {
+            private long next;
+
+            @Override
+            public boolean hasNext() {
+                return next < records;
+            }
+
+            @Override
+            public Turismo next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return record(next++);
+            }
+        };
+    }
+
+    /**
+     * Write the dataset to a file. JSON, NDJSON and Smile are streamed; the snapshot
+     * format needs every record in memory while it is built.
+     */
+    public void write(Path path, Format format) throws IOException {
+        switch (format) {
+            case JSON:
+                TurismoCodec.writeJsonFile(path, this);
+                break;
+            case NDJSON:
+                try (BufferedWriter writer = Files.newBufferedWriter(path);
+                     JsonGenerator generator = TurismoCodec.JSON.createGenerator(writer)) {
+                    generator.setRootValueSeparator(new SerializedString("\n"));
+                    for (Turismo turismo : this) {
+                        TurismoCodec.write(generator, turismo);
+                    }
+                    generator.writeRaw('\n');
+                }
+                break;
+            case SMILE:
+                try (OutputStream out = Files.newOutputStream(path);
+                     JsonGenerator generator = TurismoCodec.SMILE.createGenerator(out)) {
+                    TurismoCodec.writeList(generator, this);
+                }
+                break;
+            case SNAPSHOT:
+                List<Turismo> all = new ArrayList<>((int) Math.min(records, Integer.MAX_VALUE));
+                for (Turismo turismo : this) {
+                    all.add(turismo);
+                }
+                TurismoSnapshot.write(all, path);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown format: " + format);
+        }
+    }
+
+    private static Turismo.FromTo place(int index) {
+        Turismo.FromTo place = new Turismo.FromTo();
+        place.setComunidad((String) PROVINCIAS[index][0]);
+        place.setProvincia((String) PROVINCIAS[index][1]);
+        return place;
+    }
+
+    private static double population(int index) {
+        return (Double) PROVINCIAS[index][2];
+    }
+
+    private static double attraction(int index) {
+        return (Double) PROVINCIAS[index][3];
+    }
+
+    /**
+     * First position whose cumulative weight exceeds the value.
+     */
+    private static int pick(double[] cumulative, double value) {
+        int low = 0;
+        int high = cumulative.length - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (cumulative[mid] > value) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Standard normal sample (Box-Muller), so the sequence depends only on the generator.
+     */
+    private static double gaussian(SplittableRandom random) {
+        double u = 1.0 - random.nextDouble();
+        return Math.sqrt(-2 * Math.log(u)) * Math.cos(2 * Math.PI * random.nextDouble());
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 3 || args.length > 4) {
+            System.err.println("Usage: DatasetGenerator <records> <json|ndjson|smile|snapshot> <file> [seed]");
+            System.exit(1);
+        }
+        Format format;
+        try {
+            format = Format.valueOf(args[1].toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            System.err.println("Unknown format: " + args[1]);
+            System.exit(1);
+            return;
+        }
+        long records = Long.parseLong(args[0]);
+        long seed = args.length == 4 ? Long.parseLong(args[3]) : DEFAULT_SEED;
+        long start = System.nanoTime();
+        new DatasetGenerator(records, seed).write(Path.of(args[2]), format);
+        System.out.println("Wrote " + records + " records to " + args[2] + " in "
+                + (System.nanoTime() - start) / 1_000_000 + " ms");
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.lab2.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * A read through the store's indexes (findById, findByComunidad). Recorded from 1 ms.
+ */
+@Name("com.example.lab2.Lookup")
+@Label("Turismo Lookup")
+@Category({"Turismo", "Store"})
+@Description("Record lookup in the store")
+@StackTrace(false)
+@Threshold("1 ms")
+public class LookupEvent extends Event {
+
+    @Label("Operation")
+    public String operation;
+
+    @Label("Key")
+    public String key;
+
+    @Label("Results")
+    public int results;
+
+    @Label("Request")
+    @Description("Id of the Request event this stage belongs to, 0 outside a request")
+    public long requestId = RequestContext.current();
+}
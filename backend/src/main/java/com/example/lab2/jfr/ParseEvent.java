@@ -0,0 +1,41 @@
+package com.example.lab2.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Decoding of records with TurismoCodec, from a data file or a request body. Recorded
+ * from 1 ms.
+ */
+@Name("com.example.lab2.Parse")
+@Label("Turismo Parse")
+@Category({"Turismo", "Codec"})
+@Description("Records decoded from JSON or Smile")
+@StackTrace(false)
+@Threshold("1 ms")
+public class ParseEvent extends Event {
+
+    @Label("Source")
+    @Description("File path, or request for an HTTP body")
+    public String source;
+
+    @Label("Format")
+    public String format;
+
+    @Label("Records")
+    public int records;
+
+    @Label("Bytes")
+    @DataAmount(DataAmount.BYTES)
+    public long bytes;
+
+    @Label("Request")
+    @Description("Id of the Request event this stage belongs to, 0 outside a request")
+    public long requestId = RequestContext.current();
+}
@@ -0,0 +1,41 @@
+package com.example.lab2.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * A write of store data to disk: the JSON file, a snapshot, an LSM segment (flush or
+ * compaction) or an LSM log append. Recorded from 1 ms.
+ */
+@Name("com.example.lab2.Persist")
+@Label("Turismo Persist")
+@Category({"Turismo", "Store"})
+@Description("Store data written to disk")
+@StackTrace(false)
+@Threshold("1 ms")
+public class PersistEvent extends Event {
+
+    @Label("Kind")
+    @Description("json, snapshot, segment, compaction or wal")
+    public String kind;
+
+    @Label("File")
+    public String file;
+
+    @Label("Records")
+    public int records;
+
+    @Label("Bytes")
+    @DataAmount(DataAmount.BYTES)
+    public long bytes;
+
+    @Label("Request")
+    @Description("Id of the Request event this stage belongs to, 0 outside a request")
+    public long requestId = RequestContext.current();
+}
@@ -0,0 +1,65 @@
+package com.example.lab2.jfr;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Id of the API request the current thread is working for, 0 outside a request.
+ *
+ * RequestEventFilter sets it for the request thread and IoExecutor carries it over to
+ * the turismo-io-* thread that runs an async request's store work. Stage events take it
+ * when they are created, so they can be matched with their RequestEvent by id on
+ * whichever thread they were recorded.
+ */
+public final class RequestContext {
+
+    private static final AtomicLong NEXT_ID = new AtomicLong();
+    private static final ThreadLocal<Long> CURRENT = new ThreadLocal<>();
+
+    private RequestContext() {}
+
+    public static long current() {
+        Long id = CURRENT.get();
+        return id != null ? id : 0;
+    }
+
+    static long nextId() {
+        return NEXT_ID.incrementAndGet();
+    }
+
+    /**
+     * Make id current until the returned scope is closed, then restore the previous one.
+     */
+    static Scope open(long id) {
+        Long previous = CURRENT.get();
+        CURRENT.set(id);
+        return () -> {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        };
+    }
+
+    /**
+     * The task, made to run under the request id current at this call, whatever thread
+     * later runs it.
+     */
+    public static <T> Callable<T> wrap(Callable<T> task) {
+        long id = current();
+        if (id == 0) {
+            return task;
+        }
+        return () -> {
+            try (Scope scope = open(id)) {
+                return task.call();
+            }
+        };
+    }
+
+    interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.lab2.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * One API request, from the filter chain to the last byte of the response. The stage
+ * events (lookup, parse, serialize, persist) it contains carry its requestId. For a
+ * synchronous request they are also on the same thread within its start and end time,
+ * so JMC's thread view shows where a slow request went; an async request's store work
+ * runs on a turismo-io-* thread and is found by requestId alone.
+ *
+ * Only requests of 10 ms or more are recorded by default.
+ */
+@Name("com.example.lab2.Request")
+@Label("Turismo Request")
+@Category({"Turismo", "API"})
+@Description("Handling of one Turismo API request")
+@StackTrace(false)
+@Threshold("10 ms")
+public class RequestEvent extends Event {
+
+    @Label("Method")
+    public String method;
+
+    @Label("Endpoint")
+    @Description("Matched URL pattern, e.g. /api/turismo/{id}")
+    public String endpoint;
+
+    @Label("URI")
+    public String uri;
+
+    @Label("Status")
+    public int status;
+
+    @Label("Request")
+    @Description("Id shared with the stage events of this request")
+    public long requestId;
+}
@@ -0,0 +1,88 @@
+package com.example.lab2.jfr;
+
+import java.io.IOException;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Records a RequestEvent around the rest of the filter chain, so admission queueing,
+ * the controller and the response body are all inside it. The endpoint is the pattern
+ * Spring MVC matched, which groups /api/turismo/{id} requests together.
+ *
+ * Every request gets a new id, current in RequestContext while the chain runs, that the
+ * event and its stage events share. For an async request (/api/async/turismo) the event
+ * ends when the response is complete rather than when the request thread leaves the
+ * chain, and the id is current again in the async dispatch that writes the response.
+ */
+public class RequestEventFilter extends OncePerRequestFilter {
+
+    private static final String REQUEST_ID = RequestEventFilter.class.getName() + ".requestId";
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (isAsyncDispatch(request)) {
+            // El evento ya está abierto: sólo se recupera su id para la serialización
+            Object id = request.getAttribute(REQUEST_ID);
+            try (RequestContext.Scope scope = RequestContext.open(id instanceof Long l ? l : 0)) {
+                chain.doFilter(request, response);
+            }
+            return;
+        }
+        RequestEvent event = new RequestEvent();
+        event.requestId = RequestContext.nextId();
+        request.setAttribute(REQUEST_ID, event.requestId);
+        event.begin();
+        try (RequestContext.Scope scope = RequestContext.open(event.requestId)) {
+            chain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent asyncEvent) {
+                        commit(event, request, response);
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent asyncEvent) {
+                    }
+
+                    @Override
+                    public void onError(AsyncEvent asyncEvent) {
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent asyncEvent) {
+                    }
+                });
+            } else {
+                commit(event, request, response);
+            }
+        }
+    }
+
+    private static void commit(RequestEvent event, HttpServletRequest request, HttpServletResponse response) {
+        event.end();
+        if (event.shouldCommit()) {
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            event.method = request.getMethod();
+            event.endpoint = pattern != null ? pattern.toString() : request.getRequestURI();
+            event.uri = request.getRequestURI();
+            event.status = response.getStatus();
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.lab2.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Encoding of a response body with TurismoCodec, including the time spent writing it
+ * to the client. Recorded from 1 ms.
+ */
+@Name("com.example.lab2.Serialize")
+@Label("Turismo Serialize")
+@Category({"Turismo", "Codec"})
+@Description("Records encoded into a response body")
+@StackTrace(false)
+@Threshold("1 ms")
+public class SerializeEvent extends Event {
+
+    @Label("Format")
+    public String format;
+
+    @Label("Records")
+    public int records;
+
+    @Label("Bytes")
+    @DataAmount(DataAmount.BYTES)
+    public long bytes;
+
+    @Label("Request")
+    @Description("Id of the Request event this stage belongs to, 0 outside a request")
+    public long requestId = RequestContext.current();
+}
@@ -0,0 +1,26 @@
+package com.example.lab2.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Opening the record store at startup, including any import from the JSON file.
+ * Always recorded.
+ */
+@Name("com.example.lab2.StoreLoad")
+@Label("Turismo Store Load")
+@Category({"Turismo", "Store"})
+@Description("Record store opened at startup")
+@StackTrace(false)
+public class StoreLoadEvent extends Event {
+
+    @Label("Mode")
+    public String mode;
+
+    @Label("Records")
+    public int records;
+}
@@ -0,0 +1,159 @@
+package com.example.lab2.query;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import com.example.lab2.Turismo;
+import com.example.lab2.store.StoreListener;
+
+/**
+ * Visitor totals per origin→destination pair, kept sorted as the store changes.
+ *
+ * There is one ranking per (level, period) plus one per level across all periods.
+ * Each ranking is a HashMap from pair to its current entry and a TreeSet of the same
+ * entries ordered by total, so a change costs O(log pairs) and reading the top n walks
+ * n entries of the set, whatever the size of the dataset.
+ */
+public class FlowRanking implements StoreListener {
+
+    public enum Level { COMUNIDAD, PROVINCIA }
+
+    private static final Comparator<FlowTotal> BY_TOTAL_DESC = Comparator
+            .comparingLong(FlowTotal::getTotal).reversed()
+            .thenComparing(FlowTotal::getFrom)
+            .thenComparing(FlowTotal::getTo);
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Ranking> rankings = new HashMap<>();
+
+    @Override
+    public void onAdd(Turismo turismo) {
+        apply(turismo, 1);
+    }
+
+    @Override
+    public void onDelete(Turismo previous) {
+        apply(previous, -1);
+    }
+
+    /**
+     * The n pairs with the most visitors, for one period or for all periods (null).
+     */
+    public List<FlowTotal> top(Level level, String period, int n) {
+        lock.readLock().lock();
+        try {
+            Ranking ranking = rankings.get(key(level, period));
+            List<FlowTotal> top = new ArrayList<>(Math.min(n, 64));
+            if (ranking == null) {
+                return top;
+            }
+            Iterator<FlowTotal> it = ranking.sorted.iterator();
+            while (top.size() < n && it.hasNext()) {
+                top.add(it.next());
+            }
+            return top;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void apply(Turismo turismo, int sign) {
+        String period = turismo.getTimeRange() != null ? turismo.getTimeRange().getPeriod() : null;
+        lock.writeLock().lock();
+        try {
+            for (Level level : Level.values()) {
+                String from = side(turismo.getFrom(), level);
+                String to = side(turismo.getTo(), level);
+                if (from == null || to == null) {
+                    continue;
+                }
+                add(key(level, null), from, to, turismo.getTotal(), sign);
+                if (period != null) {
+                    add(key(level, period), from, to, turismo.getTotal(), sign);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void add(String key, String from, String to, int total, int sign) {
+        Ranking ranking = rankings.computeIfAbsent(key, k -> new Ranking());
+        ranking.add(from, to, (long) sign * total, sign);
+        if (ranking.sorted.isEmpty()) {
+            rankings.remove(key);
+        }
+    }
+
+    private static String key(Level level, String period) {
+        return period == null ? level.name() : level.name() + "|" + period;
+    }
+
+    private static String side(Turismo.FromTo fromTo, Level level) {
+        if (fromTo == null) {
+            return null;
+        }
+        return level == Level.COMUNIDAD ? fromTo.getComunidad() : fromTo.getProvincia();
+    }
+
+    private static final class Ranking {
+
+        private final Map<List<String>, FlowTotal> byPair = new HashMap<>();
+        private final TreeSet<FlowTotal> sorted = new TreeSet<>(BY_TOTAL_DESC);
+
+        void add(String from, String to, long delta, int recordDelta) {
+            List<String> pair = List.of(from, to);
+            FlowTotal current = byPair.remove(pair);
+            long total = delta;
+            int records = recordDelta;
+            if (current != null) {
+                sorted.remove(current);
+                total += current.getTotal();
+                records += current.records;
+            }
+            // A pair whose records were all deleted drops out of the ranking
+            if (records > 0) {
+                FlowTotal updated = new FlowTotal(from, to, total, records);
+                byPair.put(pair, updated);
+                sorted.add(updated);
+            }
+        }
+    }
+
+    /**
+     * One entry of the ranking.
+     */
+    public static final class FlowTotal {
+
+        private final String from;
+        private final String to;
+        private final long total;
+        private final int records;
+
+        FlowTotal(String from, String to, long total, int records) {
+            this.from = from;
+            this.to = to;
+            this.total = total;
+            this.records = records;
+        }
+
+        public String getFrom() {
+            return from;
+        }
+
+        public String getTo() {
+            return to;
+        }
+
+        public long getTotal() {
+            return total;
+        }
+    }
+}
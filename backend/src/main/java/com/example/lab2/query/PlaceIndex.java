@@ -0,0 +1,271 @@
+package com.example.lab2.query;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+import com.example.lab2.Turismo;
+import com.example.lab2.store.StoreListener;
+
+/**
+ * Search index over the comunidad and provincia names of the store, for type-ahead.
+ *
+ * Names are folded to lower case without accents, so "avila" finds "Ávila" and "CASTILLA
+ * Y LEON" finds "Castilla y León". A query matches a name when it is a prefix of the name
+ * or of one of its words; the words live in a sorted map, which answers prefix lookups
+ * like a trie. Queries with no prefix match fall back to trigram similarity, so small
+ * typos ("Andalucai") still find the name.
+ *
+ * Every name counts how many records use it in each field; it leaves the index when the
+ * last one is deleted.
+ */
+public class PlaceIndex implements StoreListener {
+
+    public static final List<String> FIELDS = List.of("from.comunidad", "to.comunidad", "from.provincia", "to.provincia");
+
+    // Parecido mínimo (Dice sobre trigramas) para aceptar una coincidencia aproximada
+    private static final double MIN_SIMILARITY = 0.4;
+
+    private static final List<Function<Turismo, String>> ACCESSORS = FIELDS.stream()
+            .map(TurismoFilters::field)
+            .toList();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Place> places = new HashMap<>();
+    private final TreeMap<String, Set<Place>> words = new TreeMap<>();
+    private final Map<String, Set<Place>> trigrams = new HashMap<>();
+
+    @Override
+    public void onAdd(Turismo turismo) {
+        apply(turismo, 1);
+    }
+
+    @Override
+    public void onDelete(Turismo previous) {
+        apply(previous, -1);
+    }
+
+    /**
+     * Names used in any of the given fields that match the query, best matches first:
+     * names starting with it, then names with a word starting with it (both in
+     * alphabetical order), then approximate matches by similarity. An empty query lists
+     * every name alphabetically.
+     */
+    public List<String> search(String query, Set<String> fields, int offset, int limit) {
+        int mask = mask(fields);
+        String key = fold(query);
+        lock.readLock().lock();
+        try {
+            Set<Place> starts = new HashSet<>();
+            Set<Place> contains = new HashSet<>();
+            for (Set<Place> candidates : words.subMap(key, true, key + Character.MAX_VALUE, true).values()) {
+                for (Place place : candidates) {
+                    if (place.usedIn(mask)) {
+                        (place.key.startsWith(key) ? starts : contains).add(place);
+                    }
+                }
+            }
+            contains.removeAll(starts);
+            LinkedHashSet<Place> matches = new LinkedHashSet<>(alphabetical(starts));
+            matches.addAll(alphabetical(contains));
+            if (matches.isEmpty() && key.length() >= 3) {
+                matches.addAll(similar(key, mask));
+            }
+            List<String> result = new ArrayList<>(Math.min(limit, matches.size()));
+            int skipped = 0;
+            for (Place place : matches) {
+                if (result.size() == limit) {
+                    break;
+                }
+                if (skipped++ >= offset) {
+                    result.add(place.name);
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Lower case, accents and other diacritics removed, runs of anything that is not a
+     * letter or digit turned into one space.
+     */
+    static String fold(String text) {
+        if (text == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        StringBuilder folded = new StringBuilder(decomposed.length());
+        boolean space = false;
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                continue;
+            }
+            if (Character.isLetterOrDigit(c)) {
+                if (space && folded.length() > 0) {
+                    folded.append(' ');
+                }
+                folded.append(Character.toLowerCase(c));
+                space = false;
+            } else {
+                space = true;
+            }
+        }
+        return folded.toString();
+    }
+
+    private static List<Place> alphabetical(Set<Place> places) {
+        List<Place> sorted = new ArrayList<>(places);
+        sorted.sort(Comparator.comparing((Place place) -> place.key).thenComparing(place -> place.name));
+        return sorted;
+    }
+
+    private List<Place> similar(String key, int mask) {
+        Set<String> queryGrams = trigramsOf(key);
+        Map<Place, Integer> shared = new HashMap<>();
+        for (String gram : queryGrams) {
+            for (Place place : trigrams.getOrDefault(gram, Set.of())) {
+                if (place.usedIn(mask)) {
+                    shared.merge(place, 1, Integer::sum);
+                }
+            }
+        }
+        Map<Place, Double> scores = new HashMap<>();
+        for (Map.Entry<Place, Integer> entry : shared.entrySet()) {
+            double score = 2.0 * entry.getValue() / (queryGrams.size() + entry.getKey().grams.size());
+            if (score >= MIN_SIMILARITY) {
+                scores.put(entry.getKey(), score);
+            }
+        }
+        List<Place> result = new ArrayList<>(scores.keySet());
+        result.sort(Comparator.comparing((Place place) -> -scores.get(place)).thenComparing(place -> place.key));
+        return result;
+    }
+
+    private void apply(Turismo turismo, int sign) {
+        lock.writeLock().lock();
+        try {
+            for (int field = 0; field < ACCESSORS.size(); field++) {
+                String name = ACCESSORS.get(field).apply(turismo);
+                if (name == null || name.isBlank()) {
+                    continue;
+                }
+                Place place = places.get(name);
+                if (place == null) {
+                    if (sign < 0) {
+                        continue;
+                    }
+                    place = new Place(name);
+                    places.put(name, place);
+                    index(place);
+                }
+                place.uses[field] += sign;
+                if (place.unused()) {
+                    places.remove(name);
+                    unindex(place);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void index(Place place) {
+        for (String word : place.words) {
+            words.computeIfAbsent(word, w -> new HashSet<>()).add(place);
+        }
+        for (String gram : place.grams) {
+            trigrams.computeIfAbsent(gram, g -> new HashSet<>()).add(place);
+        }
+    }
+
+    private void unindex(Place place) {
+        for (String word : place.words) {
+            remove(words, word, place);
+        }
+        for (String gram : place.grams) {
+            remove(trigrams, gram, place);
+        }
+    }
+
+    private static void remove(Map<String, Set<Place>> index, String key, Place place) {
+        Set<Place> set = index.get(key);
+        if (set != null && set.remove(place) && set.isEmpty()) {
+            index.remove(key);
+        }
+    }
+
+    private static int mask(Set<String> fields) {
+        int mask = 0;
+        for (String field : fields) {
+            int i = FIELDS.indexOf(field);
+            if (i < 0) {
+                throw new IllegalArgumentException("Unknown field: " + field);
+            }
+            mask |= 1 << i;
+        }
+        return mask;
+    }
+
+    /**
+     * Trigrams of the folded name, padded so the start of each word weighs more.
+     */
+    private static Set<String> trigramsOf(String key) {
+        Set<String> grams = new HashSet<>();
+        String padded = "  " + key + " ";
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            grams.add(padded.substring(i, i + 3));
+        }
+        return grams;
+    }
+
+    private static final class Place {
+
+        private final String name;
+        private final String key;
+        // Claves por las que se encuentra: el nombre plegado y lo que sigue a cada espacio
+        private final List<String> words = new ArrayList<>();
+        private final Set<String> grams;
+        private final int[] uses = new int[FIELDS.size()];
+
+        Place(String name) {
+            this.name = name;
+            this.key = fold(name);
+            words.add(key);
+            for (int i = key.indexOf(' '); i >= 0; i = key.indexOf(' ', i + 1)) {
+                words.add(key.substring(i + 1));
+            }
+            this.grams = trigramsOf(key);
+        }
+
+        boolean usedIn(int mask) {
+            for (int i = 0; i < uses.length; i++) {
+                if ((mask & (1 << i)) != 0 && uses[i] > 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        boolean unused() {
+            for (int count : uses) {
+                if (count > 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package com.example.lab2.query;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import com.example.lab2.Turismo;
+import com.example.lab2.store.ObservableTurismoStore;
+import com.example.lab2.store.StoreListener;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Bounded cache of query results, kept correct by following the store's mutations.
+ *
+ * Every entry says which records its result depends on, in one of two ways:
+ * <ul>
+ *   <li>a predicate (get): the result is computed from the records it accepts, like a
+ *       community lookup or a filtered aggregation. A mutation drops the entry only if
+ *       the predicate accepts the record before or after the change.</li>
+ *   <li>a range of positions in findAll order (getRange), for pages. Updating a record
+ *       drops the pages that hold it, since an update does not move it; adding or
+ *       deleting one drops the pages from its position on, since later records shift.
+ *       An added record is last in an insertion-ordered store, so only pages near the
+ *       end go; in any other order, and for a deleted record that is in no cached page,
+ *       the position is unknown and every page is dropped.</li>
+ * </ul>
+ * The size bound counts the records held by all entries (a list or map counts its
+ * size, anything else 1) and evicts least recently used entries first. Entries also
+ * expire after ttl, which bounds staleness for changes that do not pass through the
+ * ObservableTurismoStore, e.g. partitions written by other cluster nodes.
+ *
+ * A result computed while a mutation was applied is returned but not stored, so an
+ * invalidation can never be overtaken by the value it invalidated.
+ *
+ * Hits, misses, evictions and invalidations are counted in turismo.cache.requests and
+ * turismo.cache.removals; turismo.cache.records is the current size.
+ */
+public class QueryCache implements StoreListener {
+
+    private final ObservableTurismoStore store;
+    private final long maxRecords;
+    private final long ttlNanos;
+    // Orden de acceso: el primero es el menos usado recientemente
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long records;
+    private long mutations;
+    private int ranges;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+    private final Counter expirations;
+    private final Counter invalidations;
+
+    public QueryCache(ObservableTurismoStore store, long maxRecords, Duration ttl, MeterRegistry registry) {
+        this.store = store;
+        this.maxRecords = maxRecords;
+        this.ttlNanos = ttl.toNanos();
+        this.hits = counter(registry, "turismo.cache.requests", "result", "hit");
+        this.misses = counter(registry, "turismo.cache.requests", "result", "miss");
+        this.evictions = counter(registry, "turismo.cache.removals", "cause", "eviction");
+        this.expirations = counter(registry, "turismo.cache.removals", "cause", "expiration");
+        this.invalidations = counter(registry, "turismo.cache.removals", "cause", "invalidation");
+        registry.gauge("turismo.cache.records", this, QueryCache::size);
+    }
+
+    /**
+     * A cache that stores nothing, for controllers built outside Spring.
+     */
+    public QueryCache() {
+        this(null, 0, Duration.ZERO, new SimpleMeterRegistry());
+    }
+
+    /**
+     * The cached result for key, or the one compute returns, which is cached unless it
+     * is null. dependsOn must accept every record the result could depend on.
+     */
+    public <T> T get(String key, Predicate<Turismo> dependsOn, Supplier<T> compute) {
+        return lookup(key, dependsOn, -1, -1, compute);
+    }
+
+    /**
+     * Like get, for a result made of the records at positions [start, end) of findAll.
+     */
+    public <T extends List<Turismo>> T getRange(String key, int start, int end, Supplier<T> compute) {
+        return lookup(key, null, start, end, compute);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T lookup(String key, Predicate<Turismo> dependsOn, int start, int end, Supplier<T> compute) {
+        long version;
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                if (System.nanoTime() - entry.expiresAt < 0) {
+                    hits.increment();
+                    return (T) entry.value;
+                }
+                remove(entry);
+                expirations.increment();
+            }
+            version = mutations;
+        }
+        misses.increment();
+        T value = compute.get();
+        if (value != null) {
+            put(new Entry(key, value, dependsOn, start, end), version);
+        }
+        return value;
+    }
+
+    private synchronized void put(Entry entry, long version) {
+        if (version != mutations || entry.weight > maxRecords) {
+            return;
+        }
+        Entry previous = entries.remove(entry.key);
+        if (previous != null) {
+            forget(previous);
+        }
+        entries.put(entry.key, entry);
+        records += entry.weight;
+        if (entry.ids != null) {
+            ranges++;
+        }
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (records > maxRecords && eldest.hasNext()) {
+            Entry evicted = eldest.next();
+            eldest.remove();
+            forget(evicted);
+            evictions.increment();
+        }
+    }
+
+    public synchronized long size() {
+        return records;
+    }
+
+    public synchronized int entryCount() {
+        return entries.size();
+    }
+
+    @Override
+    public synchronized void onAdd(Turismo turismo) {
+        mutations++;
+        int from = ranges > 0 ? addedFrom() : 0;
+        invalidate(entry -> entry.dependsOn(turismo) || (entry.ids != null && entry.end > from));
+    }
+
+    @Override
+    public synchronized void onDelete(Turismo previous) {
+        mutations++;
+        String id = previous.get_id();
+        int position = Integer.MAX_VALUE;
+        boolean found = false;
+        for (Entry entry : entries.values()) {
+            if (entry.ids != null && entry.ids.contains(id)) {
+                position = Math.min(position, entry.start);
+                found = true;
+            }
+        }
+        int from = found ? position : -1;
+        invalidate(entry -> entry.dependsOn(previous) || (entry.ids != null && entry.end > from));
+    }
+
+    @Override
+    public synchronized void onUpdate(Turismo previous, Turismo current) {
+        mutations++;
+        String id = current.get_id();
+        invalidate(entry -> entry.dependsOn(previous) || entry.dependsOn(current)
+                || (entry.ids != null && entry.ids.contains(id)));
+    }
+
+    private void invalidate(Predicate<Entry> affected) {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (affected.test(entry)) {
+                iterator.remove();
+                forget(entry);
+                invalidations.increment();
+            }
+        }
+    }
+
+    /**
+     * Lowest position in findAll the record just added can have. It is last in insertion
+     * order, but size() may already count later adds that have not notified yet; those
+     * are still in progress, so subtracting the mutations in progress (this one included)
+     * gives a bound. Called with the cache locked, so no other notification interleaves.
+     */
+    private int addedFrom() {
+        if (!store.insertionOrdered()) {
+            return 0;
+        }
+        int size = store.size();
+        return Math.max(0, size - store.mutationsInProgress());
+    }
+
+    private void remove(Entry entry) {
+        entries.remove(entry.key);
+        forget(entry);
+    }
+
+    private void forget(Entry entry) {
+        records -= entry.weight;
+        if (entry.ids != null) {
+            ranges--;
+        }
+    }
+
+    private static Counter counter(MeterRegistry registry, String name, String tag, String value) {
+        return Counter.builder(name)
+                .description("Query result cache")
+                .tag(tag, value)
+                .register(registry);
+    }
+
+    private final class Entry {
+
+        final String key;
+        final Object value;
+        final Predicate<Turismo> dependsOn;
+        final int start;
+        final int end;
+        final Set<String> ids;
+        final long weight;
+        final long expiresAt;
+
+        Entry(String key, Object value, Predicate<Turismo> dependsOn, int start, int end) {
+            this.key = key;
+            this.value = value;
+            this.dependsOn = dependsOn;
+            this.start = start;
+            this.end = end;
+            if (dependsOn == null) {
+                ids = new HashSet<>();
+                for (Object element : (List<?>) value) {
+                    ids.add(((Turismo) element).get_id());
+                }
+            } else {
+                ids = null;
+            }
+            if (value instanceof Collection<?> collection) {
+                weight = Math.max(1, collection.size());
+            } else if (value instanceof Map<?, ?> map) {
+                weight = Math.max(1, map.size());
+            } else {
+                weight = 1;
+            }
+            this.expiresAt = System.nanoTime() + ttlNanos;
+        }
+
+        boolean dependsOn(Turismo turismo) {
+            return dependsOn != null && dependsOn.test(turismo);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.lab2.query;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Collector;
+
+import com.example.lab2.Turismo;
+import com.example.lab2.store.TurismoStore;
+
+/**
+ * Parallel full scan over a list of records.
+ *
+ * The list is split in halves until a piece is at most CHUNK_SIZE records. Each leaf
+ * filters and accumulates into its own container and the containers are combined while
+ * the tasks join, so workers never share mutable state. Aggregations are plain
+ * Collectors, which makes them composable with the ones in java.util.stream.Collectors.
+ *
+ * A store is scanned while it is read: its records are taken CHUNK_SIZE at a time
+ * through forEach and every chunk is handed to the pool as soon as it is full, so
+ * stores that decode records on read never build the full list before the scan starts.
+ */
+public class ScanEngine {
+
+    static final int CHUNK_SIZE = 4096;
+
+    private final ForkJoinPool pool;
+
+    public ScanEngine(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Apply the filter to every record and aggregate the matches.
+     * The list must support fast random access.
+     */
+    public <A, R> R scan(List<Turismo> records, Predicate<Turismo> filter,
+                         Collector<Turismo, A, R> aggregation) {
+        A result = pool.invoke(new ScanTask<>(records, 0, records.size(), filter, aggregation));
+        return aggregation.finisher().apply(result);
+    }
+
+    /**
+     * Apply the filter to every record of the store and aggregate the matches, in
+     * findAll order.
+     */
+    public <A, R> R scan(TurismoStore store, Predicate<Turismo> filter,
+                         Collector<Turismo, A, R> aggregation) {
+        Chunks<A> chunks = new Chunks<>(filter, aggregation);
+        store.forEach(chunks);
+        chunks.submit();
+        A result = aggregation.supplier().get();
+        for (ForkJoinTask<A> task : chunks.tasks) {
+            result = aggregation.combiner().apply(result, task.join());
+        }
+        return aggregation.finisher().apply(result);
+    }
+
+    /**
+     * Groups the records it is given into chunks and submits one scan task per chunk.
+     */
+    private class Chunks<A> implements Consumer<Turismo> {
+
+        private final Predicate<Turismo> filter;
+        private final Collector<Turismo, A, ?> aggregation;
+        private final List<ForkJoinTask<A>> tasks = new ArrayList<>();
+        private List<Turismo> chunk = new ArrayList<>(CHUNK_SIZE);
+
+        Chunks(Predicate<Turismo> filter, Collector<Turismo, A, ?> aggregation) {
+            this.filter = filter;
+            this.aggregation = aggregation;
+        }
+
+        @Override
+        public void accept(Turismo turismo) {
+            chunk.add(turismo);
+            if (chunk.size() == CHUNK_SIZE) {
+                submit();
+            }
+        }
+
+        void submit() {
+            if (!chunk.isEmpty()) {
+                tasks.add(pool.submit(new ScanTask<>(chunk, 0, chunk.size(), filter, aggregation)));
+                chunk = new ArrayList<>(CHUNK_SIZE);
+            }
+        }
+    }
+
+    private static class ScanTask<A> extends RecursiveTask<A> {
+
+        private final List<Turismo> records;
+        private final int from;
+        private final int to;
+        private final Predicate<Turismo> filter;
+        private final Collector<Turismo, A, ?> aggregation;
+
+        ScanTask(List<Turismo> records, int from, int to, Predicate<Turismo> filter,
+                 Collector<Turismo, A, ?> aggregation) {
+            this.records = records;
+            this.from = from;
+            this.to = to;
+            this.filter = filter;
+            this.aggregation = aggregation;
+        }
+
+        @Override
+        protected A compute() {
+            if (to - from <= CHUNK_SIZE) {
+                A container = aggregation.supplier().get();
+                BiConsumer<A, Turismo> accumulator = aggregation.accumulator();
+                for (int i = from; i < to; i++) {
+                    Turismo turismo = records.get(i);
+                    if (filter.test(turismo)) {
+                        accumulator.accept(container, turismo);
+                    }
+                }
+                return container;
+            }
+            int mid = (from + to) >>> 1;
+            ScanTask<A> left = new ScanTask<>(records, from, mid, filter, aggregation);
+            ScanTask<A> right = new ScanTask<>(records, mid, to, filter, aggregation);
+            left.fork();
+            A rightResult = right.compute();
+            // Left before right keeps encounter order for collectors such as toList()
+            return aggregation.combiner().apply(left.join(), rightResult);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.lab2.query;
+
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import com.example.lab2.Turismo;
+
+/**
+ * Predicates and grouping keys over Turismo fields for use with ScanEngine.
+ *
+ * Missing nested objects (from, to, timeRange) read as null fields, so filters never
+ * throw on partial records. Predicates compose with and/or/negate.
+ */
+public final class TurismoFilters {
+
+    private TurismoFilters() {}
+
+    public static Predicate<Turismo> all() {
+        return turismo -> true;
+    }
+
+    public static Predicate<Turismo> totalGreaterThan(int total) {
+        return turismo -> turismo.getTotal() > total;
+    }
+
+    public static Predicate<Turismo> totalLessThan(int total) {
+        return turismo -> turismo.getTotal() < total;
+    }
+
+    public static Predicate<Turismo> totalAtLeast(int total) {
+        return turismo -> turismo.getTotal() >= total;
+    }
+
+    public static Predicate<Turismo> totalAtMost(int total) {
+        return turismo -> turismo.getTotal() <= total;
+    }
+
+    public static Predicate<Turismo> fromComunidad(String comunidad) {
+        return fieldEquals("from.comunidad", comunidad);
+    }
+
+    public static Predicate<Turismo> toComunidad(String comunidad) {
+        return fieldEquals("to.comunidad", comunidad);
+    }
+
+    public static Predicate<Turismo> fromProvincia(String provincia) {
+        return fieldEquals("from.provincia", provincia);
+    }
+
+    public static Predicate<Turismo> toProvincia(String provincia) {
+        return fieldEquals("to.provincia", provincia);
+    }
+
+    public static Predicate<Turismo> provinciaPair(String fromProvincia, String toProvincia) {
+        return fromProvincia(fromProvincia).and(toProvincia(toProvincia));
+    }
+
+    public static Predicate<Turismo> period(String period) {
+        return fieldEquals("period", period);
+    }
+
+    /**
+     * Records whose fecha_inicio falls in [from, to]; a null bound is open.
+     * ISO dates compare as strings.
+     */
+    public static Predicate<Turismo> startsBetween(String from, String to) {
+        Function<Turismo, String> fechaInicioField = field("fecha_inicio");
+        return turismo -> {
+            String fechaInicio = fechaInicioField.apply(turismo);
+            return fechaInicio != null
+                    && (from == null || fechaInicio.compareTo(from) >= 0)
+                    && (to == null || fechaInicio.compareTo(to) <= 0);
+        };
+    }
+
+    /**
+     * Records whose named field equals the value (null matches a missing field).
+     */
+    public static Predicate<Turismo> fieldEquals(String name, String value) {
+        Function<Turismo, String> accessor = field(name);
+        return turismo -> Objects.equals(value, accessor.apply(turismo));
+    }
+
+    /**
+     * Accessor for a grouping or filter field: from.comunidad, from.provincia,
+     * to.comunidad, to.provincia, fecha_inicio, fecha_fin or period.
+     */
+    public static Function<Turismo, String> field(String name) {
+        switch (name) {
+            case "from.comunidad":
+                return turismo -> turismo.getFrom() != null ? turismo.getFrom().getComunidad() : null;
+            case "from.provincia":
+                return turismo -> turismo.getFrom() != null ? turismo.getFrom().getProvincia() : null;
+            case "to.comunidad":
+                return turismo -> turismo.getTo() != null ? turismo.getTo().getComunidad() : null;
+            case "to.provincia":
+                return turismo -> turismo.getTo() != null ? turismo.getTo().getProvincia() : null;
+            case "fecha_inicio":
+                return turismo -> turismo.getTimeRange() != null ? turismo.getTimeRange().getFecha_inicio() : null;
+            case "fecha_fin":
+                return turismo -> turismo.getTimeRange() != null ? turismo.getTimeRange().getFecha_fin() : null;
+            case "period":
+                return turismo -> turismo.getTimeRange() != null ? turismo.getTimeRange().getPeriod() : null;
+            default:
+                throw new IllegalArgumentException("Unknown field: " + name);
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.example.lab2.query;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import com.example.lab2.Turismo;
+import com.example.lab2.store.StoreListener;
+
+/**
+ * Visitor totals in calendar buckets per destination comunidad, kept current as the
+ * store changes.
+ *
+ * A record counts in full towards the bucket that contains its fecha_inicio; records
+ * without a parseable fecha_inicio are left out. For every granularity there is one
+ * TreeMap from bucket start to total per comunidad and one across all comunidades, so
+ * a trend query is a sub-map walk over the requested buckets.
+ */
+public class VisitorRollups implements StoreListener {
+
+    public enum Granularity {
+        DAY, WEEK, MONTH, YEAR;
+
+        LocalDate bucketStart(LocalDate date) {
+            switch (this) {
+                case WEEK:
+                    return date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+                case MONTH:
+                    return date.withDayOfMonth(1);
+                case YEAR:
+                    return date.withDayOfYear(1);
+                default:
+                    return date;
+            }
+        }
+    }
+
+    private static final String ALL = "";
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Granularity, Map<String, TreeMap<LocalDate, Bucket>>> series =
+            new EnumMap<>(Granularity.class);
+
+    public VisitorRollups() {
+        for (Granularity granularity : Granularity.values()) {
+            series.put(granularity, new HashMap<>());
+        }
+    }
+
+    @Override
+    public void onAdd(Turismo turismo) {
+        apply(turismo, 1);
+    }
+
+    @Override
+    public void onDelete(Turismo previous) {
+        apply(previous, -1);
+    }
+
+    /**
+     * Buckets in [from, to] in date order, for one destination comunidad or for all (null).
+     * A null bound is open. Empty buckets are not returned.
+     */
+    public List<BucketTotal> trend(Granularity granularity, String comunidad, LocalDate from, LocalDate to) {
+        lock.readLock().lock();
+        try {
+            List<BucketTotal> result = new ArrayList<>();
+            TreeMap<LocalDate, Bucket> buckets = series.get(granularity).get(comunidad != null ? comunidad : ALL);
+            if (buckets == null) {
+                return result;
+            }
+            NavigableMap<LocalDate, Bucket> range = buckets;
+            if (from != null) {
+                range = range.tailMap(granularity.bucketStart(from), true);
+            }
+            if (to != null) {
+                range = range.headMap(to, true);
+            }
+            for (Map.Entry<LocalDate, Bucket> entry : range.entrySet()) {
+                result.add(new BucketTotal(entry.getKey().toString(), entry.getValue().total));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void apply(Turismo turismo, int sign) {
+        LocalDate date = fechaInicio(turismo);
+        if (date == null) {
+            return;
+        }
+        String comunidad = turismo.getTo() != null ? turismo.getTo().getComunidad() : null;
+        long delta = (long) sign * turismo.getTotal();
+        lock.writeLock().lock();
+        try {
+            for (Granularity granularity : Granularity.values()) {
+                LocalDate bucket = granularity.bucketStart(date);
+                Map<String, TreeMap<LocalDate, Bucket>> byComunidad = series.get(granularity);
+                add(byComunidad, ALL, bucket, delta, sign);
+                if (comunidad != null) {
+                    add(byComunidad, comunidad, bucket, delta, sign);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static void add(Map<String, TreeMap<LocalDate, Bucket>> byComunidad, String comunidad,
+                            LocalDate start, long delta, int recordDelta) {
+        TreeMap<LocalDate, Bucket> buckets = byComunidad.computeIfAbsent(comunidad, c -> new TreeMap<>());
+        Bucket bucket = buckets.computeIfAbsent(start, s -> new Bucket());
+        bucket.total += delta;
+        bucket.records += recordDelta;
+        // Buckets whose records were all deleted are dropped
+        if (bucket.records <= 0) {
+            buckets.remove(start);
+            if (buckets.isEmpty()) {
+                byComunidad.remove(comunidad);
+            }
+        }
+    }
+
+    private static LocalDate fechaInicio(Turismo turismo) {
+        if (turismo.getTimeRange() == null || turismo.getTimeRange().getFecha_inicio() == null) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(turismo.getTimeRange().getFecha_inicio());
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private static final class Bucket {
+        long total;
+        int records;
+    }
+
+    /**
+     * One point of a trend: the first day of the bucket and its visitor total.
+     */
+    public static final class BucketTotal {
+
+        private final String bucket;
+        private final long total;
+
+        BucketTotal(String bucket, long total) {
+            this.bucket = bucket;
+            this.total = total;
+        }
+
+        public String getBucket() {
+            return bucket;
+        }
+
+        public long getTotal() {
+            return total;
+        }
+    }
+}
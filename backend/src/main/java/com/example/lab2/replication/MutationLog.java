@@ -0,0 +1,132 @@
+package com.example.lab2.replication;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.example.lab2.Turismo;
+import com.example.lab2.store.StoreListener;
+
+/**
+ * The primary's mutation stream: every add, update and delete as a numbered entry,
+ * kept in a bounded in-memory window for replicas to tail.
+ *
+ * Entries carry the full record, so applying one is idempotent (PUT upserts, DELETE
+ * removes if present). The epoch changes with every start of the primary; sequences
+ * are only comparable within one epoch. A replica that falls behind the window, or
+ * sees a new epoch, starts over from a snapshot.
+ */
+public class MutationLog implements StoreListener {
+
+    public enum Op {
+        PUT, DELETE
+    }
+
+    /**
+     * One mutation. record is null for DELETE.
+     */
+    public static final class Entry {
+
+        private final long sequence;
+        private final Op op;
+        private final String id;
+        private final Turismo record;
+
+        public Entry(long sequence, Op op, String id, Turismo record) {
+            this.sequence = sequence;
+            this.op = op;
+            this.id = id;
+            this.record = record;
+        }
+
+        public long getSequence() {
+            return sequence;
+        }
+
+        public Op getOp() {
+            return op;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public Turismo getRecord() {
+            return record;
+        }
+    }
+
+    private final String epoch = UUID.randomUUID().toString();
+    private final ReentrantLock lock = new ReentrantLock();
+    // Ring buffer: la entrada con secuencia s está en ring[(s - 1) % capacity]
+    private final Entry[] ring;
+    private long sequence;
+
+    public MutationLog(int capacity) {
+        this.ring = new Entry[capacity];
+    }
+
+    @Override
+    public void onAdd(Turismo turismo) {
+        append(Op.PUT, turismo.get_id(), turismo);
+    }
+
+    @Override
+    public void onUpdate(Turismo previous, Turismo current) {
+        append(Op.PUT, current.get_id(), current);
+    }
+
+    @Override
+    public void onDelete(Turismo previous) {
+        append(Op.DELETE, previous.get_id(), null);
+    }
+
+    public String epoch() {
+        return epoch;
+    }
+
+    /**
+     * Sequence of the latest entry, 0 before the first one.
+     */
+    public long sequence() {
+        lock.lock();
+        try {
+            return sequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Up to limit entries after the given sequence, or null when some of them have
+     * already left the window (or the sequence is from the future) and the caller has
+     * to start over from a snapshot.
+     */
+    public List<Entry> since(long after, int limit) {
+        lock.lock();
+        try {
+            long oldest = Math.max(1, sequence - ring.length + 1);
+            if (after > sequence || after < oldest - 1) {
+                return null;
+            }
+            List<Entry> result = new ArrayList<>();
+            for (long next = after + 1; next <= sequence && result.size() < limit; next++) {
+                result.add(ring[(int) ((next - 1) % ring.length)]);
+            }
+            return result;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void append(Op op, String id, Turismo record) {
+        lock.lock();
+        try {
+            sequence++;
+            ring[(int) ((sequence - 1) % ring.length)] = new Entry(sequence, op, id, record);
+        } finally {
+            lock.unlock();
+        }
+    }
+}
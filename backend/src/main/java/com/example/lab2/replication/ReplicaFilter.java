@@ -0,0 +1,59 @@
+package com.example.lab2.replication;
+
+import java.io.IOException;
+import java.time.Duration;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Front of the Turismo API on a read replica.
+ *
+ * Reads are served locally with X-Replica-Staleness-Ms (how far behind the primary the
+ * answer may be) and X-Replica-Sequence. When the replica is further behind than
+ * maxStaleness, or has not loaded its first snapshot yet, reads get 503 with
+ * Retry-After instead. Mutations are redirected to the primary with 307, which keeps
+ * the method and body.
+ */
+public class ReplicaFilter extends OncePerRequestFilter {
+
+    public static final String STALENESS_HEADER = "X-Replica-Staleness-Ms";
+    public static final String SEQUENCE_HEADER = "X-Replica-Sequence";
+
+    private final ReplicationFollower follower;
+    private final String primaryUrl;
+    private final long maxStalenessMillis;
+
+    public ReplicaFilter(ReplicationFollower follower, String primaryUrl, Duration maxStaleness) {
+        this.follower = follower;
+        this.primaryUrl = primaryUrl;
+        this.maxStalenessMillis = maxStaleness.toMillis();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String method = request.getMethod();
+        if ("POST".equals(method) || "PUT".equals(method) || "DELETE".equals(method)) {
+            String query = request.getQueryString();
+            response.setStatus(307);
+            response.setHeader("Location", primaryUrl + request.getRequestURI() + (query != null ? "?" + query : ""));
+            return;
+        }
+        long staleness = follower.stalenessMillis();
+        if (staleness > maxStalenessMillis) {
+            response.setStatus(503);
+            response.setHeader("Retry-After", "1");
+            response.setContentType("text/plain");
+            response.getWriter().write("Replica is behind the primary.");
+            return;
+        }
+        response.setHeader(STALENESS_HEADER, Long.toString(staleness));
+        response.setHeader(SEQUENCE_HEADER, Long.toString(follower.appliedSequence()));
+        chain.doFilter(request, response);
+    }
+}
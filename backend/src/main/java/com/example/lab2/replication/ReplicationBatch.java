@@ -0,0 +1,136 @@
+package com.example.lab2.replication;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.example.lab2.Turismo;
+import com.example.lab2.codec.TurismoCodec;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * What the primary sends a replica: a snapshot (records, as of sequence) or a page of
+ * log entries, plus the primary's epoch and latest sequence. Written with TurismoCodec:
+ * <pre>
+ *   {"epoch": "...", "sequence": 42, "records": [...]}
+ *   {"epoch": "...", "sequence": 42, "entries": [{"seq": 41, "op": "PUT", "id": "...", "record": {...}}, ...]}
+ * </pre>
+ */
+public class ReplicationBatch {
+
+    private final String epoch;
+    private final long sequence;
+    private final List<Turismo> records;
+    private final List<MutationLog.Entry> entries;
+
+    public ReplicationBatch(String epoch, long sequence, List<Turismo> records, List<MutationLog.Entry> entries) {
+        this.epoch = epoch;
+        this.sequence = sequence;
+        this.records = records;
+        this.entries = entries;
+    }
+
+    public String getEpoch() {
+        return epoch;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public List<Turismo> getRecords() {
+        return records;
+    }
+
+    public List<MutationLog.Entry> getEntries() {
+        return entries;
+    }
+
+    public void write(JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("epoch", epoch);
+        generator.writeNumberField("sequence", sequence);
+        if (records != null) {
+            generator.writeFieldName("records");
+            TurismoCodec.writeList(generator, records);
+        }
+        if (entries != null) {
+            generator.writeArrayFieldStart("entries");
+            for (MutationLog.Entry entry : entries) {
+                generator.writeStartObject();
+                generator.writeNumberField("seq", entry.getSequence());
+                generator.writeStringField("op", entry.getOp().name());
+                generator.writeStringField("id", entry.getId());
+                if (entry.getRecord() != null) {
+                    generator.writeFieldName("record");
+                    TurismoCodec.write(generator, entry.getRecord());
+                }
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+        }
+        generator.writeEndObject();
+    }
+
+    public static ReplicationBatch read(JsonParser parser) throws IOException {
+        String epoch = null;
+        long sequence = 0;
+        List<Turismo> records = null;
+        List<MutationLog.Entry> entries = null;
+        parser.nextToken();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            parser.nextToken();
+            switch (name) {
+                case "epoch":
+                    epoch = parser.getText();
+                    break;
+                case "sequence":
+                    sequence = parser.getLongValue();
+                    break;
+                case "records":
+                    records = TurismoCodec.readList(parser);
+                    break;
+                case "entries":
+                    entries = new ArrayList<>();
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        entries.add(readEntry(parser));
+                    }
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        return new ReplicationBatch(epoch, sequence, records, entries);
+    }
+
+    private static MutationLog.Entry readEntry(JsonParser parser) throws IOException {
+        long sequence = 0;
+        MutationLog.Op op = null;
+        String id = null;
+        Turismo record = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            parser.nextToken();
+            switch (name) {
+                case "seq":
+                    sequence = parser.getLongValue();
+                    break;
+                case "op":
+                    op = MutationLog.Op.valueOf(parser.getText());
+                    break;
+                case "id":
+                    id = parser.getText();
+                    break;
+                case "record":
+                    record = TurismoCodec.read(parser);
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        return new MutationLog.Entry(sequence, op, id, record);
+    }
+}
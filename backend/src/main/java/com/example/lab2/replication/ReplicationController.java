@@ -0,0 +1,73 @@
+package com.example.lab2.replication;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.lab2.Turismo;
+import com.example.lab2.codec.TurismoCodec;
+import com.example.lab2.store.ObservableTurismoStore;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/**
+ * The primary's side of log shipping, read by ReplicationFollower. Like the cluster
+ * endpoints these carry no authentication and must not be exposed publicly.
+ */
+@RestController
+@RequestMapping("/internal/replication")
+@ConditionalOnProperty(name = "turismo.replication.mode", havingValue = "primary")
+public class ReplicationController {
+
+    private final ObservableTurismoStore store;
+    private final MutationLog log;
+
+    public ReplicationController(ObservableTurismoStore store, MutationLog log) {
+        this.store = store;
+        this.log = log;
+    }
+
+    /**
+     * All records, tagged with a sequence no later than any change they contain. Changes
+     * made while the records are copied are also in the log after that sequence, and
+     * replaying them over the snapshot gives the same result.
+     */
+    @GetMapping("/snapshot")
+    public ResponseEntity<byte[]> getSnapshot() {
+        long sequence = log.sequence();
+        List<Turismo> records = store.findAll();
+        return write(new ReplicationBatch(log.epoch(), sequence, records, null));
+    }
+
+    /**
+     * Up to limit log entries after the given sequence, or 410 when the replica has to
+     * take a new snapshot (other epoch, or entries no longer in the window).
+     */
+    @GetMapping("/log")
+    public ResponseEntity<byte[]> getLog(@RequestParam String epoch, @RequestParam long after,
+                                         @RequestParam(defaultValue = "500") int limit) {
+        List<MutationLog.Entry> entries = epoch.equals(log.epoch()) ? log.since(after, limit) : null;
+        if (entries == null) {
+            return ResponseEntity.status(410).body(null);
+        }
+        return write(new ReplicationBatch(log.epoch(), log.sequence(), null, entries));
+    }
+
+    private static ResponseEntity<byte[]> write(ReplicationBatch batch) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(8192);
+        try (JsonGenerator generator = TurismoCodec.JSON.createGenerator(out)) {
+            batch.write(generator);
+        } catch (IOException e) {
+            System.err.println("Error writing replication batch: " + e.getMessage());
+            return ResponseEntity.status(500).body(null);
+        }
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(out.toByteArray());
+    }
+}
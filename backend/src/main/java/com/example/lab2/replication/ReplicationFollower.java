@@ -0,0 +1,184 @@
+package com.example.lab2.replication;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+
+import com.example.lab2.Turismo;
+import com.example.lab2.codec.TurismoCodec;
+import com.example.lab2.store.TurismoStore;
+import com.fasterxml.jackson.core.JsonParser;
+
+/**
+ * A replica's copy of the primary: takes a snapshot, then tails the primary's mutation
+ * log and applies every entry to the local store, on a daemon thread.
+ *
+ * Changes go through the ObservableTurismoStore, so the query indexes and rollups of
+ * the replica follow them as well. After each poll that reaches the primary's latest
+ * sequence, the time the poll was sent becomes the replica's "caught up" time; the
+ * difference to now is the staleness reported to clients. It keeps growing while the
+ * primary cannot be reached.
+ */
+public class ReplicationFollower implements Closeable {
+
+    private final TurismoStore store;
+    private final String primaryUrl;
+    private final Duration pollInterval;
+    private final int batchSize;
+    private final HttpClient http;
+    private final Duration timeout;
+    private final Thread thread;
+
+    private volatile boolean running = true;
+    private volatile long caughtUpAt = -1;
+    private volatile long applied;
+    private String epoch;
+
+    public ReplicationFollower(TurismoStore store, String primaryUrl, Duration pollInterval,
+                               int batchSize, Duration connectTimeout, Duration timeout) {
+        this.store = store;
+        this.primaryUrl = primaryUrl;
+        this.pollInterval = pollInterval;
+        this.batchSize = batchSize;
+        this.http = HttpClient.newBuilder().connectTimeout(connectTimeout).build();
+        this.timeout = timeout;
+        this.thread = new Thread(this::run, "turismo-replication");
+        this.thread.setDaemon(true);
+    }
+
+    public void start() {
+        thread.start();
+    }
+
+    /**
+     * Milliseconds since the replica last matched the primary, Long.MAX_VALUE before
+     * the first snapshot has been applied.
+     */
+    public long stalenessMillis() {
+        long at = caughtUpAt;
+        return at < 0 ? Long.MAX_VALUE : Math.max(0, System.currentTimeMillis() - at);
+    }
+
+    /**
+     * Sequence of the last applied log entry.
+     */
+    public long appliedSequence() {
+        return applied;
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        thread.interrupt();
+        try {
+            thread.join(timeout.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        while (running) {
+            boolean more = false;
+            try {
+                more = epoch == null ? bootstrap() : poll();
+            } catch (InterruptedIOException e) {
+                break;
+            } catch (IOException e) {
+                System.err.println("Error replicating from " + primaryUrl + ": " + e.getMessage());
+            }
+            if (!more) {
+                try {
+                    Thread.sleep(pollInterval.toMillis());
+                } catch (InterruptedException e) {
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Replaces the local contents with a snapshot of the primary.
+     */
+    private boolean bootstrap() throws IOException {
+        ReplicationBatch snapshot = fetch("/snapshot");
+        Set<String> ids = new HashSet<>();
+        for (Turismo turismo : snapshot.getRecords()) {
+            ids.add(turismo.get_id());
+        }
+        for (Turismo local : store.findAll()) {
+            if (!ids.contains(local.get_id())) {
+                store.delete(local.get_id());
+            }
+        }
+        for (Turismo turismo : snapshot.getRecords()) {
+            store.add(turismo);
+        }
+        applied = snapshot.getSequence();
+        epoch = snapshot.getEpoch();
+        System.out.println("Replica loaded " + ids.size() + " records from " + primaryUrl
+                + " at sequence " + applied);
+        // Lo que haya en el log después de la secuencia del snapshot se aplica a continuación
+        return true;
+    }
+
+    /**
+     * Applies the next page of log entries. Returns true when more are already waiting.
+     */
+    private boolean poll() throws IOException {
+        long sentAt = System.currentTimeMillis();
+        ReplicationBatch batch = fetch("/log?epoch=" + URLEncoder.encode(epoch, StandardCharsets.UTF_8)
+                + "&after=" + applied + "&limit=" + batchSize);
+        if (batch == null) {
+            System.out.println("Replica fell behind the primary's log, taking a new snapshot");
+            epoch = null;
+            return true;
+        }
+        for (MutationLog.Entry entry : batch.getEntries()) {
+            if (entry.getOp() == MutationLog.Op.PUT) {
+                store.add(entry.getRecord());
+            } else {
+                store.delete(entry.getId());
+            }
+            applied = entry.getSequence();
+        }
+        if (applied >= batch.getSequence()) {
+            caughtUpAt = sentAt;
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * GETs an endpoint of ReplicationController; null when it answers 410.
+     */
+    private ReplicationBatch fetch(String path) throws IOException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(primaryUrl + "/internal/replication" + path))
+                .timeout(timeout).GET().build();
+        HttpResponse<byte[]> response;
+        try {
+            response = http.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted calling the primary");
+        }
+        if (response.statusCode() == 410) {
+            return null;
+        }
+        if (response.statusCode() != 200) {
+            throw new IOException("Primary answered " + response.statusCode());
+        }
+        try (JsonParser parser = TurismoCodec.JSON.createParser(response.body())) {
+            return ReplicationBatch.read(parser);
+        }
+    }
+}
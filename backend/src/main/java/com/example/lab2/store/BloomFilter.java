@@ -0,0 +1,100 @@
+package com.example.lab2.store;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Bloom filter over record ids: mightContain never answers false for an id that was
+ * added, and answers true for an absent id with a probability of about 1% at 10 bits
+ * per id and 7 hash functions.
+ *
+ * The k bit positions come from two 64-bit hashes of the id (h1 + i * h2), which is as
+ * good as k independent hashes for this purpose.
+ */
+final class BloomFilter {
+
+    private static final int BITS_PER_KEY = 10;
+    private static final int HASHES = 7;
+
+    private final long[] words;
+    private final int hashes;
+
+    private BloomFilter(long[] words, int hashes) {
+        this.words = words;
+        this.hashes = hashes;
+    }
+
+    /**
+     * An empty filter sized for the given number of ids.
+     */
+    static BloomFilter create(int expectedKeys) {
+        long bits = Math.max(64, (long) expectedKeys * BITS_PER_KEY);
+        return new BloomFilter(new long[(int) ((bits + 63) / 64)], HASHES);
+    }
+
+    void add(String id) {
+        long h1 = hash(id, 0x9E3779B97F4A7C15L);
+        long h2 = hash(id, 0xC2B2AE3D27D4EB4FL) | 1;
+        long bits = (long) words.length * 64;
+        for (int i = 0; i < hashes; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bits);
+            words[(int) (bit >>> 6)] |= 1L << bit;
+        }
+    }
+
+    boolean mightContain(String id) {
+        long h1 = hash(id, 0x9E3779B97F4A7C15L);
+        long h2 = hash(id, 0xC2B2AE3D27D4EB4FL) | 1;
+        long bits = (long) words.length * 64;
+        for (int i = 0; i < hashes; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bits);
+            if ((words[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Serialized size in bytes.
+     */
+    int byteSize() {
+        return 2 * Integer.BYTES + words.length * Long.BYTES;
+    }
+
+    void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(hashes);
+        out.writeInt(words.length);
+        for (long word : words) {
+            out.writeLong(word);
+        }
+    }
+
+    /**
+     * Read a filter written by writeTo, starting at the given absolute offset.
+     */
+    static BloomFilter readFrom(ByteBuffer buffer, int offset) {
+        int hashes = buffer.getInt(offset);
+        long[] words = new long[buffer.getInt(offset + Integer.BYTES)];
+        int position = offset + 2 * Integer.BYTES;
+        for (int i = 0; i < words.length; i++) {
+            words[i] = buffer.getLong(position + i * Long.BYTES);
+        }
+        return new BloomFilter(words, hashes);
+    }
+
+    private static long hash(String id, long seed) {
+        long h = seed;
+        for (int i = 0; i < id.length(); i++) {
+            h = (h ^ id.charAt(i)) * 0x100000001B3L;
+        }
+        // Mezcla final (splitmix64) para repartir bien los bits altos y bajos
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.lab2.store;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import com.example.lab2.Turismo;
+
+/**
+ * Store without persistence, for read replicas that rebuild their contents from the
+ * primary on startup. add replaces a record with the same id.
+ */
+public class InMemoryTurismoStore implements TurismoStore {
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Turismo> records = new LinkedHashMap<>();
+
+    @Override
+    public List<Turismo> findAll() {
+        lock.readLock().lock();
+        try {
+            return new ArrayList<>(records.values());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Turismo findById(String id) {
+        lock.readLock().lock();
+        try {
+            return records.get(id);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void add(Turismo turismo) {
+        lock.writeLock().lock();
+        try {
+            records.put(turismo.get_id(), turismo);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean update(String id, Turismo turismo) {
+        lock.writeLock().lock();
+        try {
+            if (!records.containsKey(id)) {
+                return false;
+            }
+            records.put(id, turismo);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean delete(String id) {
+        lock.writeLock().lock();
+        try {
+            return records.remove(id) != null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return records.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.lab2.store;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import com.example.lab2.Turismo;
+import com.example.lab2.codec.TurismoCodec;
+
+/**
+ * Store backed by TurismoComunidades.json.
+ *
+ * The file is parsed once when the store is created. In write-through mode every
+ * mutation rewrites it before returning; in write-behind mode mutations only change
+ * memory and a WriteBehindFlusher rewrites the file once per burst of changes, at most
+ * maxLag after the first one. Either way the file is written to a temp file and renamed
+ * over the original, so readers never see a half-written file.
+ * Records without an _id get a generated one on load.
+ */
+public class JsonFileTurismoStore implements TurismoStore {
+
+    private final Path jsonFilePath;
+    // ReentrantReadWriteLock en lugar de synchronized: no fija el carrier thread
+    // cuando la petición corre en un virtual thread y se bloquea en el fichero
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Turismo> records = new LinkedHashMap<>();
+    private final WriteBehindFlusher flusher;
+
+    public JsonFileTurismoStore(Path jsonFilePath) {
+        this(jsonFilePath, null, null);
+    }
+
+    /**
+     * Write-behind store; a null flushInterval gives write-through.
+     */
+    public JsonFileTurismoStore(Path jsonFilePath, Duration flushInterval, Duration maxLag) {
+        this.jsonFilePath = jsonFilePath;
+        for (Turismo turismo : loadRecords()) {
+            // Records without an id could not be addressed by the API; give them one
+            if (turismo.get_id() == null) {
+                turismo.set_id(UUID.randomUUID().toString());
+            }
+            records.put(turismo.get_id(), turismo);
+        }
+        this.flusher = flushInterval != null
+                ? new WriteBehindFlusher("turismo-flusher", flushInterval, maxLag, () -> writeFile(findAll()))
+                : null;
+    }
+
+    @Override
+    public List<Turismo> findAll() {
+        lock.readLock().lock();
+        try {
+            return new ArrayList<>(records.values());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Turismo findById(String id) {
+        lock.readLock().lock();
+        try {
+            return records.get(id);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void add(Turismo turismo) throws IOException {
+        lock.writeLock().lock();
+        try {
+            records.put(turismo.get_id(), turismo);
+            persist();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean update(String id, Turismo turismo) throws IOException {
+        lock.writeLock().lock();
+        try {
+            if (!records.containsKey(id)) {
+                return false;
+            }
+            records.put(id, turismo);
+            persist();
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean delete(String id) throws IOException {
+        lock.writeLock().lock();
+        try {
+            if (records.remove(id) == null) {
+                return false;
+            }
+            persist();
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return records.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Load records from the JSON file.
+     */
+    private List<Turismo> loadRecords() {
+        try {
+            return TurismoCodec.readJsonFile(jsonFilePath);
+        } catch (IOException e) {
+            System.err.println("Error reading records file: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (flusher != null) {
+            flusher.close();
+        }
+    }
+
+    /**
+     * Save records now (write-through) or leave them to the flusher (write-behind).
+     * Called with the write lock held.
+     */
+    private void persist() throws IOException {
+        if (flusher != null) {
+            flusher.markDirty();
+        } else {
+            writeFile(records.values());
+        }
+    }
+
+    /**
+     * Write records to a temp file next to the JSON file and rename it into place.
+     */
+    private void writeFile(Iterable<Turismo> values) throws IOException {
+        Path tmp = jsonFilePath.resolveSibling(jsonFilePath.getFileName() + ".tmp");
+        TurismoCodec.writeJsonFile(tmp, values);
+        Files.move(tmp, jsonFilePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,339 @@
+package com.example.lab2.store;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import com.example.lab2.jfr.PersistEvent;
+
+/**
+ * Immutable, memory-mapped file of records sorted by _id. LsmTurismoStore keeps its
+ * data as sorted runs of one or more segments with disjoint id ranges. A value is a
+ * record encoded with TurismoCodec (Smile) or TOMBSTONE for a deleted id.
+ *
+ * Layout (big-endian, offsets from the start of the file):
+ * <pre>
+ *   header   magic "TLSM", version, generation (long), level, entry count, index offset, bloom offset
+ *   data     per entry: id length (short), id (UTF-8), value length (-1 for a tombstone), value
+ *   index    entry count, then every INDEX_INTERVAL-th id with the offset of its entry
+ *   bloom    BloomFilter over every id in the segment
+ * </pre>
+ * Opening a segment reads the sparse index and the Bloom filter onto the heap, about
+ * 1.3 bytes per record plus one id per INDEX_INTERVAL records. A lookup for an id that
+ * is not in the segment is almost always answered by the filter alone; otherwise it
+ * scans at most INDEX_INTERVAL entries of the mapping.
+ *
+ * Offsets are ints and a segment is one mapping, so write caps the data section at the
+ * maxBytes it is given (at most MAX_BYTES) and leaves the remaining entries for the
+ * next segment of the run.
+ */
+final class LsmSegment {
+
+    static final byte[] TOMBSTONE = new byte[0];
+
+    static final int MAGIC = 0x544C534D; // "TLSM"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 32;
+    static final int INDEX_INTERVAL = 64;
+    // Deja sitio al índice y al filtro por debajo de Integer.MAX_VALUE
+    static final long MAX_BYTES = 1L << 30;
+
+    private final Path path;
+    private final ByteBuffer buffer;
+    private final long generation;
+    private final int level;
+    private final int count;
+    private final int indexOffset;
+    private final String[] indexIds;
+    private final int[] indexOffsets;
+    private final BloomFilter bloom;
+
+    private LsmSegment(Path path, ByteBuffer buffer) throws IOException {
+        this.path = path;
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not an LSM segment: " + path);
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("Unsupported segment version: " + buffer.getInt(4));
+        }
+        this.generation = buffer.getLong(8);
+        this.level = buffer.getInt(16);
+        this.count = buffer.getInt(20);
+        this.indexOffset = buffer.getInt(24);
+        int indexEntries = buffer.getInt(indexOffset);
+        this.indexIds = new String[indexEntries];
+        this.indexOffsets = new int[indexEntries];
+        int position = indexOffset + Integer.BYTES;
+        for (int i = 0; i < indexEntries; i++) {
+            int length = buffer.getShort(position);
+            indexIds[i] = string(position + Short.BYTES, length);
+            position += Short.BYTES + length;
+            indexOffsets[i] = buffer.getInt(position);
+            position += Integer.BYTES;
+        }
+        this.bloom = BloomFilter.readFrom(buffer, buffer.getInt(28));
+    }
+
+    /**
+     * Map a segment file. The mapping stays valid after the channel is closed and after
+     * the file is deleted, so readers can finish with a segment that compaction replaced.
+     */
+    static LsmSegment open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new LsmSegment(path, buffer);
+        }
+    }
+
+    Path path() {
+        return path;
+    }
+
+    /**
+     * Order of the segment among the others: a higher generation holds newer values.
+     */
+    long generation() {
+        return generation;
+    }
+
+    /**
+     * How many compactions produced this segment, 0 for a flushed memtable.
+     */
+    int level() {
+        return level;
+    }
+
+    int count() {
+        return count;
+    }
+
+    /**
+     * Size of the file in bytes.
+     */
+    long bytes() {
+        return buffer.capacity();
+    }
+
+    /**
+     * The value stored for the id (possibly TOMBSTONE), or null if the segment does not
+     * mention it.
+     */
+    byte[] get(String id) {
+        if (count == 0 || !bloom.mightContain(id)) {
+            return null;
+        }
+        int block = floorIndex(id);
+        if (block < 0) {
+            return null;
+        }
+        int position = indexOffsets[block];
+        int end = block + 1 < indexOffsets.length ? indexOffsets[block + 1] : indexOffset;
+        while (position < end) {
+            int idLength = buffer.getShort(position);
+            String entryId = string(position + Short.BYTES, idLength);
+            position += Short.BYTES + idLength;
+            int valueLength = buffer.getInt(position);
+            position += Integer.BYTES;
+            int cmp = entryId.compareTo(id);
+            if (cmp == 0) {
+                return value(position, valueLength);
+            }
+            if (cmp > 0) {
+                return null;
+            }
+            position += Math.max(0, valueLength);
+        }
+        return null;
+    }
+
+    /**
+     * Every entry in id order, tombstones included.
+     */
+    Iterator<Map.Entry<String, byte[]>> iterator() {
+        return new Iterator<>() {
+            private int position = HEADER_BYTES;
+
+            @Override
+            public boolean hasNext() {
+                return position < indexOffset;
+            }
+
+            @Override
+            public Map.Entry<String, byte[]> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                int idLength = buffer.getShort(position);
+                String id = string(position + Short.BYTES, idLength);
+                position += Short.BYTES + idLength;
+                int valueLength = buffer.getInt(position);
+                position += Integer.BYTES;
+                byte[] value = value(position, valueLength);
+                position += Math.max(0, valueLength);
+                return new AbstractMap.SimpleImmutableEntry<>(id, value);
+            }
+        };
+    }
+
+    /**
+     * Position in the sparse index of the last id not greater than the given one, or -1.
+     */
+    private int floorIndex(String id) {
+        int low = 0;
+        int high = indexIds.length - 1;
+        int floor = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (indexIds[mid].compareTo(id) <= 0) {
+                floor = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return floor;
+    }
+
+    private byte[] value(int position, int length) {
+        if (length < 0) {
+            return TOMBSTONE;
+        }
+        byte[] value = new byte[length];
+        buffer.get(position, value);
+        return value;
+    }
+
+    private String string(int position, int length) {
+        byte[] bytes = new byte[length];
+        buffer.get(position, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Entries that can be looked at before they are taken, so that write can leave the
+     * one that no longer fits in a segment for the next.
+     */
+    static final class Entries {
+
+        private final Iterator<Map.Entry<String, byte[]>> it;
+        private Map.Entry<String, byte[]> next;
+
+        Entries(Iterator<Map.Entry<String, byte[]>> it) {
+            this.it = it;
+            this.next = it.hasNext() ? it.next() : null;
+        }
+
+        boolean hasNext() {
+            return next != null;
+        }
+
+        Map.Entry<String, byte[]> peek() {
+            return next;
+        }
+
+        Map.Entry<String, byte[]> next() {
+            Map.Entry<String, byte[]> result = next;
+            next = it.hasNext() ? it.next() : null;
+            return result;
+        }
+    }
+
+    /**
+     * Write entries, which must come in strictly increasing id order, as a segment, until
+     * they run out or the data section would grow past maxBytes; a segment holds at least
+     * one entry if there is one. The file is written next to the target and moved into
+     * place. expectedCount sizes the Bloom filter and may be an upper bound.
+     */
+    static LsmSegment write(Path path, long generation, int level, Entries entries,
+                            int expectedCount, boolean dropTombstones, long maxBytes) throws IOException {
+        PersistEvent event = new PersistEvent();
+        event.begin();
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        BloomFilter bloom = BloomFilter.create(expectedCount);
+        List<byte[]> indexIds = new ArrayList<>();
+        List<Integer> indexOffsets = new ArrayList<>();
+        long limit = HEADER_BYTES + Math.min(maxBytes, MAX_BYTES);
+        int count = 0;
+        long position = HEADER_BYTES;
+        try (OutputStream file = Files.newOutputStream(tmp);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16))) {
+            // Cabecera provisional: los offsets se conocen al final y se escriben con un canal
+            out.write(new byte[HEADER_BYTES]);
+            while (entries.hasNext()) {
+                Map.Entry<String, byte[]> entry = entries.peek();
+                byte[] value = entry.getValue();
+                if (dropTombstones && value == TOMBSTONE) {
+                    entries.next();
+                    continue;
+                }
+                byte[] id = entry.getKey().getBytes(StandardCharsets.UTF_8);
+                long entryBytes = Short.BYTES + id.length + Integer.BYTES + (value == TOMBSTONE ? 0 : value.length);
+                if (count > 0 && position + entryBytes > limit) {
+                    break;
+                }
+                entries.next();
+                if (count % INDEX_INTERVAL == 0) {
+                    indexIds.add(id);
+                    indexOffsets.add((int) position);
+                }
+                bloom.add(entry.getKey());
+                out.writeShort(id.length);
+                out.write(id);
+                if (value == TOMBSTONE) {
+                    out.writeInt(-1);
+                } else {
+                    out.writeInt(value.length);
+                    out.write(value);
+                }
+                position += entryBytes;
+                count++;
+            }
+            long indexOffset = position;
+            out.writeInt(indexIds.size());
+            for (int i = 0; i < indexIds.size(); i++) {
+                out.writeShort(indexIds.get(i).length);
+                out.write(indexIds.get(i));
+                out.writeInt(indexOffsets.get(i));
+                position += Short.BYTES + indexIds.get(i).length + Integer.BYTES;
+            }
+            long bloomOffset = position + Integer.BYTES;
+            if (bloomOffset + bloom.byteSize() > Integer.MAX_VALUE) {
+                throw new IOException("Segment too large: " + path);
+            }
+            bloom.writeTo(out);
+            out.flush();
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            header.putInt(MAGIC).putInt(VERSION).putLong(generation).putInt(level).putInt(count)
+                    .putInt((int) indexOffset).putInt((int) bloomOffset).flip();
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                channel.write(header, 0);
+            }
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        event.end();
+        if (event.shouldCommit()) {
+            event.kind = level == 0 ? "segment" : "compaction";
+            event.file = path.toString();
+            event.records = count;
+            event.bytes = Files.size(path);
+            event.commit();
+        }
+        return open(path);
+    }
+}
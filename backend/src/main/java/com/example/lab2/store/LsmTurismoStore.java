@@ -0,0 +1,708 @@
+package com.example.lab2.store;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+import com.example.lab2.Turismo;
+import com.example.lab2.codec.TurismoCodec;
+import com.example.lab2.jfr.PersistEvent;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+
+/**
+ * Log-structured store for datasets that do not fit in the heap.
+ *
+ * Writes go to a write-ahead log (wal.log) and to the memtable, a sorted map of the
+ * latest encoded value per id. When the memtable reaches memtableLimit entries it is
+ * written out as an immutable, memory-mapped LsmSegment and the log starts over. A read
+ * checks the memtable and then the segments from newest to oldest; each segment's
+ * Bloom filter answers for ids it does not hold, so a lookup for a missing id (a 404)
+ * normally touches no segment data at all. Deletes are tombstones until compaction.
+ *
+ * Segments written together form a sorted run: a flushed memtable or the output of a
+ * compaction, split into segments of at most maxSegmentBytes with disjoint id ranges.
+ * When there are more than maxRuns runs a background thread merges adjacent runs of
+ * similar size (size-tiered compaction), keeping the newest value per id and dropping
+ * tombstones when the oldest run is among them, and swaps the result in while writes
+ * go on. A run is rewritten about once each time the data newer than it grows to its
+ * size, so each record is rewritten a logarithmic number of times, not once every few
+ * flushes. Only the memtable, the sparse indexes and the Bloom filters
+ * are on the heap; record data stays in the page cache.
+ *
+ * The first time, when the directory is empty, it is seeded from the JSON file.
+ * findAll returns records in id order. It decodes every record onto the heap, so
+ * listener replay, warm-up and paging use forEach and findRange instead, which stream
+ * the merged segments; findRange skips the records before offset without decoding them.
+ */
+public class LsmTurismoStore implements TurismoStore {
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".dat";
+    private static final String WAL = "wal.log";
+    // Un run más antiguo entra en la fusión si no supera 1.25 veces lo ya elegido
+    private static final double SIZE_RATIO = 1.25;
+
+    // El más reciente primero: generación más alta y, a igualdad, la compactación más reciente
+    private static final Comparator<LsmSegment> NEWEST_FIRST = Comparator
+            .comparingLong(LsmSegment::generation).thenComparingInt(LsmSegment::level).reversed();
+
+    /**
+     * What readers see: the memtable and the segments, newest first. Replaced as a whole
+     * on flush and compaction so a reader never sees a record in neither place.
+     */
+    private static final class State {
+
+        private final ConcurrentSkipListMap<String, byte[]> memtable;
+        private final List<LsmSegment> segments;
+
+        State(ConcurrentSkipListMap<String, byte[]> memtable, List<LsmSegment> segments) {
+            this.memtable = memtable;
+            this.segments = segments;
+        }
+    }
+
+    private final Path directory;
+    private final int memtableLimit;
+    private final int maxRuns;
+    private final long maxSegmentBytes;
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final ReentrantLock compactionRun = new ReentrantLock();
+    private final ReentrantLock compactionLock = new ReentrantLock();
+    private final Condition compactionNeeded = compactionLock.newCondition();
+    private final Thread compactor;
+    private volatile State state;
+    private volatile int size;
+    private DataOutputStream wal;
+    private long lastGeneration;
+    private boolean compactionRequested;
+    private boolean closed;
+
+    public LsmTurismoStore(Path directory, Path seedJsonPath, int memtableLimit, int maxRuns) throws IOException {
+        this(directory, seedJsonPath, memtableLimit, maxRuns, LsmSegment.MAX_BYTES);
+    }
+
+    public LsmTurismoStore(Path directory, Path seedJsonPath, int memtableLimit, int maxRuns,
+                           long maxSegmentBytes) throws IOException {
+        if (maxRuns < 1 || maxSegmentBytes < 1) {
+            throw new IllegalArgumentException("maxRuns and maxSegmentBytes must be positive");
+        }
+        this.directory = directory;
+        this.memtableLimit = memtableLimit;
+        this.maxRuns = maxRuns;
+        this.maxSegmentBytes = Math.min(maxSegmentBytes, LsmSegment.MAX_BYTES);
+        Files.createDirectories(directory);
+        List<LsmSegment> segments = openSegments();
+        for (LsmSegment segment : segments) {
+            lastGeneration = Math.max(lastGeneration, segment.generation());
+        }
+        this.state = new State(new ConcurrentSkipListMap<>(), segments);
+        ConcurrentSkipListMap<String, byte[]> recovered = replayWal();
+        if (!recovered.isEmpty()) {
+            // Lo recuperado del log pasa a un segmento y el log se empieza de cero
+            state = new State(recovered, segments);
+            flush();
+        } else if (segments.isEmpty() && Files.exists(seedJsonPath)) {
+            seed(seedJsonPath);
+        }
+        this.wal = openWal();
+        this.size = countLive();
+        this.compactor = Thread.ofPlatform().name("turismo-compactor").daemon().start(this::runCompactor);
+        requestCompaction();
+    }
+
+    @Override
+    public List<Turismo> findAll() {
+        List<Turismo> records = new ArrayList<>(size);
+        Iterator<Map.Entry<String, byte[]>> it = merge(state, false);
+        while (it.hasNext()) {
+            records.add(decode(it.next().getValue()));
+        }
+        return records;
+    }
+
+    @Override
+    public boolean insertionOrdered() {
+        return false;
+    }
+
+    @Override
+    public void forEach(Consumer<? super Turismo> action) {
+        Iterator<Map.Entry<String, byte[]>> it = merge(state, false);
+        while (it.hasNext()) {
+            action.accept(decode(it.next().getValue()));
+        }
+    }
+
+    @Override
+    public List<Turismo> findRange(int offset, int limit) {
+        List<Turismo> records = new ArrayList<>(Math.max(0, Math.min(limit, size - offset)));
+        Iterator<Map.Entry<String, byte[]>> it = merge(state, false);
+        for (int skipped = 0; skipped < offset && it.hasNext(); skipped++) {
+            it.next();
+        }
+        while (records.size() < limit && it.hasNext()) {
+            records.add(decode(it.next().getValue()));
+        }
+        return records;
+    }
+
+    @Override
+    public Turismo findById(String id) {
+        byte[] value = lookup(state, id);
+        return value == null || value == LsmSegment.TOMBSTONE ? null : decode(value);
+    }
+
+    @Override
+    public void add(Turismo turismo) throws IOException {
+        writeLock.lock();
+        try {
+            boolean existed = live(turismo.get_id());
+            write(turismo.get_id(), encode(turismo));
+            if (!existed) {
+                size++;
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean update(String id, Turismo turismo) throws IOException {
+        writeLock.lock();
+        try {
+            if (!live(id)) {
+                return false;
+            }
+            write(id, encode(turismo));
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean delete(String id) throws IOException {
+        writeLock.lock();
+        try {
+            if (!live(id)) {
+                return false;
+            }
+            write(id, LsmSegment.TOMBSTONE);
+            size--;
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Stop the compactor (after the merge it may be running) and close the log. The
+     * memtable needs no flush: it is rebuilt from the log on the next start.
+     */
+    @Override
+    public void close() throws IOException {
+        compactionLock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            compactionNeeded.signal();
+        } finally {
+            compactionLock.unlock();
+        }
+        try {
+            compactor.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writeLock.lock();
+        try {
+            wal.close();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Number of segments on disk.
+     */
+    int segmentCount() {
+        return state.segments.size();
+    }
+
+    /**
+     * Number of sorted runs.
+     */
+    int runCount() {
+        return runs(state.segments).size();
+    }
+
+    /**
+     * Merge every current run into one now, on the calling thread.
+     */
+    void compact() throws IOException {
+        compactionRun.lock();
+        try {
+            List<List<LsmSegment>> runs = runs(state.segments);
+            if (runs.size() >= 2) {
+                compact(runs);
+            }
+        } finally {
+            compactionRun.unlock();
+        }
+    }
+
+    /**
+     * Merge runs of similar size until there are at most maxRuns, on the calling thread.
+     */
+    void compactTiers() throws IOException {
+        compactionRun.lock();
+        try {
+            List<List<LsmSegment>> runs = runs(state.segments);
+            while (runs.size() > maxRuns) {
+                compact(pickRuns(runs));
+                runs = runs(state.segments);
+            }
+        } finally {
+            compactionRun.unlock();
+        }
+    }
+
+    /**
+     * The first group of adjacent runs, newest first, in which every older run is at most
+     * SIZE_RATIO times the size of the runs before it in the group. Only neighbours are
+     * merged, so the merged run takes the group's place in the newest-first order. When
+     * no two neighbours are alike, the newest runs are merged down to maxRuns.
+     */
+    private List<List<LsmSegment>> pickRuns(List<List<LsmSegment>> runs) {
+        for (int first = 0; first < runs.size() - 1; first++) {
+            long taken = bytes(runs.get(first));
+            int last = first;
+            while (last + 1 < runs.size() && bytes(runs.get(last + 1)) <= taken * SIZE_RATIO) {
+                last++;
+                taken += bytes(runs.get(last));
+            }
+            if (last > first) {
+                return runs.subList(first, last + 1);
+            }
+        }
+        return runs.subList(0, runs.size() - maxRuns + 1);
+    }
+
+    /**
+     * Merge adjacent runs into one. Called with compactionRun held, so only flushes, which
+     * add newer runs, change the segments meanwhile.
+     */
+    private void compact(List<List<LsmSegment>> group) throws IOException {
+        List<LsmSegment> inputs = new ArrayList<>();
+        for (List<LsmSegment> run : group) {
+            inputs.addAll(run);
+        }
+        long generation = 0;
+        int level = 0;
+        int expected = 0;
+        long inputBytes = 0;
+        List<Iterator<Map.Entry<String, byte[]>>> sources = new ArrayList<>();
+        for (LsmSegment segment : inputs) {
+            generation = Math.max(generation, segment.generation());
+            level = Math.max(level, segment.level() + 1);
+            expected += segment.count();
+            inputBytes += segment.bytes();
+            sources.add(segment.iterator());
+        }
+        // Las lápidas sólo se descartan si no queda ningún run más antiguo al que tapar
+        List<LsmSegment> current = state.segments;
+        boolean dropTombstones = inputs.contains(current.get(current.size() - 1));
+        List<LsmSegment> merged = writeRun(generation, level, merge(sources, true), expected, inputBytes,
+                dropTombstones);
+        writeLock.lock();
+        try {
+            List<LsmSegment> segments = new ArrayList<>(state.segments);
+            segments.removeAll(inputs);
+            segments.addAll(merged);
+            segments.sort(NEWEST_FIRST);
+            state = new State(state.memtable, segments);
+        } finally {
+            writeLock.unlock();
+        }
+        // Del más antiguo al más reciente: si se corta a medias, lo que queda sigue siendo correcto
+        Set<Path> written = new HashSet<>();
+        for (LsmSegment segment : merged) {
+            written.add(segment.path());
+        }
+        List<LsmSegment> retired = new ArrayList<>(inputs);
+        retired.sort(NEWEST_FIRST.reversed());
+        for (LsmSegment segment : retired) {
+            if (!written.contains(segment.path())) {
+                Files.deleteIfExists(segment.path());
+            }
+        }
+    }
+
+    /**
+     * Write id-ordered entries as a run of segments of at most maxSegmentBytes each.
+     * inputBytes, about the size of the entries, spreads expected over the segments to
+     * size their Bloom filters.
+     */
+    private List<LsmSegment> writeRun(long generation, int level, Iterator<Map.Entry<String, byte[]>> entries,
+                                      int expected, long inputBytes, boolean dropTombstones) throws IOException {
+        LsmSegment.Entries remaining = new LsmSegment.Entries(entries);
+        int perSegment = (int) Math.min(expected,
+                (double) expected * maxSegmentBytes / Math.max(1, inputBytes) * SIZE_RATIO + 1);
+        List<LsmSegment> run = new ArrayList<>();
+        do {
+            LsmSegment segment = LsmSegment.write(segmentPath(generation, level, run.size()), generation, level,
+                    remaining, perSegment, dropTombstones, maxSegmentBytes);
+            if (segment.count() == 0 && !run.isEmpty()) {
+                // Sólo quedaban lápidas descartadas
+                Files.deleteIfExists(segment.path());
+            } else {
+                run.add(segment);
+            }
+        } while (remaining.hasNext());
+        return run;
+    }
+
+    /**
+     * The segments, newest first, grouped into runs: a run's segments share generation
+     * and level and are adjacent in NEWEST_FIRST order.
+     */
+    private static List<List<LsmSegment>> runs(List<LsmSegment> segments) {
+        List<List<LsmSegment>> runs = new ArrayList<>();
+        List<LsmSegment> run = null;
+        for (LsmSegment segment : segments) {
+            if (run == null || run.get(0).generation() != segment.generation()
+                    || run.get(0).level() != segment.level()) {
+                run = new ArrayList<>();
+                runs.add(run);
+            }
+            run.add(segment);
+        }
+        return runs;
+    }
+
+    private static long bytes(List<LsmSegment> run) {
+        long bytes = 0;
+        for (LsmSegment segment : run) {
+            bytes += segment.bytes();
+        }
+        return bytes;
+    }
+
+    private boolean live(String id) {
+        byte[] value = lookup(state, id);
+        return value != null && value != LsmSegment.TOMBSTONE;
+    }
+
+    private static byte[] lookup(State current, String id) {
+        if (id == null) {
+            return null;
+        }
+        byte[] value = current.memtable.get(id);
+        if (value != null) {
+            return value;
+        }
+        for (LsmSegment segment : current.segments) {
+            value = segment.get(id);
+            if (value != null) {
+                return value;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Log and apply one change, flushing the memtable when it is full. Called with the
+     * write lock held.
+     */
+    private void write(String id, byte[] value) throws IOException {
+        PersistEvent event = new PersistEvent();
+        event.begin();
+        wal.writeUTF(id);
+        if (value == LsmSegment.TOMBSTONE) {
+            wal.writeInt(-1);
+        } else {
+            wal.writeInt(value.length);
+            wal.write(value);
+        }
+        wal.flush();
+        event.end();
+        if (event.shouldCommit()) {
+            event.kind = "wal";
+            event.file = WAL;
+            event.records = 1;
+            event.bytes = value.length;
+            event.commit();
+        }
+        state.memtable.put(id, value);
+        if (state.memtable.size() >= memtableLimit) {
+            flush();
+            wal.close();
+            wal = openWal();
+        }
+    }
+
+    /**
+     * Write the memtable as a new run and swap in an empty one.
+     */
+    private void flush() throws IOException {
+        State current = state;
+        long generation = ++lastGeneration;
+        long bytes = 0;
+        for (Map.Entry<String, byte[]> entry : current.memtable.entrySet()) {
+            bytes += entry.getKey().length() + entry.getValue().length;
+        }
+        List<LsmSegment> run = writeRun(generation, 0, current.memtable.entrySet().iterator(),
+                current.memtable.size(), bytes, false);
+        List<LsmSegment> segments = new ArrayList<>(current.segments);
+        segments.addAll(run);
+        segments.sort(NEWEST_FIRST);
+        state = new State(new ConcurrentSkipListMap<>(), segments);
+        if (runs(segments).size() > maxRuns) {
+            requestCompaction();
+        }
+    }
+
+    private void requestCompaction() {
+        compactionLock.lock();
+        try {
+            compactionRequested = true;
+            compactionNeeded.signal();
+        } finally {
+            compactionLock.unlock();
+        }
+    }
+
+    private void runCompactor() {
+        while (true) {
+            compactionLock.lock();
+            try {
+                while (!compactionRequested && !closed) {
+                    compactionNeeded.await();
+                }
+                if (closed) {
+                    return;
+                }
+                compactionRequested = false;
+            } catch (InterruptedException e) {
+                return;
+            } finally {
+                compactionLock.unlock();
+            }
+            if (runs(state.segments).size() <= maxRuns) {
+                continue;
+            }
+            try {
+                compactTiers();
+            } catch (IOException e) {
+                System.err.println("Error compacting segments: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Live records of the memtable and segments, newest value per id, in id order.
+     */
+    private static Iterator<Map.Entry<String, byte[]>> merge(State current, boolean keepTombstones) {
+        List<Iterator<Map.Entry<String, byte[]>>> sources = new ArrayList<>();
+        sources.add(current.memtable.entrySet().iterator());
+        for (LsmSegment segment : current.segments) {
+            sources.add(segment.iterator());
+        }
+        return merge(sources, keepTombstones);
+    }
+
+    /**
+     * k-way merge of id-ordered sources given newest first: for an id present in several,
+     * only the newest source's entry comes out.
+     */
+    private static Iterator<Map.Entry<String, byte[]>> merge(List<Iterator<Map.Entry<String, byte[]>>> sources,
+                                                            boolean keepTombstones) {
+        final class Cursor {
+            final int rank;
+            final Iterator<Map.Entry<String, byte[]>> it;
+            Map.Entry<String, byte[]> current;
+
+            Cursor(int rank, Iterator<Map.Entry<String, byte[]>> it) {
+                this.rank = rank;
+                this.it = it;
+            }
+
+            boolean advance() {
+                current = it.hasNext() ? it.next() : null;
+                return current != null;
+            }
+        }
+        PriorityQueue<Cursor> queue = new PriorityQueue<>(Math.max(1, sources.size()),
+                Comparator.comparing((Cursor c) -> c.current.getKey()).thenComparingInt(c -> c.rank));
+        for (int i = 0; i < sources.size(); i++) {
+            Cursor cursor = new Cursor(i, sources.get(i));
+            if (cursor.advance()) {
+                queue.add(cursor);
+            }
+        }
+        return new Iterator<>() {
+            private Map.Entry<String, byte[]> next = step();
+
+            private Map.Entry<String, byte[]> step() {
+                while (!queue.isEmpty()) {
+                    Cursor newest = queue.poll();
+                    Map.Entry<String, byte[]> entry = newest.current;
+                    // Versiones más antiguas del mismo id: se descartan
+                    while (!queue.isEmpty() && queue.peek().current.getKey().equals(entry.getKey())) {
+                        Cursor older = queue.poll();
+                        if (older.advance()) {
+                            queue.add(older);
+                        }
+                    }
+                    if (newest.advance()) {
+                        queue.add(newest);
+                    }
+                    if (keepTombstones || entry.getValue() != LsmSegment.TOMBSTONE) {
+                        return entry;
+                    }
+                }
+                return null;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public Map.Entry<String, byte[]> next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                Map.Entry<String, byte[]> result = next;
+                next = step();
+                return result;
+            }
+        };
+    }
+
+    private int countLive() {
+        int count = 0;
+        Iterator<Map.Entry<String, byte[]>> it = merge(state, false);
+        while (it.hasNext()) {
+            it.next();
+            count++;
+        }
+        return count;
+    }
+
+    private List<LsmSegment> openSegments() throws IOException {
+        List<LsmSegment> segments = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                segments.add(LsmSegment.open(file));
+            }
+        }
+        segments.sort(NEWEST_FIRST);
+        return segments;
+    }
+
+    /**
+     * Changes logged since the last flush. A change cut short by a crash ends the replay.
+     */
+    private ConcurrentSkipListMap<String, byte[]> replayWal() throws IOException {
+        ConcurrentSkipListMap<String, byte[]> memtable = new ConcurrentSkipListMap<>();
+        Path path = directory.resolve(WAL);
+        if (!Files.exists(path)) {
+            return memtable;
+        }
+        try (InputStream file = Files.newInputStream(path);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(file, 1 << 16))) {
+            while (true) {
+                String id = in.readUTF();
+                int length = in.readInt();
+                byte[] value = length < 0 ? LsmSegment.TOMBSTONE : in.readNBytes(length);
+                if (value.length != Math.max(0, length)) {
+                    break;
+                }
+                memtable.put(id, value);
+            }
+        } catch (EOFException e) {
+            // Fin del log
+        }
+        return memtable;
+    }
+
+    private DataOutputStream openWal() throws IOException {
+        return new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(directory.resolve(WAL),
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE), 1 << 12));
+    }
+
+    /**
+     * Import the JSON file as segments of memtableLimit records each.
+     */
+    private void seed(Path seedJsonPath) throws IOException {
+        List<Turismo> records = TurismoCodec.readJsonFile(seedJsonPath);
+        for (int start = 0; start < records.size(); start += memtableLimit) {
+            TreeMap<String, byte[]> chunk = new TreeMap<>();
+            for (Turismo turismo : records.subList(start, Math.min(records.size(), start + memtableLimit))) {
+                // Records without an id could not be addressed by the API; give them one
+                if (turismo.get_id() == null) {
+                    turismo.set_id(UUID.randomUUID().toString());
+                }
+                chunk.put(turismo.get_id(), encode(turismo));
+            }
+            state = new State(new ConcurrentSkipListMap<>(chunk), state.segments);
+            flush();
+        }
+    }
+
+    private Path segmentPath(long generation, int level, int part) {
+        return directory.resolve(String.format("%s%019d-%d-%d%s", SEGMENT_PREFIX, generation, level, part,
+                SEGMENT_SUFFIX));
+    }
+
+    private static byte[] encode(Turismo turismo) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(128);
+        try (JsonGenerator generator = TurismoCodec.SMILE.createGenerator(out)) {
+            TurismoCodec.write(generator, turismo);
+        }
+        return out.toByteArray();
+    }
+
+    private static Turismo decode(byte[] value) {
+        try (JsonParser parser = TurismoCodec.SMILE.createParser(value)) {
+            return TurismoCodec.read(parser);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Corrupt record in LSM store", e);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.lab2.store;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.example.lab2.Turismo;
+
+/**
+ * Store that serves reads from a memory-mapped TurismoSnapshot.
+ *
+ * Reads go to the current snapshot without locking. A mutation writes a new snapshot
+ * and swaps it in, so readers keep the mapping they started with.
+ */
+public class MappedSnapshotTurismoStore implements TurismoStore {
+
+    private final Path snapshotPath;
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private volatile TurismoSnapshot snapshot;
+
+    /**
+     * Open the snapshot, importing it from the JSON file the first time.
+     */
+    public MappedSnapshotTurismoStore(Path snapshotPath, Path jsonFilePath) throws IOException {
+        this.snapshotPath = snapshotPath;
+        if (!Files.exists(snapshotPath)) {
+            if (Files.exists(jsonFilePath)) {
+                TurismoSnapshot.importJson(jsonFilePath, snapshotPath);
+            } else {
+                TurismoSnapshot.write(new ArrayList<>(), snapshotPath);
+            }
+        }
+        this.snapshot = TurismoSnapshot.open(snapshotPath);
+    }
+
+    @Override
+    public List<Turismo> findAll() {
+        return snapshot.readAll();
+    }
+
+    @Override
+    public Turismo findById(String id) {
+        TurismoSnapshot current = snapshot;
+        int position = current.indexOf(id);
+        return position < 0 ? null : current.get(position);
+    }
+
+    @Override
+    public void add(Turismo turismo) throws IOException {
+        writeLock.lock();
+        try {
+            List<Turismo> records = snapshot.readAll();
+            records.add(turismo);
+            replace(records);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean update(String id, Turismo turismo) throws IOException {
+        writeLock.lock();
+        try {
+            int position = snapshot.indexOf(id);
+            if (position < 0) {
+                return false;
+            }
+            List<Turismo> records = snapshot.readAll();
+            records.set(position, turismo);
+            replace(records);
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean delete(String id) throws IOException {
+        writeLock.lock();
+        try {
+            int position = snapshot.indexOf(id);
+            if (position < 0) {
+                return false;
+            }
+            List<Turismo> records = snapshot.readAll();
+            records.remove(position);
+            replace(records);
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        return snapshot.size();
+    }
+
+    private void replace(List<Turismo> records) throws IOException {
+        TurismoSnapshot.write(records, snapshotPath);
+        snapshot = TurismoSnapshot.open(snapshotPath);
+    }
+}
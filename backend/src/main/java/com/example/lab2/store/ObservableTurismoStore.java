@@ -0,0 +1,221 @@
+package com.example.lab2.store;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+import com.example.lab2.Turismo;
+import com.example.lab2.jfr.LookupEvent;
+
+/**
+ * Store decorator that reports every successful mutation to its listeners.
+ *
+ * Mutations hold a lock striped by id while they read the previous value, apply the
+ * change and notify, so listeners always see a consistent before/after pair without
+ * serializing writes to different ids.
+ *
+ * Changes applied elsewhere (another cluster node) can be passed to the listeners with
+ * publish, under the same lock. Listeners registered with subscribeLocal only hear about
+ * mutations made through this store.
+ *
+ * Lookups by id and by comunidad are timed as LookupEvents.
+ */
+public class ObservableTurismoStore implements TurismoStore {
+
+    private static final int STRIPES = 64;
+
+    private final TurismoStore delegate;
+    private final List<StoreListener> listeners = new CopyOnWriteArrayList<>();
+    private final List<StoreListener> localListeners = new CopyOnWriteArrayList<>();
+    private final ReentrantLock[] stripes = new ReentrantLock[STRIPES];
+    private final AtomicInteger inProgress = new AtomicInteger();
+
+    public ObservableTurismoStore(TurismoStore delegate) {
+        this.delegate = delegate;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Register a listener and replay the current records to it as additions.
+     * Meant for startup, before the store takes traffic.
+     */
+    public void addListener(StoreListener listener) {
+        delegate.forEach(listener::onAdd);
+        listeners.add(listener);
+    }
+
+    /**
+     * Register a listener for changes from now on, without replaying current records.
+     */
+    public void subscribe(StoreListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Register a listener for mutations made through this store from now on, not for
+     * published changes.
+     */
+    public void subscribeLocal(StoreListener listener) {
+        localListeners.add(listener);
+    }
+
+    /**
+     * Pass a change applied outside this store to the listeners: previous is null for an
+     * add and current is null for a delete.
+     */
+    public void publish(Turismo previous, Turismo current) {
+        String id = current != null ? current.get_id() : previous.get_id();
+        ReentrantLock lock = stripe(id);
+        lock.lock();
+        inProgress.incrementAndGet();
+        try {
+            fire(listeners, previous, current);
+        } finally {
+            inProgress.decrementAndGet();
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Number of mutations (published changes included) applied or being applied whose
+     * listeners have not all returned yet.
+     */
+    public int mutationsInProgress() {
+        return inProgress.get();
+    }
+
+    @Override
+    public List<Turismo> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public boolean insertionOrdered() {
+        return delegate.insertionOrdered();
+    }
+
+    @Override
+    public void forEach(Consumer<? super Turismo> action) {
+        delegate.forEach(action);
+    }
+
+    @Override
+    public List<Turismo> findRange(int offset, int limit) {
+        return delegate.findRange(offset, limit);
+    }
+
+    @Override
+    public Turismo findById(String id) {
+        LookupEvent event = new LookupEvent();
+        event.begin();
+        Turismo turismo = delegate.findById(id);
+        event.end();
+        if (event.shouldCommit()) {
+            event.operation = "findById";
+            event.key = id;
+            event.results = turismo != null ? 1 : 0;
+            event.commit();
+        }
+        return turismo;
+    }
+
+    @Override
+    public List<Turismo> findByComunidad(String comunidad) {
+        LookupEvent event = new LookupEvent();
+        event.begin();
+        List<Turismo> result = delegate.findByComunidad(comunidad);
+        event.end();
+        if (event.shouldCommit()) {
+            event.operation = "findByComunidad";
+            event.key = comunidad;
+            event.results = result.size();
+            event.commit();
+        }
+        return result;
+    }
+
+    @Override
+    public void add(Turismo turismo) throws IOException {
+        ReentrantLock lock = stripe(turismo.get_id());
+        lock.lock();
+        inProgress.incrementAndGet();
+        try {
+            Turismo previous = delegate.findById(turismo.get_id());
+            delegate.add(turismo);
+            fire(listeners, previous, turismo);
+            fire(localListeners, previous, turismo);
+        } finally {
+            inProgress.decrementAndGet();
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean update(String id, Turismo turismo) throws IOException {
+        ReentrantLock lock = stripe(id);
+        lock.lock();
+        inProgress.incrementAndGet();
+        try {
+            Turismo previous = delegate.findById(id);
+            if (previous == null || !delegate.update(id, turismo)) {
+                return false;
+            }
+            fire(listeners, previous, turismo);
+            fire(localListeners, previous, turismo);
+            return true;
+        } finally {
+            inProgress.decrementAndGet();
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean delete(String id) throws IOException {
+        ReentrantLock lock = stripe(id);
+        lock.lock();
+        inProgress.incrementAndGet();
+        try {
+            Turismo previous = delegate.findById(id);
+            if (previous == null || !delegate.delete(id)) {
+                return false;
+            }
+            fire(listeners, previous, null);
+            fire(localListeners, previous, null);
+            return true;
+        } finally {
+            inProgress.decrementAndGet();
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        return delegate.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        delegate.close();
+    }
+
+    private static void fire(List<StoreListener> listeners, Turismo previous, Turismo current) {
+        for (StoreListener listener : listeners) {
+            if (previous == null) {
+                listener.onAdd(current);
+            } else if (current == null) {
+                listener.onDelete(previous);
+            } else {
+                listener.onUpdate(previous, current);
+            }
+        }
+    }
+
+    private ReentrantLock stripe(String id) {
+        return stripes[Math.floorMod(id != null ? id.hashCode() : 0, STRIPES)];
+    }
+}
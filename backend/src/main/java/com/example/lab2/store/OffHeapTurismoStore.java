@@ -0,0 +1,586 @@
+package com.example.lab2.store;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+import com.example.lab2.Turismo;
+import com.example.lab2.codec.TurismoCodec;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * Store that keeps record payloads outside the Java heap.
+ *
+ * Every record lives in a fixed-size slot of a direct ByteBuffer chunk:
+ * <pre>
+ *   [0, 4)    total
+ *   [4, 32)   dictionary refs: from comunidad/provincia, to comunidad/provincia,
+ *             fecha_inicio, fecha_fin, period (-1 for null)
+ *   [32, 36)  hash of the id
+ *   [36, 38)  id length in bytes, -1 for a free slot, -2 for an id kept on the heap
+ *   [38, 88)  id, UTF-8
+ *   [88, 92)  previous slot in insertion order, -1 for the first
+ *   [92, 96)  next slot in insertion order, -1 for the last; next free slot when free
+ * </pre>
+ * Deleted slots go on a free list, linked through their next field, and are reused
+ * before a new chunk is allocated. Insertion order is kept apart from slot order by
+ * linking the slots in a doubly-linked list, so findAll follows the links from the
+ * first record, a delete unlinks its slot in constant time and an update rewrites its
+ * slot in place. The heap only holds an open-addressing table of slot numbers keyed by
+ * id hash, the dictionary of comunidad, provincia and date strings, which stays small
+ * however many records there are, and the rare ids longer than MAX_ID_BYTES. Records are decoded into Turismo objects only when read: forEach,
+ * findRange and findByComunidad decode one slot at a time under the read lock, and
+ * findByComunidad compares dictionary refs so it decodes only the matches.
+ *
+ * The JSON file is streamed on load and on every save, so no full List is ever built.
+ * A save writes a temp file next to it and renames it over the original, so a failed
+ * save leaves the last complete file in place. In write-through mode every mutation
+ * saves before returning; in write-behind mode a WriteBehindFlusher saves once per
+ * burst of changes, at most maxLag after the first one, and close() saves what is left.
+ * Direct memory is limited by -XX:MaxDirectMemorySize (the max heap size by default).
+ */
+public class OffHeapTurismoStore implements TurismoStore {
+
+    static final int SLOT_BYTES = 96;
+    static final int MAX_ID_BYTES = 50;
+    static final int CHUNK_SLOTS = 16_384;
+
+    private static final int TOTAL = 0;
+    private static final int REFS = 4;
+    private static final int REF_COUNT = 7;
+    private static final int TO_COMUNIDAD = REFS + 8;
+    private static final int ID_HASH = 32;
+    private static final int ID_LENGTH = 36;
+    private static final int ID = 38;
+    private static final int PREV = 88;
+    private static final int NEXT = 92;
+    private static final int NONE = -1;
+
+    private static final short FREE = -1;
+    private static final short LONG_ID = -2;
+
+    private final Path jsonFilePath;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final List<ByteBuffer> chunks = new ArrayList<>();
+    private int slotCount;
+    private int freeHead = NONE;
+    private int head = NONE;
+    private int tail = NONE;
+    private int size;
+
+    // Open addressing with linear probing: slot + 1 per bucket, 0 for an empty bucket
+    private int[] table = new int[1024];
+
+    private final Map<String, Integer> dictionary = new HashMap<>();
+    private final List<String> strings = new ArrayList<>();
+    private final Map<Integer, byte[]> longIds = new HashMap<>();
+
+    private final WriteBehindFlusher flusher;
+
+    public OffHeapTurismoStore(Path jsonFilePath) throws IOException {
+        this(jsonFilePath, null, null);
+    }
+
+    /**
+     * Write-behind store; a null flushInterval gives write-through.
+     */
+    public OffHeapTurismoStore(Path jsonFilePath, Duration flushInterval, Duration maxLag) throws IOException {
+        this.jsonFilePath = jsonFilePath;
+        loadRecords();
+        this.flusher = flushInterval != null
+                ? new WriteBehindFlusher("turismo-offheap-flusher", flushInterval, maxLag, this::flush)
+                : null;
+    }
+
+    @Override
+    public List<Turismo> findAll() {
+        lock.readLock().lock();
+        try {
+            List<Turismo> records = new ArrayList<>(size);
+            for (int slot = head; slot != NONE; slot = next(slot)) {
+                records.add(decode(slot));
+            }
+            return records;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Runs action under the read lock, so action must not modify the store.
+     */
+    @Override
+    public void forEach(Consumer<? super Turismo> action) {
+        lock.readLock().lock();
+        try {
+            for (int slot = head; slot != NONE; slot = next(slot)) {
+                action.accept(decode(slot));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Turismo> findRange(int offset, int limit) {
+        lock.readLock().lock();
+        try {
+            List<Turismo> records = new ArrayList<>(Math.max(0, Math.min(limit, size - offset)));
+            int skipped = 0;
+            for (int slot = head; slot != NONE && records.size() < limit; slot = next(slot)) {
+                // Los registros anteriores a offset se saltan sin decodificar
+                if (skipped < offset) {
+                    skipped++;
+                } else {
+                    records.add(decode(slot));
+                }
+            }
+            return records;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Turismo> findByComunidad(String comunidad) {
+        lock.readLock().lock();
+        try {
+            List<Turismo> records = new ArrayList<>();
+            Integer ref = dictionary.get(comunidad);
+            if (ref == null) {
+                return records;
+            }
+            for (int slot = head; slot != NONE; slot = next(slot)) {
+                if (chunk(slot).getInt(base(slot) + TO_COMUNIDAD) == ref) {
+                    records.add(decode(slot));
+                }
+            }
+            return records;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Turismo findById(String id) {
+        if (id == null) {
+            return null;
+        }
+        lock.readLock().lock();
+        try {
+            int bucket = find(id.getBytes(StandardCharsets.UTF_8));
+            return bucket < 0 ? null : decode(table[bucket] - 1);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void add(Turismo turismo) throws IOException {
+        lock.writeLock().lock();
+        try {
+            put(turismo);
+            persist();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean update(String id, Turismo turismo) throws IOException {
+        lock.writeLock().lock();
+        try {
+            int bucket = find(id.getBytes(StandardCharsets.UTF_8));
+            if (bucket < 0) {
+                return false;
+            }
+            write(table[bucket] - 1, turismo);
+            persist();
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean delete(String id) throws IOException {
+        lock.writeLock().lock();
+        try {
+            int bucket = find(id.getBytes(StandardCharsets.UTF_8));
+            if (bucket < 0) {
+                return false;
+            }
+            int slot = table[bucket] - 1;
+            removeBucket(bucket);
+            unlink(slot);
+            chunk(slot).putShort(base(slot) + ID_LENGTH, FREE);
+            longIds.remove(slot);
+            setNext(slot, freeHead);
+            freeHead = slot;
+            size--;
+            persist();
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (flusher != null) {
+            flusher.close();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Number of slots handed out so far, free ones included.
+     */
+    int slotCount() {
+        lock.readLock().lock();
+        try {
+            return slotCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void put(Turismo turismo) {
+        byte[] id = turismo.get_id().getBytes(StandardCharsets.UTF_8);
+        int bucket = find(id);
+        if (bucket >= 0) {
+            write(table[bucket] - 1, turismo);
+            return;
+        }
+        int slot = allocate();
+        write(slot, turismo);
+        link(slot);
+        if ((size + 1) * 2 > table.length) {
+            resize(table.length * 2);
+        }
+        insert(slot, hash(id));
+        size++;
+    }
+
+    private int allocate() {
+        if (freeHead != NONE) {
+            int slot = freeHead;
+            freeHead = next(slot);
+            return slot;
+        }
+        if (slotCount == chunks.size() * CHUNK_SLOTS) {
+            chunks.add(ByteBuffer.allocateDirect(CHUNK_SLOTS * SLOT_BYTES));
+        }
+        return slotCount++;
+    }
+
+    private ByteBuffer chunk(int slot) {
+        return chunks.get(slot / CHUNK_SLOTS);
+    }
+
+    private static int base(int slot) {
+        return (slot % CHUNK_SLOTS) * SLOT_BYTES;
+    }
+
+    private int next(int slot) {
+        return chunk(slot).getInt(base(slot) + NEXT);
+    }
+
+    private void setNext(int slot, int next) {
+        chunk(slot).putInt(base(slot) + NEXT, next);
+    }
+
+    private int prev(int slot) {
+        return chunk(slot).getInt(base(slot) + PREV);
+    }
+
+    private void setPrev(int slot, int prev) {
+        chunk(slot).putInt(base(slot) + PREV, prev);
+    }
+
+    /**
+     * Append the slot to the insertion order.
+     */
+    private void link(int slot) {
+        setPrev(slot, tail);
+        setNext(slot, NONE);
+        if (tail != NONE) {
+            setNext(tail, slot);
+        } else {
+            head = slot;
+        }
+        tail = slot;
+    }
+
+    private void unlink(int slot) {
+        int prev = prev(slot);
+        int next = next(slot);
+        if (prev != NONE) {
+            setNext(prev, next);
+        } else {
+            head = next;
+        }
+        if (next != NONE) {
+            setPrev(next, prev);
+        } else {
+            tail = prev;
+        }
+    }
+
+    private void write(int slot, Turismo turismo) {
+        ByteBuffer chunk = chunk(slot);
+        int base = base(slot);
+        Turismo.FromTo from = turismo.getFrom();
+        Turismo.FromTo to = turismo.getTo();
+        Turismo.TimeRange timeRange = turismo.getTimeRange();
+        chunk.putInt(base + TOTAL, turismo.getTotal());
+        chunk.putInt(base + REFS, ref(from != null ? from.getComunidad() : null));
+        chunk.putInt(base + REFS + 4, ref(from != null ? from.getProvincia() : null));
+        chunk.putInt(base + REFS + 8, ref(to != null ? to.getComunidad() : null));
+        chunk.putInt(base + REFS + 12, ref(to != null ? to.getProvincia() : null));
+        chunk.putInt(base + REFS + 16, ref(timeRange != null ? timeRange.getFecha_inicio() : null));
+        chunk.putInt(base + REFS + 20, ref(timeRange != null ? timeRange.getFecha_fin() : null));
+        chunk.putInt(base + REFS + 24, ref(timeRange != null ? timeRange.getPeriod() : null));
+        byte[] id = turismo.get_id().getBytes(StandardCharsets.UTF_8);
+        chunk.putInt(base + ID_HASH, hash(id));
+        if (id.length > MAX_ID_BYTES) {
+            // No cabe en el slot: se guarda en el heap
+            chunk.putShort(base + ID_LENGTH, LONG_ID);
+            longIds.put(slot, id);
+        } else {
+            chunk.putShort(base + ID_LENGTH, (short) id.length);
+            chunk.put(base + ID, id);
+            longIds.remove(slot);
+        }
+    }
+
+    private Turismo decode(int slot) {
+        ByteBuffer chunk = chunk(slot);
+        int base = base(slot);
+        int[] refs = new int[REF_COUNT];
+        for (int i = 0; i < REF_COUNT; i++) {
+            refs[i] = chunk.getInt(base + REFS + i * 4);
+        }
+        Turismo turismo = new Turismo();
+        turismo.set_id(readId(slot));
+        turismo.setFrom(fromTo(refs[0], refs[1]));
+        turismo.setTo(fromTo(refs[2], refs[3]));
+        if (refs[4] != -1 || refs[5] != -1 || refs[6] != -1) {
+            Turismo.TimeRange timeRange = new Turismo.TimeRange();
+            timeRange.setFecha_inicio(string(refs[4]));
+            timeRange.setFecha_fin(string(refs[5]));
+            timeRange.setPeriod(string(refs[6]));
+            turismo.setTimeRange(timeRange);
+        }
+        turismo.setTotal(chunk.getInt(base + TOTAL));
+        return turismo;
+    }
+
+    private Turismo.FromTo fromTo(int comunidad, int provincia) {
+        if (comunidad == -1 && provincia == -1) {
+            return null;
+        }
+        Turismo.FromTo fromTo = new Turismo.FromTo();
+        fromTo.setComunidad(string(comunidad));
+        fromTo.setProvincia(string(provincia));
+        return fromTo;
+    }
+
+    private String readId(int slot) {
+        ByteBuffer chunk = chunk(slot);
+        int base = base(slot);
+        short length = chunk.getShort(base + ID_LENGTH);
+        if (length == LONG_ID) {
+            return new String(longIds.get(slot), StandardCharsets.UTF_8);
+        }
+        byte[] id = new byte[length];
+        chunk.get(base + ID, id);
+        return new String(id, StandardCharsets.UTF_8);
+    }
+
+    private int ref(String value) {
+        if (value == null) {
+            return -1;
+        }
+        Integer ref = dictionary.get(value);
+        if (ref == null) {
+            ref = strings.size();
+            strings.add(value);
+            dictionary.put(value, ref);
+        }
+        return ref;
+    }
+
+    private String string(int ref) {
+        return ref < 0 ? null : strings.get(ref);
+    }
+
+    private static int hash(byte[] id) {
+        int h = Arrays.hashCode(id);
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Bucket holding the given id, or -1.
+     */
+    private int find(byte[] id) {
+        int mask = table.length - 1;
+        int h = hash(id);
+        for (int bucket = h & mask; table[bucket] != 0; bucket = (bucket + 1) & mask) {
+            int slot = table[bucket] - 1;
+            if (chunk(slot).getInt(base(slot) + ID_HASH) == h && idEquals(slot, id)) {
+                return bucket;
+            }
+        }
+        return -1;
+    }
+
+    private boolean idEquals(int slot, byte[] id) {
+        ByteBuffer chunk = chunk(slot);
+        int base = base(slot);
+        short length = chunk.getShort(base + ID_LENGTH);
+        if (length == LONG_ID) {
+            return Arrays.equals(longIds.get(slot), id);
+        }
+        if (length != id.length) {
+            return false;
+        }
+        for (int i = 0; i < id.length; i++) {
+            if (chunk.get(base + ID + i) != id[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void insert(int slot, int h) {
+        int mask = table.length - 1;
+        int bucket = h & mask;
+        while (table[bucket] != 0) {
+            bucket = (bucket + 1) & mask;
+        }
+        table[bucket] = slot + 1;
+    }
+
+    private void resize(int capacity) {
+        int[] old = table;
+        table = new int[capacity];
+        for (int entry : old) {
+            if (entry != 0) {
+                int slot = entry - 1;
+                insert(slot, chunk(slot).getInt(base(slot) + ID_HASH));
+            }
+        }
+    }
+
+    /**
+     * Backward-shift deletion, so lookups never need tombstones.
+     */
+    private void removeBucket(int bucket) {
+        int mask = table.length - 1;
+        int hole = bucket;
+        table[hole] = 0;
+        for (int next = (hole + 1) & mask; table[next] != 0; next = (next + 1) & mask) {
+            int slot = table[next] - 1;
+            int home = chunk(slot).getInt(base(slot) + ID_HASH) & mask;
+            // The entry may move into the hole only if its home bucket is not in (hole, next]
+            boolean stays = hole <= next ? (hole < home && home <= next) : (hole < home || home <= next);
+            if (!stays) {
+                table[hole] = table[next];
+                table[next] = 0;
+                hole = next;
+            }
+        }
+    }
+
+    /**
+     * Stream records from the JSON file into off-heap slots.
+     */
+    private void loadRecords() throws IOException {
+        if (!Files.exists(jsonFilePath)) {
+            System.err.println("Records file not found: " + jsonFilePath);
+            return;
+        }
+        try (JsonParser parser = TurismoCodec.JSON.createParser(Files.newBufferedReader(jsonFilePath))) {
+            JsonToken token = parser.nextToken();
+            if (token == null || token == JsonToken.VALUE_NULL) {
+                return;
+            }
+            if (token != JsonToken.START_ARRAY) {
+                throw new IOException("Expected a JSON array in " + jsonFilePath);
+            }
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                Turismo turismo = TurismoCodec.read(parser);
+                // Records without an id could not be addressed by the API; give them one
+                if (turismo.get_id() == null) {
+                    turismo.set_id(UUID.randomUUID().toString());
+                }
+                put(turismo);
+            }
+        }
+    }
+
+    /**
+     * Stream records from off-heap slots to the JSON file.
+     */
+    private void saveRecords() throws IOException {
+        Path tmp = jsonFilePath.resolveSibling(jsonFilePath.getFileName() + ".tmp");
+        try (JsonGenerator generator = TurismoCodec.JSON.createGenerator(Files.newBufferedWriter(tmp))) {
+            generator.writeStartArray();
+            for (int slot = head; slot != NONE; slot = next(slot)) {
+                TurismoCodec.write(generator, decode(slot));
+            }
+            generator.writeEndArray();
+        }
+        Files.move(tmp, jsonFilePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Save records now (write-through) or leave them to the flusher (write-behind).
+     * Called with the write lock held.
+     */
+    private void persist() throws IOException {
+        if (flusher != null) {
+            flusher.markDirty();
+        } else {
+            saveRecords();
+        }
+    }
+
+    /**
+     * Save for the flusher, under the read lock so mutations wait but reads go on.
+     */
+    private void flush() throws IOException {
+        lock.readLock().lock();
+        try {
+            saveRecords();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,312 @@
+package com.example.lab2.store;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.example.lab2.Turismo;
+import com.example.lab2.codec.TurismoCodec;
+
+/**
+ * Store partitioned by destination comunidad (to.comunidad).
+ *
+ * Every comunidad is a shard: its own JsonFileTurismoStore with its own map, lock and
+ * file (shard-&lt;comunidad&gt;.json in the shard directory; records without a
+ * destination go to shard-.json). Writes to different comunidades take different locks
+ * and rewrite different files, so they run in parallel, and findByComunidad reads a
+ * single shard. An id-to-shard map routes findById, update and delete.
+ *
+ * The first time, when the directory has no shard files, it is seeded by splitting
+ * the single TurismoComunidades.json. findAll keeps one order across shards: the
+ * records loaded at startup by comunidad, then those added since in insertion order.
+ * An update keeps its record's place even when it moves the record to another shard.
+ * Callers serialize mutations of the same id (ObservableTurismoStore does), which keeps
+ * the id map consistent during such a move.
+ *
+ * A move writes the record to the new shard before deleting it from the old one. It is
+ * first noted in moves.log, so if the process stops in between, the next start keeps
+ * the copy in the new shard and deletes the other. The log is emptied on close, once
+ * every shard has been written.
+ */
+public class ShardedTurismoStore implements TurismoStore {
+
+    private static final String PREFIX = "shard-";
+    private static final String SUFFIX = ".json";
+    private static final String MOVES = "moves.log";
+
+    /**
+     * Where a record lives: its shard and its place in findAll.
+     */
+    private record Slot(String shard, long sequence) {
+    }
+
+    private final Path shardDirectory;
+    private final Duration flushInterval;
+    private final Duration maxLag;
+    private final Map<String, JsonFileTurismoStore> shards = new ConcurrentSkipListMap<>();
+    private final Map<String, Slot> slots = new ConcurrentHashMap<>();
+    // Orden de findAll, común a todos los shards
+    private final ConcurrentSkipListMap<Long, Turismo> ordered = new ConcurrentSkipListMap<>();
+    private final AtomicLong nextSequence = new AtomicLong();
+    private final ReentrantLock shardCreation = new ReentrantLock();
+    private final ReentrantLock movesLock = new ReentrantLock();
+    private final Writer moves;
+
+    /**
+     * Shards persist write-through when flushInterval is null, write-behind otherwise.
+     */
+    public ShardedTurismoStore(Path shardDirectory, Path seedJsonPath, Duration flushInterval, Duration maxLag)
+            throws IOException {
+        this.shardDirectory = shardDirectory;
+        this.flushInterval = flushInterval;
+        this.maxLag = maxLag;
+        Files.createDirectories(shardDirectory);
+        if (!hasShardFiles()) {
+            seed(seedJsonPath);
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(shardDirectory, PREFIX + "*" + SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                String key = URLDecoder.decode(name.substring(PREFIX.length(), name.length() - SUFFIX.length()),
+                        StandardCharsets.UTF_8);
+                shards.put(key, new JsonFileTurismoStore(file, flushInterval, maxLag));
+            }
+        }
+        load(readMoves());
+        this.moves = Files.newBufferedWriter(shardDirectory.resolve(MOVES), StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    @Override
+    public List<Turismo> findAll() {
+        return new ArrayList<>(ordered.values());
+    }
+
+    @Override
+    public Turismo findById(String id) {
+        Slot slot = slots.get(id);
+        return slot != null ? ordered.get(slot.sequence()) : null;
+    }
+
+    @Override
+    public List<Turismo> findByComunidad(String comunidad) {
+        JsonFileTurismoStore shard = shards.get(comunidad);
+        return shard != null ? shard.findAll() : new ArrayList<>();
+    }
+
+    @Override
+    public void add(Turismo turismo) throws IOException {
+        String key = shardKey(turismo);
+        Slot previous = slots.get(turismo.get_id());
+        if (previous != null && !previous.shard().equals(key)) {
+            // Un add con un id existente que cambia de comunidad es una mudanza
+            move(turismo.get_id(), previous, key, turismo);
+            return;
+        }
+        shard(key).add(turismo);
+        long sequence = previous != null ? previous.sequence() : nextSequence.getAndIncrement();
+        slots.put(turismo.get_id(), new Slot(key, sequence));
+        ordered.put(sequence, turismo);
+    }
+
+    @Override
+    public boolean update(String id, Turismo turismo) throws IOException {
+        Slot slot = slots.get(id);
+        if (slot == null) {
+            return false;
+        }
+        String target = shardKey(turismo);
+        if (slot.shard().equals(target)) {
+            if (!shards.get(target).update(id, turismo)) {
+                return false;
+            }
+            ordered.put(slot.sequence(), turismo);
+            return true;
+        }
+        move(id, slot, target, turismo);
+        return true;
+    }
+
+    @Override
+    public boolean delete(String id) throws IOException {
+        Slot slot = slots.remove(id);
+        if (slot == null) {
+            return false;
+        }
+        ordered.remove(slot.sequence());
+        return shards.get(slot.shard()).delete(id);
+    }
+
+    @Override
+    public int size() {
+        return ordered.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        IOException failure = null;
+        for (JsonFileTurismoStore shard : shards.values()) {
+            try {
+                shard.close();
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        movesLock.lock();
+        try {
+            moves.close();
+            // Todos los shards están escritos: ninguna mudanza queda a medias
+            if (failure == null) {
+                Files.write(shardDirectory.resolve(MOVES), new byte[0]);
+            }
+        } finally {
+            movesLock.unlock();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Number of shards, for tests.
+     */
+    int shardCount() {
+        return shards.size();
+    }
+
+    /**
+     * Move a record to the target shard, keeping its place in findAll. The move is logged
+     * first, then written to the new shard, then deleted from the old one.
+     */
+    private void move(String id, Slot from, String target, Turismo turismo) throws IOException {
+        movesLock.lock();
+        try {
+            moves.write(URLEncoder.encode(id, StandardCharsets.UTF_8) + "\t"
+                    + URLEncoder.encode(target, StandardCharsets.UTF_8) + "\n");
+            moves.flush();
+        } finally {
+            movesLock.unlock();
+        }
+        shard(target).add(turismo);
+        slots.put(id, new Slot(target, from.sequence()));
+        ordered.put(from.sequence(), turismo);
+        shards.get(from.shard()).delete(id);
+    }
+
+    /**
+     * Index the loaded shards. An id found in two shards is a move cut short: the copy in
+     * the shard moves.log names is kept, or the first one if the log does not name it,
+     * and the other is deleted.
+     */
+    private void load(Map<String, String> movedTo) throws IOException {
+        for (Map.Entry<String, JsonFileTurismoStore> entry : shards.entrySet()) {
+            String key = entry.getKey();
+            for (Turismo turismo : entry.getValue().findAll()) {
+                String id = turismo.get_id();
+                Slot existing = slots.get(id);
+                if (existing == null) {
+                    long sequence = nextSequence.getAndIncrement();
+                    slots.put(id, new Slot(key, sequence));
+                    ordered.put(sequence, turismo);
+                } else if (key.equals(movedTo.get(id))) {
+                    shards.get(existing.shard()).delete(id);
+                    slots.put(id, new Slot(key, existing.sequence()));
+                    ordered.put(existing.sequence(), turismo);
+                } else {
+                    entry.getValue().delete(id);
+                }
+            }
+        }
+    }
+
+    /**
+     * Target shard of each logged move, the last one per id.
+     */
+    private Map<String, String> readMoves() throws IOException {
+        Map<String, String> movedTo = new HashMap<>();
+        Path path = shardDirectory.resolve(MOVES);
+        if (!Files.exists(path)) {
+            return movedTo;
+        }
+        for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+            int tab = line.indexOf('\t');
+            if (tab > 0) {
+                movedTo.put(URLDecoder.decode(line.substring(0, tab), StandardCharsets.UTF_8),
+                        URLDecoder.decode(line.substring(tab + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return movedTo;
+    }
+
+    private JsonFileTurismoStore shard(String key) throws IOException {
+        JsonFileTurismoStore shard = shards.get(key);
+        if (shard != null) {
+            return shard;
+        }
+        shardCreation.lock();
+        try {
+            shard = shards.get(key);
+            if (shard == null) {
+                Path file = shardFile(key);
+                TurismoCodec.writeJsonFile(file, List.of());
+                shard = new JsonFileTurismoStore(file, flushInterval, maxLag);
+                shards.put(key, shard);
+            }
+            return shard;
+        } finally {
+            shardCreation.unlock();
+        }
+    }
+
+    private void seed(Path seedJsonPath) throws IOException {
+        if (!Files.exists(seedJsonPath)) {
+            System.err.println("Records file not found: " + seedJsonPath);
+            return;
+        }
+        Map<String, List<Turismo>> byShard = new LinkedHashMap<>();
+        for (Turismo turismo : TurismoCodec.readJsonFile(seedJsonPath)) {
+            // Records without an id could not be addressed by the API; give them one
+            if (turismo.get_id() == null) {
+                turismo.set_id(UUID.randomUUID().toString());
+            }
+            byShard.computeIfAbsent(shardKey(turismo), k -> new ArrayList<>()).add(turismo);
+        }
+        for (Map.Entry<String, List<Turismo>> entry : byShard.entrySet()) {
+            TurismoCodec.writeJsonFile(shardFile(entry.getKey()), entry.getValue());
+        }
+    }
+
+    private boolean hasShardFiles() throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(shardDirectory, PREFIX + "*" + SUFFIX)) {
+            return files.iterator().hasNext();
+        }
+    }
+
+    private Path shardFile(String key) {
+        return shardDirectory.resolve(PREFIX + URLEncoder.encode(key, StandardCharsets.UTF_8) + SUFFIX);
+    }
+
+    private static String shardKey(Turismo turismo) {
+        if (turismo.getTo() == null || turismo.getTo().getComunidad() == null) {
+            return "";
+        }
+        return turismo.getTo().getComunidad();
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.lab2.store;
+
+import java.nio.file.Path;
+
+/**
+ * Command line conversion between TurismoComunidades.json and the binary snapshot.
+ *
+ * Usage from the fat jar:
+ * <pre>
+ *   java -cp lab2-0.0.1-SNAPSHOT.jar -Dloader.main=com.example.lab2.store.SnapshotTool \
+ *        org.springframework.boot.loader.launch.PropertiesLauncher import &lt;json&gt; &lt;snapshot&gt;
+ *   ... export &lt;snapshot&gt; &lt;json&gt;
+ * </pre>
+ */
+public class SnapshotTool {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length != 3) {
+            System.err.println("Usage: SnapshotTool import <json> <snapshot> | export <snapshot> <json>");
+            System.exit(1);
+        }
+        switch (args[0]) {
+            case "import":
+                TurismoSnapshot.importJson(Path.of(args[1]), Path.of(args[2]));
+                break;
+            case "export":
+                TurismoSnapshot.exportJson(Path.of(args[1]), Path.of(args[2]));
+                break;
+            default:
+                System.err.println("Unknown command: " + args[0]);
+                System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.lab2.store;
+
+import com.example.lab2.Turismo;
+
+/**
+ * Callback for derived structures that follow the contents of a store.
+ *
+ * Called after the mutation succeeded. Calls for the same id never overlap, but calls
+ * for different ids may arrive concurrently, so implementations must be thread-safe.
+ */
+public interface StoreListener {
+
+    void onAdd(Turismo turismo);
+
+    void onDelete(Turismo previous);
+
+    default void onUpdate(Turismo previous, Turismo current) {
+        onDelete(previous);
+        onAdd(current);
+    }
+}
@@ -0,0 +1,296 @@
+package com.example.lab2.store;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.example.lab2.Turismo;
+import com.example.lab2.codec.TurismoCodec;
+import com.example.lab2.jfr.PersistEvent;
+
+/**
+ * Read-only binary snapshot of the Turismo dataset, opened with FileChannel.map.
+ *
+ * Layout (big-endian, all offsets from the start of the file):
+ * <pre>
+ *   header   magic "TURS", version, record count, string count, index offset, dictionary offset
+ *   columns  one int column per field with one entry per record; string fields hold a
+ *            dictionary reference (-1 for null) and total holds the value itself
+ *   index    record positions sorted by _id, searched with a binary search
+ *   dict     one int offset per string, then every distinct string as length + UTF-8 bytes
+ * </pre>
+ * Opening a snapshot only checks the header, so startup cost does not grow with the
+ * dataset. Reads decode straight from the mapped page cache; decoded strings are kept
+ * so repeated comunidad/provincia/date values are built once.
+ */
+public final class TurismoSnapshot {
+
+    static final int MAGIC = 0x54555253; // "TURS"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 24;
+
+    static final int COL_ID = 0;
+    static final int COL_FROM_COMUNIDAD = 1;
+    static final int COL_FROM_PROVINCIA = 2;
+    static final int COL_TO_COMUNIDAD = 3;
+    static final int COL_TO_PROVINCIA = 4;
+    static final int COL_FECHA_INICIO = 5;
+    static final int COL_FECHA_FIN = 6;
+    static final int COL_PERIOD = 7;
+    static final int COL_TOTAL = 8;
+    static final int COLUMNS = 9;
+
+    private final ByteBuffer buffer;
+    private final int count;
+    private final int stringCount;
+    private final int indexOffset;
+    private final int dictOffset;
+    private final int dictDataOffset;
+    private final String[] decoded;
+
+    private TurismoSnapshot(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a Turismo snapshot");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("Unsupported snapshot version: " + buffer.getInt(4));
+        }
+        this.count = buffer.getInt(8);
+        this.stringCount = buffer.getInt(12);
+        this.indexOffset = buffer.getInt(16);
+        this.dictOffset = buffer.getInt(20);
+        this.dictDataOffset = dictOffset + stringCount * Integer.BYTES;
+        this.decoded = new String[stringCount];
+    }
+
+    /**
+     * Map a snapshot file. The mapping stays valid after the channel is closed.
+     */
+    public static TurismoSnapshot open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new TurismoSnapshot(buffer);
+        }
+    }
+
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Position of the record with the given id, or -1.
+     */
+    public int indexOf(String id) {
+        if (id == null) {
+            return -1;
+        }
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int position = buffer.getInt(indexOffset + mid * Integer.BYTES);
+            String midId = string(column(COL_ID, position));
+            int cmp = midId == null ? -1 : midId.compareTo(id);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return position;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Decode the record at the given position.
+     */
+    public Turismo get(int position) {
+        Turismo turismo = new Turismo();
+        turismo.set_id(string(column(COL_ID, position)));
+        turismo.setFrom(fromTo(column(COL_FROM_COMUNIDAD, position), column(COL_FROM_PROVINCIA, position)));
+        turismo.setTo(fromTo(column(COL_TO_COMUNIDAD, position), column(COL_TO_PROVINCIA, position)));
+        int inicio = column(COL_FECHA_INICIO, position);
+        int fin = column(COL_FECHA_FIN, position);
+        int period = column(COL_PERIOD, position);
+        if (inicio != -1 || fin != -1 || period != -1) {
+            Turismo.TimeRange timeRange = new Turismo.TimeRange();
+            timeRange.setFecha_inicio(string(inicio));
+            timeRange.setFecha_fin(string(fin));
+            timeRange.setPeriod(string(period));
+            turismo.setTimeRange(timeRange);
+        }
+        turismo.setTotal(column(COL_TOTAL, position));
+        return turismo;
+    }
+
+    /**
+     * Decode every record in file order.
+     */
+    public List<Turismo> readAll() {
+        List<Turismo> records = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            records.add(get(i));
+        }
+        return records;
+    }
+
+    /**
+     * Raw column value: a dictionary reference for string fields, the value for total.
+     */
+    int column(int column, int position) {
+        return buffer.getInt(HEADER_BYTES + (column * count + position) * Integer.BYTES);
+    }
+
+    /**
+     * Dictionary string for a reference, or null for -1.
+     */
+    String string(int ref) {
+        if (ref < 0) {
+            return null;
+        }
+        String value = decoded[ref];
+        if (value == null) {
+            int offset = dictDataOffset + buffer.getInt(dictOffset + ref * Integer.BYTES);
+            int length = buffer.getInt(offset);
+            byte[] bytes = new byte[length];
+            buffer.get(offset + Integer.BYTES, bytes);
+            value = new String(bytes, StandardCharsets.UTF_8);
+            // Benign race: two readers may decode the same entry, both get equal strings
+            decoded[ref] = value;
+        }
+        return value;
+    }
+
+    private Turismo.FromTo fromTo(int comunidad, int provincia) {
+        if (comunidad == -1 && provincia == -1) {
+            return null;
+        }
+        Turismo.FromTo fromTo = new Turismo.FromTo();
+        fromTo.setComunidad(string(comunidad));
+        fromTo.setProvincia(string(provincia));
+        return fromTo;
+    }
+
+    /**
+     * Write records as a snapshot. The file is written next to the target and moved into
+     * place, so readers never map a half-written snapshot.
+     */
+    public static void write(List<Turismo> records, Path path) throws IOException {
+        PersistEvent event = new PersistEvent();
+        event.begin();
+        int count = records.size();
+        Map<String, Integer> dictionary = new LinkedHashMap<>();
+        int[][] columns = new int[COLUMNS][count];
+        for (int i = 0; i < count; i++) {
+            Turismo turismo = records.get(i);
+            Turismo.FromTo from = turismo.getFrom();
+            Turismo.FromTo to = turismo.getTo();
+            Turismo.TimeRange timeRange = turismo.getTimeRange();
+            columns[COL_ID][i] = ref(dictionary, turismo.get_id());
+            columns[COL_FROM_COMUNIDAD][i] = ref(dictionary, from != null ? from.getComunidad() : null);
+            columns[COL_FROM_PROVINCIA][i] = ref(dictionary, from != null ? from.getProvincia() : null);
+            columns[COL_TO_COMUNIDAD][i] = ref(dictionary, to != null ? to.getComunidad() : null);
+            columns[COL_TO_PROVINCIA][i] = ref(dictionary, to != null ? to.getProvincia() : null);
+            columns[COL_FECHA_INICIO][i] = ref(dictionary, timeRange != null ? timeRange.getFecha_inicio() : null);
+            columns[COL_FECHA_FIN][i] = ref(dictionary, timeRange != null ? timeRange.getFecha_fin() : null);
+            columns[COL_PERIOD][i] = ref(dictionary, timeRange != null ? timeRange.getPeriod() : null);
+            columns[COL_TOTAL][i] = turismo.getTotal();
+        }
+
+        List<Integer> index = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            index.add(i);
+        }
+        index.sort(Comparator.comparing((Integer i) -> records.get(i).get_id(),
+                Comparator.nullsFirst(Comparator.naturalOrder())));
+
+        List<byte[]> strings = new ArrayList<>(dictionary.size());
+        for (String value : dictionary.keySet()) {
+            strings.add(value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        long indexOffset = HEADER_BYTES + (long) COLUMNS * count * Integer.BYTES;
+        long dictOffset = indexOffset + (long) count * Integer.BYTES;
+        long dictDataSize = 0;
+        for (byte[] bytes : strings) {
+            dictDataSize += Integer.BYTES + bytes.length;
+        }
+        if (dictOffset + (long) strings.size() * Integer.BYTES + dictDataSize > Integer.MAX_VALUE) {
+            throw new IOException("Dataset too large for a single snapshot file");
+        }
+
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (OutputStream file = Files.newOutputStream(tmp);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(count);
+            out.writeInt(strings.size());
+            out.writeInt((int) indexOffset);
+            out.writeInt((int) dictOffset);
+            for (int[] column : columns) {
+                for (int value : column) {
+                    out.writeInt(value);
+                }
+            }
+            for (int position : index) {
+                out.writeInt(position);
+            }
+            int offset = 0;
+            for (byte[] bytes : strings) {
+                out.writeInt(offset);
+                offset += Integer.BYTES + bytes.length;
+            }
+            for (byte[] bytes : strings) {
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        event.end();
+        if (event.shouldCommit()) {
+            event.kind = "snapshot";
+            event.file = path.toString();
+            event.records = count;
+            event.bytes = Files.size(path);
+            event.commit();
+        }
+    }
+
+    private static int ref(Map<String, Integer> dictionary, String value) {
+        if (value == null) {
+            return -1;
+        }
+        return dictionary.computeIfAbsent(value, v -> dictionary.size());
+    }
+
+    /**
+     * Convert a TurismoComunidades.json file into a snapshot.
+     */
+    public static void importJson(Path jsonPath, Path snapshotPath) throws IOException {
+        write(TurismoCodec.readJsonFile(jsonPath), snapshotPath);
+    }
+
+    /**
+     * Convert a snapshot back into the TurismoComunidades.json format.
+     */
+    public static void exportJson(Path snapshotPath, Path jsonPath) throws IOException {
+        TurismoCodec.writeJsonFile(jsonPath, open(snapshotPath).readAll());
+    }
+}
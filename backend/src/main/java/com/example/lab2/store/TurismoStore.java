@@ -0,0 +1,96 @@
+package com.example.lab2.store;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import com.example.lab2.Turismo;
+
+/**
+ * Storage for Turismo records, shared by every request instead of re-reading the data file.
+ *
+ * Implementations are thread-safe. Records handed out are never modified in place:
+ * update replaces the stored record, so callers may keep references they already read.
+ */
+public interface TurismoStore extends Closeable {
+
+    /**
+     * All records, in insertion order when insertionOrdered() is true. An update never
+     * moves a record within this order.
+     */
+    List<Turismo> findAll();
+
+    /**
+     * Whether findAll lists the records added since the store was opened in insertion
+     * order after the rest, so that an added record comes last. Stores with another
+     * order document it and return false.
+     */
+    default boolean insertionOrdered() {
+        return true;
+    }
+
+    /**
+     * Pass every record to action, in findAll order. Stores whose records are not all on
+     * the heap override this to decode one record at a time instead of building the list.
+     */
+    default void forEach(Consumer<? super Turismo> action) {
+        findAll().forEach(action);
+    }
+
+    /**
+     * The records at positions [offset, offset + limit) of findAll, fewer at the end.
+     */
+    default List<Turismo> findRange(int offset, int limit) {
+        List<Turismo> all = findAll();
+        int start = Math.min(offset, all.size());
+        int end = Math.min(start + limit, all.size());
+        return List.copyOf(all.subList(start, end));
+    }
+
+    /**
+     * The record with the given id, or null if there is none.
+     */
+    Turismo findById(String id);
+
+    /**
+     * Records whose destination (to.comunidad) is the given comunidad.
+     */
+    default List<Turismo> findByComunidad(String comunidad) {
+        List<Turismo> result = new ArrayList<>();
+        forEach(turismo -> {
+            if (turismo.getTo() != null && comunidad.equals(turismo.getTo().getComunidad())) {
+                result.add(turismo);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Add a record. The caller assigns the id.
+     */
+    void add(Turismo turismo) throws IOException;
+
+    /**
+     * Replace the record with the given id. Returns false if there is no such record.
+     */
+    boolean update(String id, Turismo turismo) throws IOException;
+
+    /**
+     * Delete the record with the given id. Returns false if there is no such record.
+     */
+    boolean delete(String id) throws IOException;
+
+    /**
+     * Number of records.
+     */
+    int size();
+
+    /**
+     * Write out anything still pending and release resources. Called on shutdown.
+     */
+    @Override
+    default void close() throws IOException {
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.lab2.store;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Background flusher for write-behind stores.
+ *
+ * Mutations call markDirty() and return. A single flusher thread waits until changes
+ * have stopped arriving for flushInterval, or until the oldest unflushed change is
+ * maxLag old, whichever comes first, and then runs one flush for everything that
+ * changed in between. A failed flush is logged and retried on the next round.
+ * close() stops the thread and runs a final flush if anything is still pending.
+ */
+public class WriteBehindFlusher implements Closeable {
+
+    /**
+     * Writes the current state out.
+     */
+    public interface Flush {
+        void run() throws IOException;
+    }
+
+    private final long intervalNanos;
+    private final long maxLagNanos;
+    private final Flush flush;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final Thread thread;
+    private boolean dirty;
+    private boolean closed;
+    private long firstDirty;
+    private long lastDirty;
+
+    public WriteBehindFlusher(String name, Duration flushInterval, Duration maxLag, Flush flush) {
+        if (flushInterval.isNegative() || maxLag.compareTo(flushInterval) < 0) {
+            throw new IllegalArgumentException("maxLag must be at least flushInterval");
+        }
+        this.intervalNanos = flushInterval.toNanos();
+        this.maxLagNanos = maxLag.toNanos();
+        this.flush = flush;
+        this.thread = Thread.ofPlatform().name(name).daemon().start(this::run);
+    }
+
+    /**
+     * Record that there are changes to write.
+     */
+    public void markDirty() {
+        lock.lock();
+        try {
+            long now = System.nanoTime();
+            if (!dirty) {
+                dirty = true;
+                firstDirty = now;
+                changed.signal();
+            }
+            lastDirty = now;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stop the flusher and write any pending changes before returning.
+     */
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            changed.signal();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        boolean pending;
+        lock.lock();
+        try {
+            pending = dirty;
+            dirty = false;
+        } finally {
+            lock.unlock();
+        }
+        if (pending) {
+            flush.run();
+        }
+    }
+
+    private void run() {
+        while (true) {
+            lock.lock();
+            try {
+                while (!dirty && !closed) {
+                    changed.await();
+                }
+                // Espera a que la ráfaga se calme, pero nunca más de maxLag desde el primer cambio
+                long wait;
+                while (!closed && (wait = deadline() - System.nanoTime()) > 0) {
+                    changed.awaitNanos(wait);
+                }
+                if (closed) {
+                    return;
+                }
+                dirty = false;
+            } catch (InterruptedException e) {
+                return;
+            } finally {
+                lock.unlock();
+            }
+            try {
+                flush.run();
+            } catch (IOException e) {
+                System.err.println("Error flushing records file: " + e.getMessage());
+                markDirty();
+            }
+        }
+    }
+
+    private long deadline() {
+        return Math.min(lastDirty + intervalNanos, firstDirty + maxLagNanos);
+    }
+}
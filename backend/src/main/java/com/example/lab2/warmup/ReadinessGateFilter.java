@@ -0,0 +1,55 @@
+package com.example.lab2.warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Answers 503 with Retry-After while the application does not accept traffic: during
+ * the warm-up, before it, and again while shutting down. Platforms that route as soon
+ * as the port is open (Heroku) would otherwise send users to a cold JVM.
+ *
+ * Requests whose WARM_UP_HEADER carries the token given at construction pass, so
+ * WarmUpRunner can call the API itself. The token is generated at every startup and
+ * never leaves the process, so clients cannot open the gate by sending the header.
+ */
+public class ReadinessGateFilter extends OncePerRequestFilter {
+
+    public static final String WARM_UP_HEADER = "X-Warm-Up";
+
+    private final ApplicationAvailability availability;
+    private final byte[] warmUpToken;
+
+    public ReadinessGateFilter(ApplicationAvailability availability, String warmUpToken) {
+        this.availability = availability;
+        this.warmUpToken = warmUpToken.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (availability.getReadinessState() != ReadinessState.ACCEPTING_TRAFFIC
+                && !isWarmUp(request.getHeader(WARM_UP_HEADER))) {
+            response.setStatus(503);
+            response.setHeader("Retry-After", "1");
+            response.setContentType("text/plain");
+            response.getWriter().write("Server starting, try again later.");
+            return;
+        }
+        chain.doFilter(request, response);
+    }
+
+    private boolean isWarmUp(String token) {
+        // Comparación en tiempo constante: no revela cuántos caracteres coinciden
+        return token != null && MessageDigest.isEqual(warmUpToken, token.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.lab2.warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ApplicationContext;
+
+import com.example.lab2.Turismo;
+import com.example.lab2.codec.TurismoCodec;
+import com.example.lab2.store.TurismoStore;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+
+/**
+ * Warms the JVM up before the application reports itself ready.
+ *
+ * Spring Boot runs ApplicationRunners after the context (and with it the store and its
+ * indexes) is loaded and only then sets the readiness state to ACCEPTING_TRAFFIC, so
+ * /actuator/health/readiness stays OUT_OF_SERVICE and ReadinessGateFilter keeps users
+ * out until this returns.
+ *
+ * Each round decodes and encodes the first SAMPLE_RECORDS records with TurismoCodec in
+ * JSON and Smile and calls the read endpoints of the API over loopback HTTP, so Tomcat, the filters, the
+ * message converters and the query paths are loaded and compiled by the JIT before the
+ * first real request. It stops after the given rounds or maxDuration, whichever comes
+ * first, and never modifies the store. The sample and most endpoints read a bounded
+ * number of records, but /query and /community/{comunidad} scan the whole store on their
+ * first call (later rounds are answered from the QueryCache). On stores larger than the
+ * heap (lsm mode) that first scan reads every record from disk. maxDuration is checked
+ * between rounds, so the first round always runs; each of its requests is cut off after
+ * the client's 10-second timeout (the scan itself goes on in the server).
+ */
+public class WarmUpRunner implements ApplicationRunner {
+
+    static final int SAMPLE_RECORDS = 10_000;
+
+    private final TurismoStore store;
+    private final ApplicationContext context;
+    private final int iterations;
+    private final Duration maxDuration;
+    private final String warmUpToken;
+
+    /**
+     * warmUpToken is sent in ReadinessGateFilter.WARM_UP_HEADER and must be the one the
+     * gate was built with.
+     */
+    public WarmUpRunner(TurismoStore store, ApplicationContext context, int iterations,
+                        Duration maxDuration, String warmUpToken) {
+        this.store = store;
+        this.context = context;
+        this.iterations = iterations;
+        this.maxDuration = maxDuration;
+        this.warmUpToken = warmUpToken;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long start = System.nanoTime();
+        long deadline = start + maxDuration.toNanos();
+        List<Turismo> records = store.findRange(0, SAMPLE_RECORDS);
+        // Sin servidor web (p. ej. tests con MockMvc) sólo se calienta el codec
+        String base = null;
+        if (context instanceof WebServerApplicationContext web && web.getWebServer() != null) {
+            base = "http://localhost:" + web.getWebServer().getPort();
+        }
+        List<String> paths = base != null ? paths(records) : List.of();
+        HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+        int round = 0;
+        int errors = 0;
+        while (round < iterations && System.nanoTime() < deadline) {
+            try {
+                exerciseCodec(records);
+                for (String path : paths) {
+                    get(http, base + path, "application/json");
+                    get(http, base + path, "application/x-jackson-smile");
+                }
+            } catch (IOException e) {
+                errors++;
+                System.err.println("Warm-up request failed: " + e.getMessage());
+                if (errors >= 3) {
+                    break;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            round++;
+        }
+        System.out.println("Warm-up done: " + round + " rounds over " + records.size() + " records in "
+                + Duration.ofNanos(System.nanoTime() - start).toMillis() + " ms");
+    }
+
+    /**
+     * The read endpoints, with parameters taken from the first record when there is one.
+     */
+    private static List<String> paths(List<Turismo> records) {
+        List<String> paths = new ArrayList<>();
+        paths.add("/api/turismo?page=0&size=20");
+        paths.add("/api/turismo/top-flows?n=10");
+        paths.add("/api/turismo/rollups?granularity=month");
+        paths.add("/api/turismo/query?metric=count&groupBy=to.comunidad");
+        paths.add("/api/turismo/places?q=a");
+        Turismo sample = records.isEmpty() ? null : records.get(0);
+        if (sample != null && sample.get_id() != null) {
+            paths.add("/api/turismo/" + encode(sample.get_id()));
+        }
+        if (sample != null && sample.getTo() != null && sample.getTo().getComunidad() != null) {
+            String comunidad = encode(sample.getTo().getComunidad());
+            paths.add("/api/turismo/community/" + comunidad);
+            paths.add("/api/turismo/query?toComunidad=" + comunidad + "&minTotal=0&metric=sum");
+        }
+        return paths;
+    }
+
+    private static void exerciseCodec(List<Turismo> records) throws IOException {
+        ByteArrayOutputStream json = new ByteArrayOutputStream(Math.max(256, records.size() * 256));
+        try (JsonGenerator generator = TurismoCodec.JSON.createGenerator(json)) {
+            TurismoCodec.writeList(generator, records);
+        }
+        try (JsonParser parser = TurismoCodec.JSON.createParser(json.toByteArray())) {
+            TurismoCodec.readList(parser);
+        }
+        try (JsonGenerator generator = TurismoCodec.SMILE.createGenerator(OutputStream.nullOutputStream())) {
+            TurismoCodec.writeList(generator, records);
+        }
+    }
+
+    private void get(HttpClient http, String url, String accept) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                .timeout(Duration.ofSeconds(10))
+                .header("Accept", accept)
+                .header("Accept-Encoding", "gzip")
+                .header(ReadinessGateFilter.WARM_UP_HEADER, warmUpToken)
+                .GET()
+                .build();
+        http.send(request, HttpResponse.BodyHandlers.discarding());
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8).replace("+", "%20");
+    }
+}
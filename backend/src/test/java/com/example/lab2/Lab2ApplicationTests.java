@@ -47,14 +47,14 @@ public class Lab2ApplicationTests {
     public void setup() throws Exception {
         gson = new Gson();
     
-        // Use test JSON file for controller
+        // Reset test JSON file before each test, before the store loads it
         String testJsonPath = "src/test/java/com/example/lab2/resources/test_TurismoComunidades.json";
-        turismoController = new TurismoController(testJsonPath);
-    
-        // Reset test JSON file before each test
         Path source = Paths.get("src/test/java/com/example/lab2/resources/original_test_data.json");
         Path destination = Paths.get(testJsonPath);
         Files.copy(source, destination, StandardCopyOption.REPLACE_EXISTING);
+
+        // Use test JSON file for controller
+        turismoController = new TurismoController(testJsonPath);
     
         // Configure MockMvc with the test-specific controller
         mockMvc = MockMvcBuilders.standaloneSetup(turismoController).build();
@@ -0,0 +1,203 @@
+package com.example.lab2;
+
+import com.example.lab2.codec.TurismoCodec;
+import com.example.lab2.dataset.DatasetGenerator;
+import com.example.lab2.query.FlowRanking;
+import com.example.lab2.query.PlaceIndex;
+import com.example.lab2.query.QueryCache;
+import com.example.lab2.query.ScanEngine;
+import com.example.lab2.query.VisitorRollups;
+import com.example.lab2.store.JsonFileTurismoStore;
+import com.example.lab2.store.ObservableTurismoStore;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Test;
+import org.springframework.http.ResponseEntity;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * ScaleTest
+ * Runs every API operation against generated datasets of increasing size and prints
+ * latency percentiles, throughput and heap per size.
+ *
+ * Each size gets a fresh DatasetGenerator file and the production wiring: a
+ * write-behind JSON store behind ObservableTurismoStore, the incremental query
+ * structures, the result cache and both controllers. Operations are called one after
+ * another on the test thread and every response body is encoded the way the HTTP layer
+ * would (TurismoCodec for records, Jackson for the rest), so the numbers are the
+ * server-side cost of a request without the network. Reads pick random existing ids,
+ * pages and comunidades; page, community and query results go through the cache as in
+ * production. Heap is the used heap after a full GC, once after loading and once after
+ * the operations.
+ *
+ * Sizes come from -Dturismo.scale.sizes (default 1000,10000,100000); 1M and up need a
+ * larger heap, e.g. -Xmx3g:
+ * <pre>
+ *   mvn test -Dtest=ScaleTest -Dturismo.scale.sizes=100000,1000000 -DargLine=-Xmx3g
+ * </pre>
+*/
+public class ScaleTest {
+
+    private static final int LIGHT_ITERATIONS = 500;
+    private static final long HEAVY_BUDGET = 2_000_000;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    /**
+     * Runs every operation at every configured size and prints one report per size.
+     * Verifies that every call succeeded.
+     */
+    @Test
+    public void testOperationsAtIncreasingSizes() throws Exception {
+        String sizes = System.getProperty("turismo.scale.sizes", "1000,10000,100000");
+        for (String size : sizes.split(",")) {
+            run(Integer.parseInt(size.trim()));
+        }
+    }
+
+    private void run(int size) throws Exception {
+        Path dir = Files.createTempDirectory("turismo-scale");
+        Path file = dir.resolve("turismo.json");
+        DatasetGenerator dataset = new DatasetGenerator(size, DatasetGenerator.DEFAULT_SEED);
+        dataset.write(file, DatasetGenerator.Format.JSON);
+        long fileBytes = Files.size(file);
+
+        long loadStart = System.nanoTime();
+        ObservableTurismoStore store = new ObservableTurismoStore(
+                new JsonFileTurismoStore(file, Duration.ofMillis(200), Duration.ofSeconds(2)));
+        FlowRanking flowRanking = new FlowRanking();
+        VisitorRollups visitorRollups = new VisitorRollups();
+        PlaceIndex placeIndex = new PlaceIndex();
+        store.addListener(flowRanking);
+        store.addListener(visitorRollups);
+        store.addListener(placeIndex);
+        QueryCache queryCache = new QueryCache(store, 100_000, Duration.ofMinutes(5), new SimpleMeterRegistry());
+        store.subscribe(queryCache);
+        long loadMillis = (System.nanoTime() - loadStart) / 1_000_000;
+        long loadedHeap = usedHeapAfterGc();
+
+        TurismoController controller = new TurismoController(store, queryCache);
+        TurismoQueryController queries = new TurismoQueryController(store, new ScanEngine(ForkJoinPool.commonPool()),
+                flowRanking, visitorRollups, placeIndex, queryCache);
+        List<String> comunidades = DatasetGenerator.comunidades();
+        SplittableRandom random = new SplittableRandom(42);
+        int heavy = (int) Math.max(3, Math.min(200, HEAVY_BUDGET / size));
+        List<String> report = new ArrayList<>();
+
+        report.add(measure("GET /api/turismo", heavy,
+                () -> controller.getAllOrPaginatedRecords(null, null)));
+        report.add(measure("GET /api/turismo?page&size=20", LIGHT_ITERATIONS,
+                () -> controller.getAllOrPaginatedRecords(random.nextInt(Math.max(1, size / 20)), 20)));
+        report.add(measure("GET /api/turismo/{id}", LIGHT_ITERATIONS,
+                () -> controller.getRecordById(dataset.record(random.nextInt(size)).get_id())));
+        report.add(measure("GET /community/{community}", heavy,
+                () -> controller.getRecordsByCommunity(comunidades.get(random.nextInt(comunidades.size())))));
+        report.add(measure("GET /query count by to.comunidad", heavy,
+                () -> queries.query(random.nextInt(1000), null, null, null, null, null, null, null, null,
+                        "to.comunidad", "count")));
+        report.add(measure("GET /query sum toComunidad+period", heavy,
+                () -> queries.query(null, null, null, comunidades.get(random.nextInt(comunidades.size())), null,
+                        null, String.format("%dM%02d", 2019 + random.nextInt(6), 1 + random.nextInt(12)),
+                        null, null, null, "sum")));
+        report.add(measure("GET /top-flows", LIGHT_ITERATIONS,
+                () -> queries.getTopFlows(10, null, "comunidad")));
+        report.add(measure("GET /rollups month", LIGHT_ITERATIONS,
+                () -> queries.getRollups("month", comunidades.get(random.nextInt(comunidades.size())), null, null)));
+        report.add(measure("GET /places", LIGHT_ITERATIONS,
+                () -> queries.searchPlaces(comunidades.get(random.nextInt(comunidades.size())).substring(0, 3),
+                        "comunidad", 0, 20)));
+
+        DatasetGenerator extra = new DatasetGenerator(LIGHT_ITERATIONS, DatasetGenerator.DEFAULT_SEED + 1);
+        int[] next = {0};
+        report.add(measure("POST /api/turismo", LIGHT_ITERATIONS,
+                () -> controller.addRecord(extra.record(next[0]++))));
+        report.add(measure("PUT /api/turismo/{id}", LIGHT_ITERATIONS, () -> {
+            Turismo turismo = dataset.record(random.nextInt(size));
+            turismo.setTotal(turismo.getTotal() + 1);
+            return controller.updateRecord(turismo.get_id(), turismo);
+        }));
+        int[] deleted = {0};
+        report.add(measure("DELETE /api/turismo/{id}", LIGHT_ITERATIONS,
+                () -> controller.deleteRecord(dataset.record(deleted[0]++).get_id())));
+
+        store.close();
+        long finalHeap = usedHeapAfterGc();
+
+        System.out.printf("%n=== %,d records (%,d MB JSON): load %,d ms, heap after load %,d MB, after run %,d MB%n",
+                size, fileBytes >> 20, loadMillis, loadedHeap >> 20, finalHeap >> 20);
+        System.out.printf("%-34s %6s %10s %10s %10s %12s%n", "operation", "calls", "p50 ms", "p99 ms", "max ms",
+                "ops/s");
+        report.forEach(System.out::println);
+
+        try (var files = Files.list(dir)) {
+            for (Path path : files.toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+        Files.deleteIfExists(dir);
+    }
+
+    private interface Operation {
+        ResponseEntity<?> call() throws Exception;
+    }
+
+    /**
+     * Run the operation the given number of times, encoding each body, and format one
+     * report line.
+     */
+    private String measure(String name, int iterations, Operation operation) throws Exception {
+        long[] latencies = new long[iterations];
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            long callStart = System.nanoTime();
+            ResponseEntity<?> response = operation.call();
+            encode(response.getBody());
+            latencies[i] = System.nanoTime() - callStart;
+            int status = response.getStatusCode().value();
+            assertTrue(name + " answered " + status, status == 200 || status == 404);
+        }
+        long wall = System.nanoTime() - start;
+        Arrays.sort(latencies);
+        return String.format("%-34s %6d %10.3f %10.3f %10.3f %12.0f", name, iterations,
+                latencies[iterations / 2] / 1e6, latencies[(int) Math.ceil(iterations * 0.99) - 1] / 1e6,
+                latencies[iterations - 1] / 1e6, iterations / (wall / 1e9));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void encode(Object body) throws IOException {
+        if (body instanceof Turismo || (body instanceof Collection<?> list && !list.isEmpty()
+                && list.iterator().next() instanceof Turismo)) {
+            try (JsonGenerator generator = TurismoCodec.JSON.createGenerator(OutputStream.nullOutputStream())) {
+                if (body instanceof Turismo turismo) {
+                    TurismoCodec.write(generator, turismo);
+                } else {
+                    TurismoCodec.writeList(generator, (Collection<Turismo>) body);
+                }
+            }
+        } else if (body != null) {
+            mapper.writeValue(OutputStream.nullOutputStream(), body);
+        }
+    }
+
+    private static long usedHeapAfterGc() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        System.gc();
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.lab2;
+
+import com.example.lab2.codec.TurismoCodec;
+import com.fasterxml.jackson.core.JsonParser;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * TestRecords
+ * Turismo records for the tests: record(id, to, total) for the usual one-destination
+ * record and builder(id) for anything else. Fields that are not set stay null, as in
+ * dataset records with missing data. The integration tests also send payload(to, total)
+ * over HTTP and read the answers with parse and parseList.
+*/
+public final class TestRecords {
+
+    private final Turismo turismo = new Turismo();
+
+    private TestRecords(String id) {
+        turismo.set_id(id);
+    }
+
+    /**
+     * A record going to the comunidad to (none when to is null) with the given total.
+     */
+    public static Turismo record(String id, String to, int total) {
+        return builder(id).to(to, null).total(total).build();
+    }
+
+    /**
+     * JSON body for POST or PUT /api/turismo: a record from Madrid to the comunidad to.
+     */
+    public static String payload(String to, int total) {
+        return "{\"from\":{\"comunidad\":\"Madrid\"},\"to\":{\"comunidad\":\"" + to + "\"},"
+                + "\"timeRange\":{\"fecha_inicio\":\"2024-01-01\"},\"total\":" + total + "}";
+    }
+
+    public static Turismo parse(String json) throws IOException {
+        try (JsonParser parser = TurismoCodec.JSON.createParser(json)) {
+            return TurismoCodec.read(parser);
+        }
+    }
+
+    public static List<Turismo> parseList(String json) throws IOException {
+        try (JsonParser parser = TurismoCodec.JSON.createParser(json)) {
+            return TurismoCodec.readList(parser);
+        }
+    }
+
+    public static TestRecords builder(String id) {
+        return new TestRecords(id);
+    }
+
+    public TestRecords from(String comunidad, String provincia) {
+        turismo.setFrom(place(comunidad, provincia));
+        return this;
+    }
+
+    public TestRecords to(String comunidad, String provincia) {
+        turismo.setTo(place(comunidad, provincia));
+        return this;
+    }
+
+    public TestRecords timeRange(String fechaInicio, String fechaFin, String period) {
+        Turismo.TimeRange timeRange = new Turismo.TimeRange();
+        timeRange.setFecha_inicio(fechaInicio);
+        timeRange.setFecha_fin(fechaFin);
+        timeRange.setPeriod(period);
+        turismo.setTimeRange(timeRange);
+        return this;
+    }
+
+    public TestRecords total(int total) {
+        turismo.setTotal(total);
+        return this;
+    }
+
+    public Turismo build() {
+        return turismo;
+    }
+
+    // Sin comunidad ni provincia no hay lugar, como en los registros incompletos del dataset
+    private static Turismo.FromTo place(String comunidad, String provincia) {
+        if (comunidad == null && provincia == null) {
+            return null;
+        }
+        Turismo.FromTo place = new Turismo.FromTo();
+        place.setComunidad(comunidad);
+        place.setProvincia(provincia);
+        return place;
+    }
+}
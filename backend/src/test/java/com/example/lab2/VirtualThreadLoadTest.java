@@ -0,0 +1,191 @@
+package com.example.lab2;
+
+import com.example.lab2.codec.TurismoCodec;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * VirtualThreadLoadTest
+ * Load test comparing the backend's two thread modes over HTTP: mvn test -Ploadtest.
+ *
+ * For each mode the application is booted on a random port with a write-through JSON
+ * store on a fresh copy of the same dataset: once with Tomcat's platform worker pool
+ * (spring.threads.virtual.enabled=false, server.tomcat.threads.max=200) and once with a
+ * virtual thread per request. CLIENTS concurrent clients, more than the platform pool
+ * has workers, then alternate PUT and GET on their own record, so every mutation blocks
+ * its server thread on the file rewrite and the reads queue behind it. Latency is
+ * measured by the client, so time spent waiting for a Tomcat worker counts.
+ *
+ * The test checks that every request in both modes returned 200 OK, that each record
+ * on disk holds its client's last update, and that the virtual mode's throughput is at
+ * least MIN_VIRTUAL_RATIO of the platform mode's. Throughput and p99 per mode are
+ * printed. Admission control and warm-up are off so neither shapes the load.
+*/
+public class VirtualThreadLoadTest {
+
+    private static final int RECORDS = 500;
+    private static final int CLIENTS = 400;
+    private static final int REQUESTS_PER_CLIENT = 10;
+    private static final int TOMCAT_DEFAULT_MAX_THREADS = 200;
+    // Las escrituras se serializan en el store, así que se exige no empeorar, no ganar
+    private static final double MIN_VIRTUAL_RATIO = 0.5;
+
+    private final HttpClient http = HttpClient.newBuilder()
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .build();
+    private final List<Path> files = new ArrayList<>();
+    private ConfigurableApplicationContext app;
+
+    @Before
+    public void setup() throws Exception {
+        Path dataset = Files.createTempFile("turismo-load", ".json");
+        files.add(dataset);
+        List<Turismo> records = new ArrayList<>();
+        for (int i = 0; i < RECORDS; i++) {
+            records.add(TestRecords.builder("id-" + i)
+                    .from("Comunidad " + (i % 17), "Provincia " + (i % 50))
+                    .to("Comunidad " + (i % 17), "Provincia " + (i % 50))
+                    .timeRange("2024-01-01", "2024-01-31", "2024M01")
+                    .total(i)
+                    .build());
+        }
+        TurismoCodec.writeJsonFile(dataset, records);
+    }
+
+    @After
+    public void cleanup() throws Exception {
+        if (app != null && app.isActive()) {
+            app.close();
+        }
+        for (Path file : files) {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * Runs the same mutation burst against a server in each thread mode and compares them.
+     */
+    @Test
+    public void testVirtualThreadsAgainstPlatformThreads() throws Exception {
+        // Calentamiento para que el primer modo medido no pague el JIT ni la carga de clases
+        run(false);
+
+        long[] platform = run(false);
+        long[] virtual = run(true);
+
+        double platformThroughput = report("platform(" + TOMCAT_DEFAULT_MAX_THREADS + ")", platform);
+        double virtualThroughput = report("virtual", virtual);
+        assertTrue("virtual " + virtualThroughput + " req/s against platform " + platformThroughput + " req/s",
+                virtualThroughput >= platformThroughput * MIN_VIRTUAL_RATIO);
+    }
+
+    /**
+     * Boots the application in the given thread mode on a copy of the dataset, runs the
+     * burst and checks the file. Returns the per-request latencies in nanoseconds, with
+     * the wall time of the whole burst in the last slot.
+     */
+    private long[] run(boolean virtualThreads) throws Exception {
+        Path file = Files.createTempFile("turismo-load-" + (virtualThreads ? "virtual" : "platform"), ".json");
+        files.add(file);
+        Files.copy(files.get(0), file, StandardCopyOption.REPLACE_EXISTING);
+        app = new SpringApplicationBuilder(Lab2Application.class).run(
+                "--server.port=0",
+                "--spring.threads.virtual.enabled=" + virtualThreads,
+                "--server.tomcat.threads.max=" + TOMCAT_DEFAULT_MAX_THREADS,
+                "--turismo.store.mode=json",
+                "--turismo.persistence.mode=write-through",
+                "--turismo.data.json=" + file,
+                "--turismo.admission.enabled=false",
+                "--turismo.warmup.enabled=false",
+                "--spring.devtools.restart.enabled=false");
+        String url = "http://localhost:" + ((WebServerApplicationContext) app).getWebServer().getPort()
+                + "/api/turismo/";
+
+        long[] result = new long[CLIENTS * REQUESTS_PER_CLIENT + 1];
+        List<Future<long[]>> futures = new ArrayList<>(CLIENTS);
+        long start = System.nanoTime();
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < CLIENTS; i++) {
+                int client = i;
+                futures.add(clients.submit(() -> client(url, client)));
+            }
+            for (int i = 0; i < CLIENTS; i++) {
+                System.arraycopy(futures.get(i).get(120, TimeUnit.SECONDS), 0,
+                        result, i * REQUESTS_PER_CLIENT, REQUESTS_PER_CLIENT);
+            }
+        }
+        result[result.length - 1] = System.nanoTime() - start;
+        app.close();
+
+        // Write-through: el fichero ya tiene la última actualización de cada cliente
+        Map<String, Integer> totals = new HashMap<>();
+        for (Turismo turismo : TurismoCodec.readJsonFile(file)) {
+            totals.put(turismo.get_id(), turismo.getTotal());
+        }
+        assertEquals(RECORDS, totals.size());
+        for (int client = 0; client < CLIENTS; client++) {
+            assertEquals(Integer.valueOf(total(client, REQUESTS_PER_CLIENT - 2)), totals.get("id-" + client));
+        }
+        return result;
+    }
+
+    /**
+     * One client's requests, PUT then GET on record id-client; returns their latencies.
+     */
+    private long[] client(String url, int client) throws Exception {
+        long[] latencies = new long[REQUESTS_PER_CLIENT];
+        for (int k = 0; k < REQUESTS_PER_CLIENT; k++) {
+            HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(url + "id-" + client))
+                    .header("Content-Type", "application/json");
+            if (k % 2 == 0) {
+                String body = TestRecords.payload("Comunidad " + (client % 17), total(client, k));
+                request.PUT(HttpRequest.BodyPublishers.ofString(body));
+            } else {
+                request.GET();
+            }
+            long sent = System.nanoTime();
+            HttpResponse<String> response = http.send(request.build(), HttpResponse.BodyHandlers.ofString());
+            latencies[k] = System.nanoTime() - sent;
+            assertEquals(200, response.statusCode());
+        }
+        return latencies;
+    }
+
+    private static int total(int client, int request) {
+        return client * 1000 + request;
+    }
+
+    private static double report(String mode, long[] result) {
+        int requests = result.length - 1;
+        long[] latencies = Arrays.copyOf(result, requests);
+        Arrays.sort(latencies);
+        long p99 = latencies[(int) Math.ceil(requests * 0.99) - 1];
+        double throughput = requests / (result[requests] / 1_000_000_000.0);
+        System.out.printf("%-14s throughput=%8.0f req/s  p99=%6.1f ms%n", mode, throughput, p99 / 1_000_000.0);
+        return throughput;
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.lab2.admission;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * MutationAdmissionFilterTest
+ * Verifies token bucket refill, the 429/503 rejections of the admission filter and how long
+ * admitted mutations hold their place.
+*/
+public class MutationAdmissionFilterTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * Tests that a bucket allows a burst, then reports the wait and refills at its rate.
+     */
+    @Test
+    public void testTokenBucket() {
+        TokenBucket bucket = new TokenBucket(2, 3, 0);
+        assertEquals(0, bucket.tryAcquire(0));
+        assertEquals(0, bucket.tryAcquire(0));
+        assertEquals(0, bucket.tryAcquire(0));
+        assertEquals(SECOND / 2, bucket.tryAcquire(0));
+        assertEquals(0, bucket.tryAcquire(SECOND / 2));
+    }
+
+    /**
+     * Tests that a client over its rate gets 429 with Retry-After while reads and other clients pass.
+     */
+    @Test
+    public void testRateLimitPerClient() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        MutationAdmissionFilter filter = new MutationAdmissionFilter(0.5, 2, 4, 4, Duration.ofSeconds(1), 1, true, registry);
+
+        assertEquals(200, run(filter, "POST", "10.0.0.1", (req, res) -> {}).getStatus());
+        assertEquals(200, run(filter, "PUT", "10.0.0.1", (req, res) -> {}).getStatus());
+        MockHttpServletResponse limited = run(filter, "DELETE", "10.0.0.1", (req, res) -> {});
+        assertEquals(429, limited.getStatus());
+        assertEquals("2", limited.getHeader("Retry-After"));
+
+        assertEquals(200, run(filter, "GET", "10.0.0.1", (req, res) -> {}).getStatus());
+        assertEquals(200, run(filter, "POST", "10.0.0.2", (req, res) -> {}).getStatus());
+
+        assertEquals(3.0, registry.get("turismo.admission.requests").tag("outcome", "accepted").counter().count(), 0);
+        assertEquals(1.0, registry.get("turismo.admission.requests").tag("outcome", "rate_limited").counter().count(), 0);
+    }
+
+    /**
+     * Tests that the client is the proxy's last X-Forwarded-For entry, so a forged first entry does not
+     * get a new bucket, and that the header is ignored unless the proxy is trusted.
+     */
+    @Test
+    public void testClientKey() throws Exception {
+        MutationAdmissionFilter trusted = new MutationAdmissionFilter(0.5, 1, 4, 4, Duration.ofSeconds(1), 1, true,
+                new SimpleMeterRegistry());
+        assertEquals(200, run(trusted, "POST", "10.0.0.1", (req, res) -> {}).getStatus());
+        MockHttpServletRequest forged = new MockHttpServletRequest("POST", "/api/turismo");
+        forged.addHeader("X-Forwarded-For", "1.2.3.4, 10.0.0.1");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        trusted.doFilter(forged, response, (req, res) -> {});
+        assertEquals(429, response.getStatus());
+
+        MutationAdmissionFilter direct = new MutationAdmissionFilter(0.5, 1, 4, 4, Duration.ofSeconds(1), 1, false,
+                new SimpleMeterRegistry());
+        assertEquals(200, run(direct, "POST", "10.0.0.1", (req, res) -> {}).getStatus());
+        assertEquals(429, run(direct, "POST", "10.0.0.2", (req, res) -> {}).getStatus());
+    }
+
+    /**
+     * Tests that mutations beyond the queue get 503 at once, and a queued one gets 503 after the timeout.
+     */
+    @Test
+    public void testQueueShedding() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        MutationAdmissionFilter filter = new MutationAdmissionFilter(1000, 1000, 1, 1, Duration.ofMillis(100), 3, true, registry);
+
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread slow = new Thread(() -> {
+            try {
+                run(filter, "POST", "10.0.0.1", (req, res) -> {
+                    running.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+            } catch (Throwable e) {
+                failure.compareAndSet(null, e);
+            }
+        });
+        slow.start();
+        running.await();
+
+        // Una petición espera en la cola y caduca; mientras espera, la cola está llena
+        AtomicReference<MockHttpServletResponse> timedOut = new AtomicReference<>();
+        Thread queued = new Thread(() -> {
+            try {
+                timedOut.set(run(filter, "POST", "10.0.0.3", (req, res) -> {}));
+            } catch (Throwable e) {
+                failure.compareAndSet(null, e);
+            }
+        });
+        queued.start();
+        while (registry.get("turismo.admission.queue").gauge().value() < 2) {
+            Thread.sleep(1);
+        }
+        MockHttpServletResponse full = run(filter, "PUT", "10.0.0.2", (req, res) -> {});
+        assertEquals(503, full.getStatus());
+        assertEquals("3", full.getHeader("Retry-After"));
+        queued.join();
+
+        release.countDown();
+        slow.join();
+        if (failure.get() != null) {
+            throw new AssertionError("Request thread failed", failure.get());
+        }
+        assertEquals(503, timedOut.get().getStatus());
+        assertEquals(1.0, registry.get("turismo.admission.requests").tag("outcome", "queue_full").counter().count(), 0);
+        assertEquals(1.0, registry.get("turismo.admission.requests").tag("outcome", "queue_timeout").counter().count(), 0);
+        assertEquals(0.0, registry.get("turismo.admission.queue").gauge().value(), 0);
+    }
+
+    /**
+     * Tests that an async mutation keeps its permit and queue place until its async work completes.
+     */
+    @Test
+    public void testAsyncHoldsPermitUntilComplete() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        MutationAdmissionFilter filter = new MutationAdmissionFilter(1000, 1000, 1, 0, Duration.ofMillis(50), 1, true, registry);
+
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/async/turismo");
+        request.setAsyncSupported(true);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, (req, res) -> req.startAsync());
+        assertEquals(200, response.getStatus());
+
+        // El hilo de la petición ya volvió, pero el trabajo asíncrono sigue ocupando el permiso
+        assertEquals(1.0, registry.get("turismo.admission.queue").gauge().value(), 0);
+        assertEquals(503, run(filter, "PUT", "10.0.0.2", (req, res) -> {}).getStatus());
+
+        request.getAsyncContext().complete();
+        assertEquals(0.0, registry.get("turismo.admission.queue").gauge().value(), 0);
+        assertEquals(200, run(filter, "PUT", "10.0.0.2", (req, res) -> {}).getStatus());
+    }
+
+    private static MockHttpServletResponse run(MutationAdmissionFilter filter, String method, String client,
+                                               FilterChain chain) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, "/api/turismo");
+        request.setRemoteAddr("10.9.9.9");
+        request.addHeader("X-Forwarded-For", "192.168.1.1, " + client);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.lab2.async;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+
+/**
+ * IoExecutorTest
+ * Verifies that the async API's I/O pool completes, rejects and times out queued tasks without blocking callers.
+*/
+public class IoExecutorTest {
+
+    /**
+     * Tests that a task's result completes the future on a pool thread.
+     */
+    @Test
+    public void testCompletes() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        try (IoExecutor executor = new IoExecutor(2, 4, Duration.ofSeconds(5), registry)) {
+            String thread = executor.submit(() -> Thread.currentThread().getName()).get(5, TimeUnit.SECONDS);
+            assertTrue(thread.startsWith("turismo-io-"));
+            assertEquals(1.0, registry.get("turismo.async.tasks").tag("outcome", "completed").counter().count(), 0);
+        }
+    }
+
+    /**
+     * Tests that with the worker busy and the queue full a task fails at once, that a
+     * queued task that times out is skipped, and that the running task is not timed out.
+     */
+    @Test
+    public void testRejectsAndTimesOut() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicBoolean queuedRan = new AtomicBoolean();
+        try (IoExecutor executor = new IoExecutor(1, 1, Duration.ofMillis(200), registry)) {
+            CompletableFuture<Object> running = executor.submit(() -> release.await(5, TimeUnit.SECONDS));
+            CompletableFuture<Object> queued = executor.submit(() -> queuedRan.getAndSet(true));
+
+            long start = System.nanoTime();
+            CompletableFuture<Object> rejected = executor.submit(() -> null);
+            assertTrue(rejected.isCompletedExceptionally());
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+            assertTrue(cause(rejected) instanceof RejectedExecutionException);
+
+            assertTrue(cause(queued) instanceof TimeoutException);
+            assertFalse(running.isDone());
+            release.countDown();
+            assertEquals(true, running.get(5, TimeUnit.SECONDS));
+            Thread.sleep(200);
+            assertFalse(queuedRan.get());
+
+            assertEquals(1.0, registry.get("turismo.async.tasks").tag("outcome", "rejected").counter().count(), 0);
+            assertEquals(1.0, registry.get("turismo.async.tasks").tag("outcome", "timeout").counter().count(), 0);
+        }
+    }
+
+    private static Throwable cause(CompletableFuture<?> future) throws InterruptedException {
+        try {
+            future.get(5, TimeUnit.SECONDS);
+            fail("Expected the task to fail");
+            return null;
+        } catch (ExecutionException e) {
+            return e.getCause();
+        } catch (TimeoutException e) {
+            throw new AssertionError("Task did not finish", e);
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package com.example.lab2.cluster;
+
+import com.example.lab2.Lab2Application;
+import com.example.lab2.Turismo;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static com.example.lab2.TestRecords.parse;
+import static com.example.lab2.TestRecords.parseList;
+import static com.example.lab2.TestRecords.payload;
+import static org.junit.Assert.*;
+
+/**
+ * ClusterIntegrationTest
+ * Boots three nodes on local ports and checks partition ownership, replication,
+ * request forwarding, failover to the follower when an owner stops, catch-up when it
+ * comes back, and that every node's derived structures follow every change.
+*/
+public class ClusterIntegrationTest {
+
+    private static final int NODES = 3;
+    private static final int RECORDS = 30;
+    private static final String SECRET = "test-secret";
+
+    private final HttpClient http = HttpClient.newHttpClient();
+    private final List<String> urls = new ArrayList<>();
+    private final List<Path> files = new ArrayList<>();
+    private final List<Integer> ports = new ArrayList<>();
+    private final ConfigurableApplicationContext[] nodes = new ConfigurableApplicationContext[NODES];
+    private ClusterTopology topology;
+
+    @Before
+    public void setup() throws Exception {
+        for (int i = 0; i < NODES; i++) {
+            try (ServerSocket socket = new ServerSocket(0)) {
+                ports.add(socket.getLocalPort());
+            }
+            urls.add("http://localhost:" + ports.get(i));
+            Path file = Files.createTempFile("turismo-node" + i, ".json");
+            Files.writeString(file, "[]");
+            files.add(file);
+        }
+        topology = new ClusterTopology(urls, 0);
+        for (int i = 0; i < NODES; i++) {
+            start(i);
+        }
+    }
+
+    private void start(int i) {
+        nodes[i] = new SpringApplicationBuilder(Lab2Application.class).run(
+                "--server.port=" + ports.get(i),
+                "--turismo.data.json=" + files.get(i),
+                "--turismo.cluster.enabled=true",
+                "--turismo.cluster.nodes=" + String.join(",", urls),
+                "--turismo.cluster.self=" + i,
+                "--turismo.cluster.secret=" + SECRET,
+                "--turismo.cluster.resync-interval=100ms",
+                "--turismo.admission.enabled=false",
+                "--turismo.warmup.enabled=false",
+                "--spring.devtools.restart.enabled=false");
+    }
+
+    @After
+    public void cleanup() throws Exception {
+        for (ConfigurableApplicationContext node : nodes) {
+            if (node != null && node.isActive()) {
+                node.close();
+            }
+        }
+        for (Path file : files) {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * Tests that records land on their owner and follower only, and that every node serves every record.
+     */
+    @Test
+    public void testRoutingAndReplication() throws Exception {
+        for (int i = 0; i < RECORDS; i++) {
+            assertEquals(200, send("POST", urls.get(i % NODES) + "/api/turismo", payload("Madrid", i)).statusCode());
+        }
+        for (String url : urls) {
+            assertEquals(RECORDS, records(url + "/api/turismo").size());
+        }
+
+        for (Turismo turismo : records(urls.get(0) + "/api/turismo")) {
+            int partition = topology.partition(turismo.get_id());
+            int owner = topology.owner(partition);
+            int follower = topology.follower(partition);
+            int other = 3 - owner - follower;
+            assertEquals(200, localStatus(owner, turismo.get_id()));
+            assertEquals(200, localStatus(follower, turismo.get_id()));
+            assertEquals(404, localStatus(other, turismo.get_id()));
+            // Cualquier nodo responde reenviando al propietario
+            assertEquals(200, send("GET", urls.get(other) + "/api/turismo/" + turismo.get_id(), null).statusCode());
+        }
+    }
+
+    /**
+     * Tests that paging walks the cluster partition by partition and that the partition counts add up.
+     */
+    @Test
+    public void testPagingAcrossPartitions() throws Exception {
+        for (int i = 0; i < RECORDS; i++) {
+            send("POST", urls.get(0) + "/api/turismo", payload("Madrid", i));
+        }
+        List<String> all = records(urls.get(1) + "/api/turismo").stream().map(Turismo::get_id).toList();
+        int counted = 0;
+        for (int partition = 0; partition < NODES; partition++) {
+            counted += Integer.parseInt(internal("GET", topology.owner(partition),
+                    "/partitions/" + partition + "/count").body());
+        }
+        assertEquals(RECORDS, counted);
+
+        List<String> paged = new ArrayList<>();
+        for (int page = 0; page * 7 < RECORDS; page++) {
+            records(urls.get(2) + "/api/turismo?page=" + page + "&size=7").forEach(t -> paged.add(t.get_id()));
+        }
+        assertEquals(all, paged);
+    }
+
+    /**
+     * Tests that with one node down its partition is still read, updated and deleted through the follower.
+     */
+    @Test
+    public void testFailoverToFollower() throws Exception {
+        for (int i = 0; i < RECORDS; i++) {
+            send("POST", urls.get(0) + "/api/turismo", payload("Galicia", i));
+        }
+        List<Turismo> all = records(urls.get(0) + "/api/turismo");
+        List<Turismo> ownedByTwo = all.stream()
+                .filter(t -> topology.owner(topology.partition(t.get_id())) == 2)
+                .collect(Collectors.toList());
+        assertFalse(ownedByTwo.isEmpty());
+
+        nodes[2].close();
+
+        assertEquals(RECORDS, records(urls.get(1) + "/api/turismo").size());
+        String id = ownedByTwo.get(0).get_id();
+        assertEquals(200, send("GET", urls.get(1) + "/api/turismo/" + id, null).statusCode());
+        assertEquals(200, send("PUT", urls.get(1) + "/api/turismo/" + id, payload("Galicia", 999)).statusCode());
+        Turismo updated = parse(send("GET", urls.get(0) + "/api/turismo/" + id, null).body());
+        assertEquals(999, updated.getTotal());
+
+        assertEquals(200, send("DELETE", urls.get(1) + "/api/turismo/" + id, null).statusCode());
+        assertEquals(404, send("GET", urls.get(1) + "/api/turismo/" + id, null).statusCode());
+        assertEquals(RECORDS - 1, records(urls.get(0) + "/api/turismo").size());
+    }
+
+    /**
+     * Tests that an owner that comes back takes the writes its follower accepted while it was down.
+     */
+    @Test
+    public void testReturningOwnerCatchesUp() throws Exception {
+        for (int i = 0; i < RECORDS; i++) {
+            send("POST", urls.get(0) + "/api/turismo", payload("Galicia", i));
+        }
+        List<Turismo> ownedByTwo = records(urls.get(0) + "/api/turismo").stream()
+                .filter(t -> topology.owner(topology.partition(t.get_id())) == 2)
+                .collect(Collectors.toList());
+        assertTrue(ownedByTwo.size() >= 2);
+        String updatedId = ownedByTwo.get(0).get_id();
+        String deletedId = ownedByTwo.get(1).get_id();
+
+        nodes[2].close();
+        assertEquals(200, send("PUT", urls.get(1) + "/api/turismo/" + updatedId, payload("Galicia", 999)).statusCode());
+        assertEquals(200, send("DELETE", urls.get(1) + "/api/turismo/" + deletedId, null).statusCode());
+        start(2);
+
+        // El propietario vuelve a atender su partición con lo que escribió el seguidor
+        assertEquals(200, localStatus(2, updatedId));
+        assertEquals(404, localStatus(2, deletedId));
+        assertEquals(999, parse(send("GET", urls.get(0) + "/api/turismo/" + updatedId, null).body()).getTotal());
+        assertEquals(404, send("GET", urls.get(0) + "/api/turismo/" + deletedId, null).statusCode());
+        assertEquals(RECORDS - 1, records(urls.get(0) + "/api/turismo").size());
+    }
+
+    /**
+     * Tests that a change made on one node reaches the derived structures of the others.
+     */
+    @Test
+    public void testChangesReachEveryNode() throws Exception {
+        assertEquals(200, send("POST", urls.get(0) + "/api/turismo", payload("Asturias", 1)).statusCode());
+        for (String url : urls) {
+            long deadline = System.nanoTime() + 5_000_000_000L;
+            String body;
+            do {
+                body = send("GET", url + "/api/turismo/places?field=to.comunidad&q=ast", null).body();
+            } while (!body.contains("Asturias") && System.nanoTime() < deadline);
+            assertTrue(url, body.contains("Asturias"));
+        }
+    }
+
+    /**
+     * Tests that the node-to-node endpoints refuse requests without the shared secret and resyncs from a node
+     * that does not hold the partition.
+     */
+    @Test
+    public void testInternalEndpointsAreClosed() throws Exception {
+        assertEquals(403, send("GET", urls.get(0) + "/internal/cluster/partitions/0", null).statusCode());
+        assertEquals(403, send("POST", urls.get(0) + "/internal/cluster/partitions/0/resync?from=1", null).statusCode());
+        assertEquals(403, send("POST", urls.get(0) + "/internal/cluster/changes", "[null,null]").statusCode());
+
+        // El nodo 0 guarda las particiones 0 y 2; la 1 no es suya y el nodo 2 no guarda la 0
+        assertEquals(400, internal("POST", 0, "/partitions/1/resync?from=2").statusCode());
+        assertEquals(400, internal("POST", 0, "/partitions/0/resync?from=2").statusCode());
+        assertEquals(200, internal("POST", 0, "/partitions/0/resync?from=1").statusCode());
+    }
+
+    private int localStatus(int node, String id) throws Exception {
+        return internal("GET", node, "/records/" + id).statusCode();
+    }
+
+    private HttpResponse<String> internal(String method, int node, String path) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(urls.get(node) + "/internal/cluster" + path))
+                .header(ClusterClient.SECRET_HEADER, SECRET)
+                .method(method, HttpRequest.BodyPublishers.noBody())
+                .build();
+        return http.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> send(String method, String url, String body) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(url)).header("Content-Type", "application/json");
+        request.method(method, body != null ? HttpRequest.BodyPublishers.ofString(body) : HttpRequest.BodyPublishers.noBody());
+        return http.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private List<Turismo> records(String url) throws Exception {
+        return parseList(send("GET", url, null).body());
+    }
+}
@@ -0,0 +1,186 @@
+package com.example.lab2.codec;
+
+import com.example.lab2.Turismo;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.example.lab2.TestRecords.builder;
+import static org.junit.Assert.*;
+
+/**
+ * TurismoCodecTest
+ * Verifies the streaming codec against Gson and measures allocation per record
+ * for the codec, Gson and Jackson databind.
+*/
+public class TurismoCodecTest {
+
+    private static final int RECORDS = 2000;
+    private static final int ROUNDS = 20;
+
+    /**
+     * Tests that JSON and Smile round trips keep every field and that Gson reads the codec's output.
+     */
+    @Test
+    public void testRoundTrip() throws IOException {
+        List<Turismo> records = dataset(50);
+        records.get(0).setTimeRange(null);
+        records.get(1).getFrom().setProvincia(null);
+
+        byte[] json = encode(records, false);
+        List<Turismo> decoded = decode(json, false);
+        assertEquals(new Gson().toJson(records), new Gson().toJson(decoded));
+        List<Turismo> fromGson = new Gson().fromJson(new String(json, StandardCharsets.UTF_8),
+                new TypeToken<List<Turismo>>() {}.getType());
+        assertEquals(new Gson().toJson(records), new Gson().toJson(fromGson));
+
+        List<Turismo> smile = decode(encode(records, true), true);
+        assertEquals(new Gson().toJson(records), new Gson().toJson(smile));
+    }
+
+    /**
+     * Tests that unknown fields are skipped and nulls are accepted.
+     */
+    @Test
+    public void testLenientRead() throws IOException {
+        String json = "{\"extra\":{\"a\":[1,2]},\"_id\":\"x\",\"from\":null,\"total\":3,"
+                + "\"timeRange\":{\"period\":\"M\",\"other\":1}}";
+        try (JsonParser parser = TurismoCodec.JSON.createParser(json)) {
+            Turismo turismo = TurismoCodec.read(parser);
+            assertEquals("x", turismo.get_id());
+            assertNull(turismo.getFrom());
+            assertEquals(3, turismo.getTotal());
+            assertEquals("M", turismo.getTimeRange().getPeriod());
+        }
+    }
+
+    /**
+     * Tests that a projection writes only the requested paths and drops empty objects.
+     */
+    @Test
+    public void testProjection() throws IOException {
+        List<Turismo> records = dataset(3);
+        records.get(1).setTo(null);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JsonGenerator generator = TurismoCodec.JSON.createGenerator(out)) {
+            TurismoCodec.writeList(generator, records, TurismoProjection.parse("_id, to.comunidad,total"));
+        }
+        assertEquals("[{\"_id\":\"id-0\",\"to\":{\"comunidad\":\"Galicia\"},\"total\":0},"
+                        + "{\"_id\":\"id-1\",\"total\":3},"
+                        + "{\"_id\":\"id-2\",\"to\":{\"comunidad\":\"Andalucía\"},\"total\":6}]",
+                out.toString(StandardCharsets.UTF_8));
+
+        assertThrows(IllegalArgumentException.class, () -> TurismoProjection.parse("_id,to.pais"));
+        assertThrows(IllegalArgumentException.class, () -> TurismoProjection.parse(" , "));
+    }
+
+    /**
+     * Measures bytes allocated per record to encode and decode the dataset as JSON.
+     * The codec must allocate less than the reflective Gson and Jackson databind paths.
+     */
+    @Test
+    public void testAllocationPerRecord() throws IOException {
+        List<Turismo> records = dataset(RECORDS);
+        Gson gson = new Gson();
+        ObjectMapper mapper = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        byte[] json = encode(records, false);
+        String text = new String(json, StandardCharsets.UTF_8);
+        Type listType = new TypeToken<List<Turismo>>() {}.getType();
+        TypeReference<List<Turismo>> listReference = new TypeReference<>() {};
+
+        // Encoders stream to a discarding sink so only serializer allocation is measured
+        long codecEncode = perRecord(() -> {
+            try (JsonGenerator generator = TurismoCodec.JSON.createGenerator(OutputStream.nullOutputStream())) {
+                TurismoCodec.writeList(generator, records);
+            }
+            return null;
+        });
+        long gsonEncode = perRecord(() -> {
+            try (Writer writer = new OutputStreamWriter(OutputStream.nullOutputStream(), StandardCharsets.UTF_8)) {
+                gson.toJson(records, listType, writer);
+            }
+            return null;
+        });
+        long jacksonEncode = perRecord(() -> {
+            mapper.writeValue(OutputStream.nullOutputStream(), records);
+            return null;
+        });
+        long codecDecode = perRecord(() -> decode(json, false));
+        long gsonDecode = perRecord(() -> gson.fromJson(text, listType));
+        long jacksonDecode = perRecord(() -> mapper.readValue(json, listReference));
+
+        // Bytes por registro en el mensaje, para ver las cifras si falla
+        String allocated = "bytes per record, encode / decode: TurismoCodec " + codecEncode + " / " + codecDecode
+                + ", Gson " + gsonEncode + " / " + gsonDecode + ", Jackson " + jacksonEncode + " / " + jacksonDecode;
+        assertTrue(allocated, codecEncode < gsonEncode);
+        assertTrue(allocated, codecEncode <= jacksonEncode);
+        assertTrue(allocated, codecDecode < gsonDecode);
+        assertTrue(allocated, codecDecode < jacksonDecode);
+    }
+
+    private interface Work {
+        Object run() throws IOException;
+    }
+
+    private static long perRecord(Work work) throws IOException {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().threadId();
+        // Warm up so class loading and JIT do not count
+        for (int i = 0; i < ROUNDS; i++) {
+            work.run();
+        }
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < ROUNDS; i++) {
+            work.run();
+        }
+        long after = threads.getThreadAllocatedBytes(threadId);
+        return (after - before) / ((long) ROUNDS * RECORDS);
+    }
+
+    private static byte[] encode(List<Turismo> records, boolean smile) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(256 * records.size());
+        try (JsonGenerator generator = (smile ? TurismoCodec.SMILE : TurismoCodec.JSON).createGenerator(out)) {
+            TurismoCodec.writeList(generator, records);
+        }
+        return out.toByteArray();
+    }
+
+    private static List<Turismo> decode(byte[] bytes, boolean smile) throws IOException {
+        try (JsonParser parser = (smile ? TurismoCodec.SMILE : TurismoCodec.JSON).createParser(bytes)) {
+            return TurismoCodec.readList(parser);
+        }
+    }
+
+    private static List<Turismo> dataset(int count) {
+        String[] comunidades = {"Madrid", "Galicia", "Cataluña", "Andalucía"};
+        List<Turismo> records = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int month = 1 + i % 9;
+            records.add(builder("id-" + i)
+                    .from(comunidades[i % comunidades.length], "Provincia " + (i % 7))
+                    .to(comunidades[(i + 1) % comunidades.length], "Provincia " + (i % 5))
+                    .timeRange("2024-0" + month + "-01", "2024-0" + month + "-28", "2024M0" + month)
+                    .total(i * 3)
+                    .build());
+        }
+        return records;
+    }
+}
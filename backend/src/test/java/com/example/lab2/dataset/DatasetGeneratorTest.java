@@ -0,0 +1,135 @@
+package com.example.lab2.dataset;
+
+import com.example.lab2.Turismo;
+import com.example.lab2.codec.TurismoCodec;
+import com.example.lab2.store.TurismoSnapshot;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * DatasetGeneratorTest
+ * Verifies that generated datasets are reproducible, realistic in shape and readable in every format.
+*/
+public class DatasetGeneratorTest {
+
+    /**
+     * Tests that the same seed gives the same records and another seed different ones.
+     */
+    @Test
+    public void testDeterministic() {
+        DatasetGenerator first = new DatasetGenerator(100, 7);
+        DatasetGenerator second = new DatasetGenerator(100, 7);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(json(first.record(i)), json(second.record(i)));
+        }
+        assertNotEquals(json(first.record(0)), json(new DatasetGenerator(100, 8).record(0)));
+    }
+
+    /**
+     * Tests that records cover every comunidad, use whole calendar months and have unique ids and skewed totals.
+     */
+    @Test
+    public void testRealisticShape() {
+        Set<String> ids = new HashSet<>();
+        Set<String> comunidades = new HashSet<>();
+        Set<String> provincias = new HashSet<>();
+        List<Integer> totals = new ArrayList<>();
+        for (Turismo turismo : new DatasetGenerator(50_000, DatasetGenerator.DEFAULT_SEED)) {
+            assertTrue(ids.add(turismo.get_id()));
+            comunidades.add(turismo.getFrom().getComunidad());
+            comunidades.add(turismo.getTo().getComunidad());
+            provincias.add(turismo.getTo().getProvincia());
+            LocalDate start = LocalDate.parse(turismo.getTimeRange().getFecha_inicio());
+            LocalDate end = LocalDate.parse(turismo.getTimeRange().getFecha_fin());
+            assertEquals(1, start.getDayOfMonth());
+            assertEquals(start.lengthOfMonth(), end.getDayOfMonth());
+            assertEquals(String.format("%dM%02d", start.getYear(), start.getMonthValue()),
+                    turismo.getTimeRange().getPeriod());
+            assertTrue(turismo.getTotal() > 0);
+            totals.add(turismo.getTotal());
+        }
+        assertEquals(new HashSet<>(DatasetGenerator.comunidades()), comunidades);
+        assertEquals(19, comunidades.size());
+        assertEquals(DatasetGenerator.provinciaCount(), provincias.size());
+
+        // El 10% de flujos más grandes suma mucho más que el 10% de los visitantes
+        totals.sort(null);
+        long sum = totals.stream().mapToLong(Integer::longValue).sum();
+        long top = totals.subList(totals.size() * 9 / 10, totals.size()).stream().mapToLong(Integer::longValue).sum();
+        assertTrue(top > sum * 0.3);
+    }
+
+    /**
+     * Tests that the JSON, NDJSON, Smile and snapshot files all hold the same records.
+     */
+    @Test
+    public void testFormatsRoundTrip() throws Exception {
+        DatasetGenerator dataset = new DatasetGenerator(500, 3);
+        List<String> expected = new ArrayList<>();
+        for (Turismo turismo : dataset) {
+            expected.add(json(turismo));
+        }
+        Path dir = Files.createTempDirectory("dataset-test");
+
+        Path json = dir.resolve("data.json");
+        dataset.write(json, DatasetGenerator.Format.JSON);
+        assertEquals(expected, jsonList(TurismoCodec.readJsonFile(json)));
+
+        Path ndjson = dir.resolve("data.ndjson");
+        dataset.write(ndjson, DatasetGenerator.Format.NDJSON);
+        List<String> lines = Files.readAllLines(ndjson);
+        assertEquals(500, lines.size());
+        List<Turismo> fromLines = new ArrayList<>();
+        for (String line : lines) {
+            try (JsonParser parser = TurismoCodec.JSON.createParser(line)) {
+                fromLines.add(TurismoCodec.read(parser));
+            }
+        }
+        assertEquals(expected, jsonList(fromLines));
+
+        Path smile = dir.resolve("data.smile");
+        dataset.write(smile, DatasetGenerator.Format.SMILE);
+        try (JsonParser parser = TurismoCodec.SMILE.createParser(smile.toFile())) {
+            assertEquals(JsonToken.START_ARRAY, parser.nextToken());
+            assertEquals(expected, jsonList(TurismoCodec.readList(parser)));
+        }
+
+        Path snapshot = dir.resolve("data.snapshot");
+        dataset.write(snapshot, DatasetGenerator.Format.SNAPSHOT);
+        assertEquals(expected, jsonList(TurismoSnapshot.open(snapshot).readAll()));
+    }
+
+    private static List<String> jsonList(List<Turismo> records) {
+        List<String> result = new ArrayList<>();
+        for (Turismo turismo : records) {
+            result.add(json(turismo));
+        }
+        return result;
+    }
+
+    private static String json(Turismo turismo) {
+        try {
+            StringWriter writer = new StringWriter();
+            try (JsonGenerator generator = TurismoCodec.JSON.createGenerator(writer)) {
+                TurismoCodec.write(generator, turismo);
+            }
+            return writer.toString();
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.lab2.jfr;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import com.example.lab2.TestRecords;
+import com.example.lab2.Turismo;
+import com.example.lab2.codec.TurismoCodec;
+import com.example.lab2.store.InMemoryTurismoStore;
+import com.example.lab2.store.ObservableTurismoStore;
+
+import jdk.jfr.Event;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import static org.junit.Assert.*;
+
+/**
+ * TurismoEventsTest
+ * Verifies that the stages of a request are recorded as JFR events with their sizes.
+*/
+public class TurismoEventsTest {
+
+    /**
+     * Tests that writing and reading the JSON file and looking records up emit events with counts and bytes.
+     */
+    @Test
+    public void testStoreStagesAreRecorded() throws Exception {
+        Path dir = Files.createTempDirectory("jfr-test");
+        Path json = dir.resolve("data.json");
+        ObservableTurismoStore store = new ObservableTurismoStore(new InMemoryTurismoStore());
+
+        List<RecordedEvent> events = record(dir, () -> {
+            TurismoCodec.writeJsonFile(json,
+                    List.of(TestRecords.record("a", "Madrid", 1), TestRecords.record("b", "Madrid", 2)));
+            for (Turismo turismo : TurismoCodec.readJsonFile(json)) {
+                store.add(turismo);
+            }
+            store.findById("a");
+            store.findByComunidad("Madrid");
+        });
+
+        RecordedEvent persist = only(events, "com.example.lab2.Persist");
+        assertEquals("json", persist.getString("kind"));
+        assertEquals(2, persist.getInt("records"));
+        assertEquals(Files.size(json), persist.getLong("bytes"));
+
+        RecordedEvent parse = only(events, "com.example.lab2.Parse");
+        assertEquals(2, parse.getInt("records"));
+        assertEquals(Files.size(json), parse.getLong("bytes"));
+
+        List<RecordedEvent> lookups = named(events, "com.example.lab2.Lookup");
+        assertEquals(2, lookups.size());
+        assertEquals("findById", lookups.get(0).getString("operation"));
+        assertEquals(1, lookups.get(0).getInt("results"));
+        assertEquals("Madrid", lookups.get(1).getString("key"));
+        assertEquals(2, lookups.get(1).getInt("results"));
+    }
+
+    /**
+     * Tests that a request event carries the matched endpoint pattern and the response status.
+     */
+    @Test
+    public void testRequestIsRecordedByEndpoint() throws Exception {
+        Path dir = Files.createTempDirectory("jfr-test");
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/turismo/abc");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        List<RecordedEvent> events = record(dir, () -> new RequestEventFilter().doFilter(request, response,
+                (req, res) -> {
+                    req.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/turismo/{id}");
+                    ((MockHttpServletResponse) res).setStatus(404);
+                }));
+
+        RecordedEvent event = only(events, "com.example.lab2.Request");
+        assertEquals("GET", event.getString("method"));
+        assertEquals("/api/turismo/{id}", event.getString("endpoint"));
+        assertEquals("/api/turismo/abc", event.getString("uri"));
+        assertEquals(404, event.getInt("status"));
+    }
+
+    /**
+     * Tests that stage events carry the id of their request, also when they run on another thread.
+     */
+    @Test
+    public void testStagesCarryRequestId() throws Exception {
+        Path dir = Files.createTempDirectory("jfr-test");
+        ObservableTurismoStore store = new ObservableTurismoStore(new InMemoryTurismoStore());
+        store.add(TestRecords.record("a", "Madrid", 1));
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/async/turismo/a");
+        ExecutorService io = Executors.newSingleThreadExecutor();
+
+        List<RecordedEvent> events;
+        try {
+            events = record(dir, () -> {
+                new RequestEventFilter().doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+                    try {
+                        io.submit(RequestContext.wrap(() -> store.findById("a"))).get();
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                });
+                store.findByComunidad("Madrid");
+            });
+        } finally {
+            io.shutdown();
+        }
+
+        long requestId = only(events, "com.example.lab2.Request").getLong("requestId");
+        assertTrue(requestId > 0);
+        List<RecordedEvent> lookups = named(events, "com.example.lab2.Lookup");
+        assertEquals(2, lookups.size());
+        assertEquals(requestId, lookups.get(0).getLong("requestId"));
+        assertEquals(0, lookups.get(1).getLong("requestId"));
+        assertEquals(0, RequestContext.current());
+    }
+
+    private interface Action {
+        void run() throws Exception;
+    }
+
+    /**
+     * Run the action under a recording of every com.example.lab2 event, thresholds off.
+     */
+    private static List<RecordedEvent> record(Path dir, Action action) throws Exception {
+        Path file = dir.resolve("test.jfr");
+        try (Recording recording = new Recording()) {
+            for (Class<? extends Event> type : List.of(RequestEvent.class, LookupEvent.class, ParseEvent.class,
+                    SerializeEvent.class, PersistEvent.class, StoreLoadEvent.class)) {
+                recording.enable(type).withThreshold(Duration.ZERO);
+            }
+            recording.start();
+            action.run();
+            recording.stop();
+            recording.dump(file);
+        }
+        return RecordingFile.readAllEvents(file);
+    }
+
+    private static List<RecordedEvent> named(List<RecordedEvent> events, String name) {
+        return events.stream().filter(e -> e.getEventType().getName().equals(name)).toList();
+    }
+
+    private static RecordedEvent only(List<RecordedEvent> events, String name) {
+        List<RecordedEvent> matching = named(events, name);
+        assertEquals(1, matching.size());
+        return matching.get(0);
+    }
+}
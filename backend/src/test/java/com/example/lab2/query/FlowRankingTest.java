@@ -0,0 +1,72 @@
+package com.example.lab2.query;
+
+import com.example.lab2.store.JsonFileTurismoStore;
+import com.example.lab2.store.ObservableTurismoStore;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static com.example.lab2.TestRecords.builder;
+import static org.junit.Assert.*;
+
+/**
+ * FlowRankingTest
+ * Verifies that pair totals follow adds, updates and deletes on the store.
+*/
+public class FlowRankingTest {
+
+    private Path json;
+    private ObservableTurismoStore store;
+    private FlowRanking flowRanking;
+
+    @Before
+    public void setup() throws Exception {
+        json = Files.createTempFile("turismo-flows", ".json");
+        Files.writeString(json, "[]");
+        store = new ObservableTurismoStore(new JsonFileTurismoStore(json));
+        store.add(builder("1").from("Madrid", "Madrid").to("Andalucía", "Andalucía")
+                .timeRange(null, null, "2024M01").total(100).build());
+        flowRanking = new FlowRanking();
+        store.addListener(flowRanking);
+    }
+
+    @After
+    public void cleanup() throws Exception {
+        Files.deleteIfExists(json);
+    }
+
+    /**
+     * Tests ranking order per period and across periods after each kind of mutation.
+     */
+    @Test
+    public void testRankingFollowsMutations() throws Exception {
+        store.add(builder("2").from("Madrid", "Madrid").to("Andalucía", "Andalucía")
+                .timeRange(null, null, "2024M02").total(50).build());
+        store.add(builder("3").from("Cataluña", "Cataluña").to("Aragón", "Aragón")
+                .timeRange(null, null, "2024M01").total(120).build());
+
+        List<FlowRanking.FlowTotal> top = flowRanking.top(FlowRanking.Level.COMUNIDAD, null, 10);
+        assertEquals(2, top.size());
+        assertEquals("Madrid", top.get(0).getFrom());
+        assertEquals(150, top.get(0).getTotal());
+
+        top = flowRanking.top(FlowRanking.Level.COMUNIDAD, "2024M01", 1);
+        assertEquals(1, top.size());
+        assertEquals("Cataluña", top.get(0).getFrom());
+
+        store.update("3", builder("3").from("Cataluña", "Cataluña").to("Aragón", "Aragón")
+                .timeRange(null, null, "2024M01").total(10).build());
+        assertEquals("Madrid", flowRanking.top(FlowRanking.Level.COMUNIDAD, "2024M01", 1).get(0).getFrom());
+
+        store.delete("1");
+        store.delete("2");
+        top = flowRanking.top(FlowRanking.Level.COMUNIDAD, null, 10);
+        assertEquals(1, top.size());
+        assertEquals(10, top.get(0).getTotal());
+        assertTrue(flowRanking.top(FlowRanking.Level.COMUNIDAD, "2024M02", 10).isEmpty());
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.lab2.query;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static com.example.lab2.TestRecords.builder;
+import static org.junit.Assert.*;
+
+/**
+ * PlaceIndexTest
+ * Verifies prefix, accent-insensitive and approximate name search and that the index follows deletes.
+*/
+public class PlaceIndexTest {
+
+    private static final Set<String> COMUNIDAD = Set.of("from.comunidad", "to.comunidad");
+
+    private PlaceIndex index;
+
+    @Before
+    public void setup() {
+        index = new PlaceIndex();
+        index.onAdd(builder(null).from("Castilla y León", "Ávila").to("Comunitat Valenciana", "Valencia/València").build());
+        index.onAdd(builder(null).from("Castilla - La Mancha", "Toledo").to("Andalucía", "Málaga").build());
+        index.onAdd(builder(null).from("Madrid", "Madrid").to("Castilla y León", "León").build());
+    }
+
+    /**
+     * Tests that name prefixes come before word prefixes and that case and accents are ignored.
+     */
+    @Test
+    public void testPrefixSearch() {
+        assertEquals(List.of("Castilla - La Mancha", "Castilla y León"), index.search("cast", COMUNIDAD, 0, 10));
+        assertEquals(List.of("Castilla y León"), index.search("CASTILLA Y LEON", COMUNIDAD, 0, 10));
+        assertEquals(List.of("Comunitat Valenciana"), index.search("val", COMUNIDAD, 0, 10));
+        assertEquals(List.of("León", "Castilla y León"),
+                index.search("leon", Set.of("to.provincia", "to.comunidad"), 0, 10));
+        assertEquals(List.of("Ávila"), index.search("avila", Set.of("from.provincia"), 0, 10));
+        assertTrue(index.search("avila", Set.of("to.provincia"), 0, 10).isEmpty());
+        assertEquals(List.of("Castilla y León"), index.search("cast", COMUNIDAD, 1, 10));
+        assertEquals(5, index.search("", COMUNIDAD, 0, 10).size());
+    }
+
+    /**
+     * Tests that a misspelt query without prefix matches still finds the closest names.
+     */
+    @Test
+    public void testApproximateSearch() {
+        assertEquals("Andalucía", index.search("andalcuia", COMUNIDAD, 0, 10).get(0));
+        assertEquals("Madrid", index.search("madird", COMUNIDAD, 0, 10).get(0));
+        assertTrue(index.search("zzzz", COMUNIDAD, 0, 10).isEmpty());
+    }
+
+    /**
+     * Tests that a name disappears once the last record using it is deleted.
+     */
+    @Test
+    public void testDeleteRemovesUnusedNames() {
+        index.onDelete(builder(null).from("Madrid", "Madrid").to("Castilla y León", "León").build());
+        assertTrue(index.search("madrid", COMUNIDAD, 0, 10).isEmpty());
+        assertEquals(List.of("Castilla y León"), index.search("castilla y", COMUNIDAD, 0, 10));
+        index.onDelete(builder(null).from("Castilla y León", "Ávila").to("Comunitat Valenciana", "Valencia/València").build());
+        assertEquals(List.of("Castilla - La Mancha"), index.search("cast", COMUNIDAD, 0, 10));
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.lab2.query;
+
+import com.example.lab2.Turismo;
+import com.example.lab2.store.InMemoryTurismoStore;
+import com.example.lab2.store.ObservableTurismoStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.example.lab2.TestRecords.record;
+import static org.junit.Assert.*;
+
+/**
+ * QueryCacheTest
+ * Verifies that cached results are reused and that mutations only drop the results they affect.
+*/
+public class QueryCacheTest {
+
+    private ObservableTurismoStore store;
+    private SimpleMeterRegistry registry;
+    private QueryCache cache;
+    private AtomicInteger computed;
+
+    @Before
+    public void setup() throws Exception {
+        store = new ObservableTurismoStore(new InMemoryTurismoStore());
+        for (int i = 0; i < 10; i++) {
+            store.add(record("r" + i, i < 5 ? "Madrid" : "Galicia", i));
+        }
+        registry = new SimpleMeterRegistry();
+        cache = new QueryCache(store, 1000, Duration.ofMinutes(5), registry);
+        store.subscribe(cache);
+        computed = new AtomicInteger();
+    }
+
+    /**
+     * Tests that a community result is a hit until a record of that comunidad changes, and survives other changes.
+     */
+    @Test
+    public void testCommunityInvalidatedOnlyByItsRecords() throws Exception {
+        community("Madrid");
+        community("Galicia");
+        community("Madrid");
+        assertEquals(2, computed.get());
+        assertEquals(1, registry.counter("turismo.cache.requests", "result", "hit").count(), 0);
+
+        store.update("r7", record("r7", "Galicia", 70));
+        community("Madrid");
+        assertEquals(2, computed.get());
+        community("Galicia");
+        assertEquals(3, computed.get());
+
+        // Un registro que se muda de Madrid a Galicia invalida las dos
+        store.update("r1", record("r1", "Galicia", 1));
+        assertEquals(4, community("Madrid").size());
+        assertEquals(6, community("Galicia").size());
+        assertEquals(5, computed.get());
+    }
+
+    /**
+     * Tests that updating a record drops only its page and appending one drops only the pages from the end.
+     */
+    @Test
+    public void testPagesInvalidatedByPosition() throws Exception {
+        for (int page = 0; page < 4; page++) {
+            page(page, 3);
+        }
+        assertEquals(4, computed.get());
+
+        store.update("r4", record("r4", "Madrid", 40));
+        page(0, 3);
+        page(2, 3);
+        assertEquals(4, computed.get());
+        assertEquals(40, page(1, 3).get(1).getTotal());
+        assertEquals(5, computed.get());
+
+        store.add(record("r10", "Galicia", 10));
+        page(0, 3);
+        page(1, 3);
+        page(2, 3);
+        assertEquals(5, computed.get());
+        assertEquals(List.of("r9", "r10"), page(3, 3).stream().map(Turismo::get_id).toList());
+        assertEquals(6, computed.get());
+
+        store.delete("r4");
+        page(0, 3);
+        assertEquals(6, computed.get());
+        assertEquals("r5", page(1, 3).get(1).get_id());
+        assertEquals(7, computed.get());
+    }
+
+    /**
+     * Tests that an add drops every page when the store does not keep insertion order.
+     */
+    @Test
+    public void testAddDropsAllPagesWithoutInsertionOrder() throws Exception {
+        store = new ObservableTurismoStore(new InMemoryTurismoStore() {
+            @Override
+            public boolean insertionOrdered() {
+                return false;
+            }
+        });
+        for (int i = 0; i < 10; i++) {
+            store.add(record("r" + i, "Madrid", i));
+        }
+        cache = new QueryCache(store, 1000, Duration.ofMinutes(5), new SimpleMeterRegistry());
+        store.subscribe(cache);
+        page(0, 3);
+        page(1, 3);
+        assertEquals(2, computed.get());
+
+        store.add(record("a", "Madrid", 0));
+        page(0, 3);
+        page(1, 3);
+        assertEquals(4, computed.get());
+    }
+
+    /**
+     * Tests that the least recently used results are evicted once the record bound is exceeded.
+     */
+    @Test
+    public void testEvictsLeastRecentlyUsed() {
+        cache = new QueryCache(store, 8, Duration.ofMinutes(5), new SimpleMeterRegistry());
+        community("Madrid");
+        community("Galicia");
+        assertEquals(5, cache.size());
+        assertEquals(1, cache.entryCount());
+
+        community("Galicia");
+        assertEquals(2, computed.get());
+        community("Madrid");
+        assertEquals(3, computed.get());
+    }
+
+    private List<Turismo> community(String comunidad) {
+        return cache.get("community:" + comunidad, TurismoFilters.toComunidad(comunidad), () -> {
+            computed.incrementAndGet();
+            return store.findByComunidad(comunidad);
+        });
+    }
+
+    private List<Turismo> page(int page, int size) {
+        return cache.getRange("page:" + page + ":" + size, page * size, page * size + size, () -> {
+            computed.incrementAndGet();
+            List<Turismo> all = store.findAll();
+            int start = Math.min(page * size, all.size());
+            return List.copyOf(all.subList(start, Math.min(start + size, all.size())));
+        });
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.lab2.query;
+
+import com.example.lab2.Turismo;
+import com.example.lab2.store.InMemoryTurismoStore;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import static com.example.lab2.TestRecords.builder;
+import static org.junit.Assert.*;
+
+/**
+ * ScanEngineTest
+ * Verifies that parallel scans, over a list or a store, give the same answer as a sequential stream.
+*/
+public class ScanEngineTest {
+
+    private final ScanEngine scanEngine = new ScanEngine(new ForkJoinPool(4));
+
+    /**
+     * Tests filters, grouped sums and encounter order over several chunks.
+     */
+    @Test
+    public void testParallelScanMatchesSequential() {
+        List<Turismo> records = records();
+        Predicate<Turismo> filter = TurismoFilters.totalGreaterThan(500)
+                .and(TurismoFilters.toProvincia("Provincia 3").negate());
+
+        long count = scanEngine.scan(records, filter, Collectors.counting());
+        assertEquals(records.stream().filter(filter).count(), count);
+
+        Map<String, Long> sums = scanEngine.scan(records, filter,
+                Collectors.groupingBy(TurismoFilters.field("to.comunidad"), Collectors.summingLong(Turismo::getTotal)));
+        assertEquals(records.stream().filter(filter).collect(
+                Collectors.groupingBy(TurismoFilters.field("to.comunidad"), Collectors.summingLong(Turismo::getTotal))), sums);
+
+        List<Turismo> matches = scanEngine.scan(records, filter, Collectors.toList());
+        assertEquals(records.stream().filter(filter).collect(Collectors.toList()), matches);
+    }
+
+    /**
+     * Tests that a scan fed chunk by chunk from a store matches the list scan, in the store's order,
+     * and that the inclusive total bounds keep their limits.
+     */
+    @Test
+    public void testStoreScanMatchesListScan() throws Exception {
+        List<Turismo> records = records();
+        InMemoryTurismoStore store = new InMemoryTurismoStore();
+        for (Turismo turismo : records) {
+            store.add(turismo);
+        }
+        Predicate<Turismo> filter = TurismoFilters.totalAtLeast(500).and(TurismoFilters.totalAtMost(600));
+
+        assertEquals(scanEngine.scan(records, filter, Collectors.toList()),
+                scanEngine.scan(store, filter, Collectors.toList()));
+        assertEquals(records.stream().filter(t -> t.getTotal() >= 500 && t.getTotal() <= 600).count(),
+                (long) scanEngine.scan(store, filter, Collectors.counting()));
+        assertEquals(0L, (long) scanEngine.scan(new InMemoryTurismoStore(), filter, Collectors.counting()));
+    }
+
+    private static List<Turismo> records() {
+        List<Turismo> records = new ArrayList<>();
+        for (int i = 0; i < ScanEngine.CHUNK_SIZE * 5 + 17; i++) {
+            records.add(builder("id-" + i).to("Comunidad " + (i % 7), "Provincia " + (i % 11))
+                    .total(i % 1000).build());
+        }
+        return records;
+    }
+}
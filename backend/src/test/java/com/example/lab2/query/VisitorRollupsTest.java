@@ -0,0 +1,50 @@
+package com.example.lab2.query;
+
+import com.example.lab2.Turismo;
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static com.example.lab2.TestRecords.builder;
+import static org.junit.Assert.*;
+
+/**
+ * VisitorRollupsTest
+ * Verifies calendar bucketing and incremental maintenance of the rollups.
+*/
+public class VisitorRollupsTest {
+
+    /**
+     * Tests week, month and year buckets, the comunidad filter and removal on delete.
+     */
+    @Test
+    public void testBucketsFollowMutations() {
+        VisitorRollups rollups = new VisitorRollups();
+        Turismo jan = builder(null).to("Madrid", null).timeRange("2024-01-03", null, null).total(10).build();
+        Turismo janLater = builder(null).to("Madrid", null).timeRange("2024-01-20", null, null).total(5).build();
+        Turismo feb = builder(null).to("Galicia", null).timeRange("2024-02-01", null, null).total(7).build();
+        rollups.onAdd(jan);
+        rollups.onAdd(janLater);
+        rollups.onAdd(feb);
+
+        List<VisitorRollups.BucketTotal> months = rollups.trend(VisitorRollups.Granularity.MONTH, null, null, null);
+        assertEquals(2, months.size());
+        assertEquals("2024-01-01", months.get(0).getBucket());
+        assertEquals(15, months.get(0).getTotal());
+
+        List<VisitorRollups.BucketTotal> weeks = rollups.trend(VisitorRollups.Granularity.WEEK, "Madrid", null, null);
+        assertEquals("2024-01-01", weeks.get(0).getBucket()); // Monday of 2024-01-03
+        assertEquals("2024-01-15", weeks.get(1).getBucket());
+
+        List<VisitorRollups.BucketTotal> range = rollups.trend(VisitorRollups.Granularity.MONTH, null,
+                LocalDate.parse("2024-01-15"), LocalDate.parse("2024-01-31"));
+        assertEquals(1, range.size());
+
+        rollups.onUpdate(janLater, builder(null).to("Madrid", null).timeRange("2024-01-20", null, null).total(1).build());
+        assertEquals(11, rollups.trend(VisitorRollups.Granularity.YEAR, "Madrid", null, null).get(0).getTotal());
+
+        rollups.onDelete(feb);
+        assertTrue(rollups.trend(VisitorRollups.Granularity.DAY, "Galicia", null, null).isEmpty());
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.lab2.replication;
+
+import com.example.lab2.Turismo;
+import org.junit.Test;
+
+import java.util.List;
+
+import static com.example.lab2.TestRecords.builder;
+import static org.junit.Assert.*;
+
+/**
+ * MutationLogTest
+ * Tests for the numbered mutation window that replicas tail.
+*/
+public class MutationLogTest {
+
+    /**
+     * Tests that entries come back in order, paged by limit, with PUT for adds and updates and DELETE for deletes.
+     */
+    @Test
+    public void testSince() {
+        MutationLog log = new MutationLog(10);
+        Turismo a = builder("a").build();
+        log.onAdd(a);
+        log.onUpdate(a, builder("a").build());
+        log.onDelete(a);
+
+        assertEquals(3, log.sequence());
+        List<MutationLog.Entry> entries = log.since(0, 2);
+        assertEquals(2, entries.size());
+        assertEquals(1, entries.get(0).getSequence());
+        assertEquals(MutationLog.Op.PUT, entries.get(1).getOp());
+        entries = log.since(2, 10);
+        assertEquals(1, entries.size());
+        assertEquals(MutationLog.Op.DELETE, entries.get(0).getOp());
+        assertNull(entries.get(0).getRecord());
+        assertTrue(log.since(3, 10).isEmpty());
+    }
+
+    /**
+     * Tests that a sequence that has left the window, or is ahead of the log, asks for a snapshot.
+     */
+    @Test
+    public void testOutsideWindow() {
+        MutationLog log = new MutationLog(4);
+        for (int i = 0; i < 10; i++) {
+            log.onAdd(builder("r" + i).build());
+        }
+        assertNull(log.since(5, 10));
+        List<MutationLog.Entry> entries = log.since(6, 10);
+        assertEquals(4, entries.size());
+        assertEquals("r6", entries.get(0).getId());
+        assertEquals("r9", entries.get(3).getId());
+        assertNull(log.since(11, 10));
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.lab2.replication;
+
+import com.example.lab2.Lab2Application;
+import com.example.lab2.Turismo;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static com.example.lab2.TestRecords.parse;
+import static com.example.lab2.TestRecords.parseList;
+import static com.example.lab2.TestRecords.payload;
+import static org.junit.Assert.*;
+
+/**
+ * ReplicationIntegrationTest
+ * Boots a primary and a read replica on local ports and checks that changes reach the
+ * replica, that its reads report staleness and that its writes go to the primary.
+*/
+public class ReplicationIntegrationTest {
+
+    private static final int RECORDS = 20;
+
+    private final HttpClient http = HttpClient.newHttpClient();
+    private String primaryUrl;
+    private String replicaUrl;
+    private Path file;
+    private ConfigurableApplicationContext primary;
+    private ConfigurableApplicationContext replica;
+
+    @Before
+    public void setup() throws Exception {
+        int primaryPort = freePort();
+        int replicaPort = freePort();
+        primaryUrl = "http://localhost:" + primaryPort;
+        replicaUrl = "http://localhost:" + replicaPort;
+        file = Files.createTempFile("turismo-primary", ".json");
+        Files.writeString(file, "[]");
+        primary = new SpringApplicationBuilder(Lab2Application.class).run(
+                "--server.port=" + primaryPort,
+                "--turismo.data.json=" + file,
+                "--turismo.replication.mode=primary",
+                "--turismo.admission.enabled=false",
+                "--turismo.warmup.enabled=false",
+                "--spring.devtools.restart.enabled=false");
+        replica = new SpringApplicationBuilder(Lab2Application.class).run(
+                "--server.port=" + replicaPort,
+                "--turismo.replication.mode=replica",
+                "--turismo.replication.primary-url=" + primaryUrl,
+                "--turismo.replication.poll-interval=50ms",
+                "--turismo.replication.batch-size=7",
+                "--turismo.replication.max-staleness=1s",
+                "--turismo.admission.enabled=false",
+                "--turismo.warmup.enabled=false",
+                "--spring.devtools.restart.enabled=false");
+    }
+
+    @After
+    public void cleanup() throws Exception {
+        for (ConfigurableApplicationContext context : new ConfigurableApplicationContext[] {replica, primary}) {
+            if (context != null && context.isActive()) {
+                context.close();
+            }
+        }
+        Files.deleteIfExists(file);
+    }
+
+    /**
+     * Tests that adds, updates and deletes on the primary show up on the replica, with the staleness header.
+     */
+    @Test
+    public void testChangesReachReplica() throws Exception {
+        for (int i = 0; i < RECORDS; i++) {
+            assertEquals(200, send("POST", primaryUrl + "/api/turismo", payload("Galicia", i)).statusCode());
+        }
+        List<Turismo> records = awaitRecords(RECORDS);
+        String id = records.get(0).get_id();
+
+        assertEquals(200, send("PUT", primaryUrl + "/api/turismo/" + id, payload("Galicia", 999)).statusCode());
+        assertEquals(200, send("DELETE", primaryUrl + "/api/turismo/" + records.get(1).get_id(), null).statusCode());
+        awaitRecords(RECORDS - 1);
+
+        HttpResponse<String> response = send("GET", replicaUrl + "/api/turismo/" + id, null);
+        assertEquals(200, response.statusCode());
+        assertEquals(999, parse(response.body()).getTotal());
+        long staleness = Long.parseLong(response.headers().firstValue(ReplicaFilter.STALENESS_HEADER).orElseThrow());
+        assertTrue(staleness < 1000);
+        assertEquals(404, send("GET", replicaUrl + "/api/turismo/" + records.get(1).get_id(), null).statusCode());
+    }
+
+    /**
+     * Tests that writes to the replica are redirected to the primary and that reads fail once the primary is gone.
+     */
+    @Test
+    public void testWritesRedirectAndStalenessBound() throws Exception {
+        HttpResponse<String> redirect = send("POST", replicaUrl + "/api/turismo", payload("Galicia", 1));
+        assertEquals(307, redirect.statusCode());
+        assertEquals(primaryUrl + "/api/turismo", redirect.headers().firstValue("Location").orElseThrow());
+
+        awaitRecords(0);
+        primary.close();
+        Thread.sleep(1500);
+        HttpResponse<String> stale = send("GET", replicaUrl + "/api/turismo", null);
+        assertEquals(503, stale.statusCode());
+        assertTrue(stale.headers().firstValue("Retry-After").isPresent());
+    }
+
+    private List<Turismo> awaitRecords(int expected) throws Exception {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (true) {
+            HttpResponse<String> response = send("GET", replicaUrl + "/api/turismo", null);
+            if (response.statusCode() == 200) {
+                List<Turismo> records = parseList(response.body());
+                if (records.size() == expected) {
+                    return records;
+                }
+            }
+            assertTrue("Replica did not catch up", System.currentTimeMillis() < deadline);
+            Thread.sleep(50);
+        }
+    }
+
+    private HttpResponse<String> send(String method, String url, String body) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(url)).header("Content-Type", "application/json");
+        request.method(method, body != null ? HttpRequest.BodyPublishers.ofString(body) : HttpRequest.BodyPublishers.noBody());
+        return http.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static int freePort() throws Exception {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.example.lab2.store;
+
+import com.example.lab2.Turismo;
+import com.example.lab2.codec.TurismoCodec;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static com.example.lab2.TestRecords.record;
+import static org.junit.Assert.*;
+
+/**
+ * LsmTurismoStoreTest
+ * Verifies flushes, tombstones, recovery, compaction and Bloom filters of the log-structured store.
+*/
+public class LsmTurismoStoreTest {
+
+    private Path directory;
+    private Path json;
+
+    @Before
+    public void setup() throws Exception {
+        directory = Files.createTempDirectory("turismo-lsm");
+        json = directory.resolve("TurismoComunidades.json");
+        TurismoCodec.writeJsonFile(json, List.of(record("a", "Madrid", 1), record("b", "Madrid", 2), record("c", "Madrid", 3)));
+    }
+
+    @After
+    public void cleanup() throws Exception {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    /**
+     * Tests that reads see the newest value across memtable and segments and that deletes hide older values.
+     */
+    @Test
+    public void testReadsAcrossSegments() throws Exception {
+        try (LsmTurismoStore store = new LsmTurismoStore(directory.resolve("lsm"), json, 4, 100)) {
+            assertEquals(3, store.size());
+            assertEquals(1, store.segmentCount());
+            for (int i = 0; i < 10; i++) {
+                store.add(record("r" + i, "Madrid", i));
+            }
+            assertEquals(3, store.segmentCount());
+            assertTrue(store.update("a", record("a", "Madrid", 100)));
+            assertTrue(store.delete("b"));
+            assertFalse(store.delete("b"));
+            assertFalse(store.update("b", record("b", "Madrid", 5)));
+            assertTrue(store.delete("r0"));
+
+            assertEquals(11, store.size());
+            assertEquals(100, store.findById("a").getTotal());
+            assertNull(store.findById("b"));
+            assertNull(store.findById("r0"));
+            assertNull(store.findById("missing"));
+            List<Turismo> all = store.findAll();
+            assertEquals(11, all.size());
+            assertEquals("a", all.get(0).get_id());
+            assertEquals("r9", all.get(10).get_id());
+        }
+    }
+
+    /**
+     * Tests that forEach and findRange stream the same records, in the same order, as findAll.
+     */
+    @Test
+    public void testStreamingScan() throws Exception {
+        try (LsmTurismoStore store = new LsmTurismoStore(directory.resolve("lsm"), json, 3, 100)) {
+            for (int i = 0; i < 10; i++) {
+                store.add(record("r" + i, "Madrid", i));
+            }
+            store.delete("r4");
+            List<String> all = store.findAll().stream().map(Turismo::get_id).toList();
+            List<String> scanned = new ArrayList<>();
+            store.forEach(turismo -> scanned.add(turismo.get_id()));
+            assertEquals(all, scanned);
+
+            assertEquals(all.subList(4, 9), store.findRange(4, 5).stream().map(Turismo::get_id).toList());
+            assertEquals(all.subList(10, 12), store.findRange(10, 5).stream().map(Turismo::get_id).toList());
+            assertTrue(store.findRange(20, 5).isEmpty());
+        }
+    }
+
+    /**
+     * Tests that the memtable is rebuilt from the log after a restart and that nothing is seeded twice.
+     */
+    @Test
+    public void testRecoveryFromLog() throws Exception {
+        try (LsmTurismoStore store = new LsmTurismoStore(directory.resolve("lsm"), json, 1000, 100)) {
+            store.add(record("d", "Madrid", 4));
+            store.delete("a");
+            store.update("c", record("c", "Madrid", 30));
+        }
+        try (LsmTurismoStore store = new LsmTurismoStore(directory.resolve("lsm"), json, 1000, 100)) {
+            assertEquals(3, store.size());
+            assertNull(store.findById("a"));
+            assertEquals(4, store.findById("d").getTotal());
+            assertEquals(30, store.findById("c").getTotal());
+        }
+    }
+
+    /**
+     * Tests that compaction merges every segment into one, keeps the newest values and drops tombstones.
+     */
+    @Test
+    public void testCompaction() throws Exception {
+        Path lsm = directory.resolve("lsm");
+        try (LsmTurismoStore store = new LsmTurismoStore(lsm, json, 2, 100)) {
+            for (int i = 0; i < 20; i++) {
+                store.add(record("r" + (i % 7), "Madrid", i));
+            }
+            store.delete("r3");
+            store.delete("c");
+            assertTrue(store.segmentCount() > 5);
+
+            store.compact();
+            assertEquals(1, store.segmentCount());
+            try (Stream<Path> files = Files.list(lsm)) {
+                assertEquals(1, files.filter(p -> p.toString().endsWith(".dat")).count());
+            }
+            assertEquals(8, store.size());
+            assertEquals(19, store.findById("r5").getTotal());
+            assertNull(store.findById("r3"));
+            assertEquals(8, store.findAll().size());
+        }
+        try (LsmTurismoStore store = new LsmTurismoStore(lsm, json, 2, 100)) {
+            assertEquals(8, store.size());
+            assertNull(store.findById("c"));
+        }
+    }
+
+    /**
+     * Tests that runs are split at the maximum segment size and that tiered compaction merges the small
+     * new runs without rewriting the large old one.
+     */
+    @Test
+    public void testTieredCompaction() throws Exception {
+        Path lsm = directory.resolve("lsm");
+        try (LsmTurismoStore store = new LsmTurismoStore(lsm, json, 4, 3, 256)) {
+            for (int i = 0; i < 40; i++) {
+                store.add(record("r" + i, "Madrid", i));
+            }
+            store.compact();
+            assertEquals(1, store.runCount());
+            assertTrue(store.segmentCount() > 1);
+            List<Path> large;
+            try (Stream<Path> files = Files.list(lsm)) {
+                large = files.filter(p -> p.toString().endsWith(".dat")).toList();
+            }
+
+            for (int i = 0; i < 12; i++) {
+                store.add(record("s" + i, "Madrid", i));
+            }
+            store.compactTiers();
+            assertTrue(store.runCount() <= 3);
+            for (Path segment : large) {
+                assertTrue(Files.exists(segment));
+            }
+            assertEquals(55, store.size());
+            assertEquals(39, store.findById("r39").getTotal());
+            assertEquals(11, store.findById("s11").getTotal());
+        }
+    }
+
+    /**
+     * Tests that a segment's Bloom filter keeps every id it holds and rejects almost every other one.
+     */
+    @Test
+    public void testBloomFilter() {
+        BloomFilter bloom = BloomFilter.create(10_000);
+        for (int i = 0; i < 10_000; i++) {
+            bloom.add("id-" + i);
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(bloom.mightContain("id-" + i));
+            if (bloom.mightContain("other-" + i)) {
+                falsePositives++;
+            }
+        }
+        assertTrue("False positives: " + falsePositives, falsePositives < 300);
+    }
+}
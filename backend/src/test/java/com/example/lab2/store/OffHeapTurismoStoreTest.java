@@ -0,0 +1,166 @@
+package com.example.lab2.store;
+
+import com.example.lab2.Turismo;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.example.lab2.TestRecords.builder;
+import static com.example.lab2.TestRecords.record;
+import static org.junit.Assert.*;
+
+/**
+ * OffHeapTurismoStoreTest
+ * Unit tests for slot reuse, insertion order and the open-addressing id index of the off-heap store.
+*/
+public class OffHeapTurismoStoreTest {
+
+    private Path json;
+
+    @Before
+    public void setup() throws Exception {
+        json = Files.createTempFile("turismo-offheap", ".json");
+        Files.writeString(json, "[]");
+    }
+
+    @After
+    public void cleanup() throws Exception {
+        Files.deleteIfExists(json);
+    }
+
+    /**
+     * Tests that deleted slots are reused instead of allocating new ones while findAll
+     * keeps insertion order, and that every remaining id is still found after many
+     * deletions from the probe chains.
+     */
+    @Test
+    public void testDeleteReusesSlotsAndKeepsOrder() throws Exception {
+        OffHeapTurismoStore store = new OffHeapTurismoStore(json);
+        int count = 600;
+        for (int i = 0; i < count; i++) {
+            store.add(record("id-" + i, "Madrid", i));
+        }
+        assertEquals(count, store.slotCount());
+
+        for (int i = 0; i < count; i += 2) {
+            assertTrue(store.delete("id-" + i));
+        }
+        for (int i = 0; i < count; i++) {
+            Turismo found = store.findById("id-" + i);
+            if (i % 2 == 0) {
+                assertNull(found);
+            } else {
+                assertEquals(i, found.getTotal());
+            }
+        }
+
+        for (int i = 0; i < count / 2; i++) {
+            store.add(record("new-" + i, "Madrid", -i));
+        }
+        assertEquals(count, store.slotCount());
+        assertEquals(count, store.size());
+        assertEquals(-7, store.findById("new-7").getTotal());
+
+        // Los slots reutilizados no cambian el orden: primero los que quedaban, luego los nuevos
+        assertTrue(store.update("id-1", record("id-1", "Madrid", 100)));
+        List<Turismo> all = store.findAll();
+        for (int i = 0; i < count / 2; i++) {
+            assertEquals("id-" + (2 * i + 1), all.get(i).get_id());
+            assertEquals("new-" + i, all.get(count / 2 + i).get_id());
+        }
+        assertEquals(100, all.get(0).getTotal());
+
+        assertTrue(store.delete("new-299"));
+        assertTrue(store.delete("id-1"));
+        store.add(record("last", "Madrid", 1));
+        all = store.findAll();
+        assertEquals("id-3", all.get(0).get_id());
+        assertEquals("last", all.get(all.size() - 1).get_id());
+        assertEquals(count, store.slotCount());
+    }
+
+    /**
+     * Tests that an id too long for a slot is kept on the heap, survives a reload and frees its slot on delete.
+     */
+    @Test
+    public void testLongId() throws Exception {
+        OffHeapTurismoStore store = new OffHeapTurismoStore(json);
+        String longId = "x".repeat(OffHeapTurismoStore.MAX_ID_BYTES + 1);
+        store.add(record("a", "Madrid", 1));
+        store.add(record(longId, "Madrid", 5));
+        store.add(record("b", "Madrid", 2));
+        assertEquals(5, store.findById(longId).getTotal());
+        assertEquals(longId, store.findAll().get(1).get_id());
+
+        OffHeapTurismoStore reloaded = new OffHeapTurismoStore(json);
+        assertEquals(5, reloaded.findById(longId).getTotal());
+        assertTrue(reloaded.delete(longId));
+        assertNull(reloaded.findById(longId));
+        reloaded.add(record("c", "Madrid", 3));
+        assertEquals(3, reloaded.slotCount());
+        assertEquals("c", reloaded.findAll().get(2).get_id());
+    }
+
+    /**
+     * Tests that forEach, findRange and findByComunidad decode the same records, in the same order, as findAll.
+     */
+    @Test
+    public void testStreamingReads() throws Exception {
+        OffHeapTurismoStore store = new OffHeapTurismoStore(json);
+        for (int i = 0; i < 20; i++) {
+            store.add(record("id-" + i, i % 2 == 0 ? "Madrid" : "Asturias", i));
+        }
+        store.delete("id-3");
+        List<String> all = store.findAll().stream().map(Turismo::get_id).toList();
+        List<String> scanned = new ArrayList<>();
+        store.forEach(turismo -> scanned.add(turismo.get_id()));
+        assertEquals(all, scanned);
+
+        assertEquals(all.subList(5, 10), store.findRange(5, 5).stream().map(Turismo::get_id).toList());
+        assertEquals(all.subList(15, 19), store.findRange(15, 10).stream().map(Turismo::get_id).toList());
+        assertTrue(store.findRange(30, 5).isEmpty());
+
+        assertEquals(10, store.findByComunidad("Madrid").size());
+        assertEquals(9, store.findByComunidad("Asturias").size());
+        assertTrue(store.findByComunidad("Galicia").isEmpty());
+        assertTrue(store.findByComunidad("Cantabria").isEmpty());
+    }
+
+    /**
+     * Tests that records written by one store are streamed back by a new one.
+     */
+    @Test
+    public void testReloadFromJson() throws Exception {
+        OffHeapTurismoStore store = new OffHeapTurismoStore(json);
+        store.add(record("a", "Madrid", 1));
+        store.add(builder("b").from("Galicia", "Lugo").total(2).build());
+        assertTrue(store.update("a", record("a", "Madrid", 10)));
+
+        OffHeapTurismoStore reloaded = new OffHeapTurismoStore(json);
+        assertEquals(2, reloaded.size());
+        assertEquals(10, reloaded.findById("a").getTotal());
+        assertEquals("Lugo", reloaded.findById("b").getFrom().getProvincia());
+    }
+
+    /**
+     * Tests that a write-behind store leaves the file alone until it flushes, and that a save replaces the file
+     * through a temp file.
+     */
+    @Test
+    public void testWriteBehind() throws Exception {
+        OffHeapTurismoStore store = new OffHeapTurismoStore(json, Duration.ofHours(1), Duration.ofHours(1));
+        store.add(record("a", "Madrid", 1));
+        assertEquals("[]", Files.readString(json));
+        store.close();
+
+        OffHeapTurismoStore reloaded = new OffHeapTurismoStore(json);
+        assertEquals(1, reloaded.findById("a").getTotal());
+        assertFalse(Files.exists(json.resolveSibling(json.getFileName() + ".tmp")));
+    }
+}
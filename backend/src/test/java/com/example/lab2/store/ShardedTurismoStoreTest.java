@@ -0,0 +1,127 @@
+package com.example.lab2.store;
+
+import com.example.lab2.Turismo;
+import com.example.lab2.codec.TurismoCodec;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static com.example.lab2.TestRecords.record;
+import static org.junit.Assert.*;
+
+/**
+ * ShardedTurismoStoreTest
+ * Verifies seeding, routing and shard moves of the store partitioned by comunidad.
+*/
+public class ShardedTurismoStoreTest {
+
+    private Path directory;
+    private Path json;
+
+    @Before
+    public void setup() throws Exception {
+        directory = Files.createTempDirectory("turismo-shards");
+        json = directory.resolve("TurismoComunidades.json");
+        TurismoCodec.writeJsonFile(json, List.of(record("a", "Madrid", 1), record("b", "Galicia", 1),
+                record("c", "Madrid", 1), record("d", null, 1)));
+    }
+
+    @After
+    public void cleanup() throws Exception {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    /**
+     * Tests that the JSON file is split into one file per comunidad and that lookups hit the right shard.
+     */
+    @Test
+    public void testSeedAndRouting() throws Exception {
+        ShardedTurismoStore store = new ShardedTurismoStore(directory.resolve("shards"), json, null, null);
+        assertEquals(3, store.shardCount());
+        assertEquals(4, store.size());
+        assertTrue(Files.exists(directory.resolve("shards/shard-Madrid.json")));
+        assertTrue(Files.exists(directory.resolve("shards/shard-.json")));
+
+        assertEquals(2, store.findByComunidad("Madrid").size());
+        assertTrue(store.findByComunidad("Cataluña").isEmpty());
+        assertEquals("Galicia", store.findById("b").getTo().getComunidad());
+
+        store.add(record("e", "Cataluña", 1));
+        assertEquals(4, store.shardCount());
+        assertTrue(Files.exists(directory.resolve("shards/shard-Catalu%C3%B1a.json")));
+        assertTrue(store.delete("a"));
+        assertFalse(store.delete("a"));
+        assertNull(store.findById("a"));
+    }
+
+    /**
+     * Tests that an update changing to.comunidad moves the record and that shards reload from disk.
+     */
+    @Test
+    public void testUpdateMovesRecordBetweenShards() throws Exception {
+        ShardedTurismoStore store = new ShardedTurismoStore(directory.resolve("shards"), json, null, null);
+        assertTrue(store.update("b", record("b", "Madrid", 1)));
+        assertEquals(3, store.findByComunidad("Madrid").size());
+        assertTrue(store.findByComunidad("Galicia").isEmpty());
+        assertFalse(store.update("missing", record("missing", "Madrid", 1)));
+
+        ShardedTurismoStore reopened = new ShardedTurismoStore(directory.resolve("shards"), json, null, null);
+        assertEquals(4, reopened.size());
+        assertEquals("Madrid", reopened.findById("b").getTo().getComunidad());
+        assertEquals(3, reopened.findByComunidad("Madrid").size());
+    }
+
+    /**
+     * Tests that findAll keeps one order across shards: additions go last and a move keeps the record's place.
+     */
+    @Test
+    public void testOrderAcrossShards() throws Exception {
+        ShardedTurismoStore store = new ShardedTurismoStore(directory.resolve("shards"), json, null, null);
+        List<String> loaded = ids(store.findAll());
+        store.add(record("e", "Cataluña", 1));
+        store.add(record("f", "Madrid", 1));
+        assertTrue(store.update(loaded.get(0), record(loaded.get(0), "Galicia", 1)));
+
+        List<String> expected = new ArrayList<>(loaded);
+        expected.add("e");
+        expected.add("f");
+        assertEquals(expected, ids(store.findAll()));
+        assertTrue(store.insertionOrdered());
+    }
+
+    /**
+     * Tests that a move cut short between its two writes is resolved on load, by moves.log when it names the
+     * record and by keeping a single copy otherwise.
+     */
+    @Test
+    public void testInterruptedMoveRecovered() throws Exception {
+        Path shards = directory.resolve("shards");
+        new ShardedTurismoStore(shards, json, null, null).close();
+        // Como si el proceso se hubiera parado tras escribir en el shard nuevo
+        TurismoCodec.writeJsonFile(shards.resolve("shard-Madrid.json"),
+                List.of(record("a", "Madrid", 1), record("c", "Madrid", 1), record("b", "Madrid", 1), record("d", "Madrid", 1)));
+        Files.writeString(shards.resolve("moves.log"), "b\tMadrid\n");
+
+        ShardedTurismoStore store = new ShardedTurismoStore(shards, json, null, null);
+        assertEquals(4, store.size());
+        assertEquals("Madrid", store.findById("b").getTo().getComunidad());
+        assertTrue(store.findByComunidad("Galicia").isEmpty());
+        assertEquals(1, store.findAll().stream().filter(t -> t.get_id().equals("d")).count());
+        assertEquals(store.size(), store.findByComunidad("").size() + store.findByComunidad("Madrid").size());
+        store.close();
+        assertEquals(0, Files.size(shards.resolve("moves.log")));
+    }
+
+    private static List<String> ids(List<Turismo> records) {
+        return records.stream().map(Turismo::get_id).toList();
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.lab2.store;
+
+import com.example.lab2.Turismo;
+import com.google.gson.Gson;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.example.lab2.TestRecords.builder;
+import static org.junit.Assert.*;
+
+/**
+ * TurismoSnapshotTest
+ * Unit tests for the binary snapshot format and the memory-mapped store.
+*/
+public class TurismoSnapshotTest {
+
+    private Path dir;
+
+    @Before
+    public void setup() throws Exception {
+        dir = Files.createTempDirectory("turismo-snapshot");
+    }
+
+    @After
+    public void cleanup() throws Exception {
+        try (var files = Files.list(dir)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(dir);
+    }
+
+    /**
+     * Tests that writing and mapping a snapshot gives back the same records, including
+     * null nested objects, and that the id index finds every record.
+     */
+    @Test
+    public void testRoundTrip() throws Exception {
+        List<Turismo> records = new ArrayList<>();
+        records.add(builder("b-id").from("Andalucía", "Sevilla").to("Madrid", "Madrid")
+                .timeRange("2024-01-01", "2024-01-31", "2024M01").total(10).build());
+        records.add(builder("a-id").from("Castilla y León", "Ávila").to("Madrid", "Madrid")
+                .timeRange("2024-01-01", "2024-01-31", "2024M01").total(20).build());
+        Turismo partial = new Turismo();
+        partial.set_id("c-id");
+        partial.setTotal(30);
+        records.add(partial);
+
+        Path path = dir.resolve("data.snapshot");
+        TurismoSnapshot.write(records, path);
+        TurismoSnapshot snapshot = TurismoSnapshot.open(path);
+
+        assertEquals(3, snapshot.size());
+        Gson gson = new Gson();
+        assertEquals(gson.toJson(records), gson.toJson(snapshot.readAll()));
+        assertEquals(1, snapshot.indexOf("a-id"));
+        assertEquals(0, snapshot.indexOf("b-id"));
+        assertEquals(2, snapshot.indexOf("c-id"));
+        assertEquals(-1, snapshot.indexOf("missing"));
+    }
+
+    /**
+     * Tests that the store imports the JSON file on first open, applies mutations and
+     * exports back to the JSON format.
+     */
+    @Test
+    public void testStoreImportMutateExport() throws Exception {
+        Path json = dir.resolve("data.json");
+        Path snapshotPath = dir.resolve("data.snapshot");
+        List<Turismo> records = List.of(builder("a-id").from("Galicia", "Lugo").to("Madrid", "Madrid")
+                .timeRange("2024-01-01", "2024-01-31", "2024M01").total(5).build());
+        Files.writeString(json, new Gson().toJson(records));
+
+        MappedSnapshotTurismoStore store = new MappedSnapshotTurismoStore(snapshotPath, json);
+        assertEquals(1, store.size());
+        store.add(builder("b-id").from("Aragón", "Huesca").to("Madrid", "Madrid")
+                .timeRange("2024-01-01", "2024-01-31", "2024M01").total(7).build());
+        assertTrue(store.update("a-id", builder("a-id").from("Galicia", "Ourense").to("Madrid", "Madrid")
+                .timeRange("2024-01-01", "2024-01-31", "2024M01").total(6).build()));
+        assertTrue(store.delete("b-id"));
+        assertFalse(store.delete("b-id"));
+
+        assertEquals("Ourense", store.findById("a-id").getFrom().getProvincia());
+        assertNull(store.findById("b-id"));
+
+        Path exported = dir.resolve("exported.json");
+        TurismoSnapshot.exportJson(snapshotPath, exported);
+        assertTrue(Files.readString(exported).contains("Ourense"));
+    }
+}
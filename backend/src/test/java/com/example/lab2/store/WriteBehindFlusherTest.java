@@ -0,0 +1,87 @@
+package com.example.lab2.store;
+
+import com.example.lab2.codec.TurismoCodec;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.example.lab2.TestRecords.builder;
+import static org.junit.Assert.*;
+
+/**
+ * WriteBehindFlusherTest
+ * Verifies flush coalescing, the max lag bound and the shutdown flush of write-behind stores.
+*/
+public class WriteBehindFlusherTest {
+
+    private Path json;
+
+    @Before
+    public void setup() throws Exception {
+        json = Files.createTempFile("turismo-writebehind", ".json");
+        Files.writeString(json, "[]");
+    }
+
+    @After
+    public void cleanup() throws Exception {
+        Files.deleteIfExists(json);
+    }
+
+    /**
+     * Tests that a burst of changes is written with a single flush.
+     */
+    @Test
+    public void testBurstIsCoalesced() throws Exception {
+        AtomicInteger flushes = new AtomicInteger();
+        WriteBehindFlusher flusher = new WriteBehindFlusher("test-flusher", Duration.ofMillis(50),
+                Duration.ofSeconds(5), flushes::incrementAndGet);
+        for (int i = 0; i < 1000; i++) {
+            flusher.markDirty();
+        }
+        Thread.sleep(300);
+        assertEquals(1, flushes.get());
+        flusher.close();
+        assertEquals(1, flushes.get());
+    }
+
+    /**
+     * Tests that a steady stream of changes is still flushed every maxLag.
+     */
+    @Test
+    public void testMaxLagBoundsContinuousWrites() throws Exception {
+        AtomicInteger flushes = new AtomicInteger();
+        WriteBehindFlusher flusher = new WriteBehindFlusher("test-flusher", Duration.ofMillis(50),
+                Duration.ofMillis(100), flushes::incrementAndGet);
+        long end = System.nanoTime() + Duration.ofMillis(550).toNanos();
+        while (System.nanoTime() < end) {
+            flusher.markDirty();
+            Thread.sleep(5);
+        }
+        // Sin maxLag no habría ningún flush mientras siguen llegando cambios
+        assertTrue("flushes: " + flushes.get(), flushes.get() >= 3);
+        flusher.close();
+    }
+
+    /**
+     * Tests that the store returns before writing and that close() writes pending records.
+     */
+    @Test
+    public void testStoreFlushesOnClose() throws Exception {
+        JsonFileTurismoStore store = new JsonFileTurismoStore(json, Duration.ofSeconds(10), Duration.ofSeconds(10));
+        for (int i = 0; i < 20; i++) {
+            store.add(builder("id-" + i).total(i).build());
+        }
+        assertTrue(store.delete("id-0"));
+        assertEquals(0, TurismoCodec.readJsonFile(json).size());
+
+        store.close();
+        assertEquals(19, TurismoCodec.readJsonFile(json).size());
+        assertEquals(19, new JsonFileTurismoStore(json).size());
+        assertFalse(Files.exists(json.resolveSibling(json.getFileName() + ".tmp")));
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.lab2.warmup;
+
+import org.junit.Test;
+import org.springframework.boot.availability.ApplicationAvailabilityBean;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.junit.Assert.*;
+
+/**
+ * ReadinessGateFilterTest
+ * Verifies that the API is closed until readiness is reported, except to the warm-up itself.
+*/
+public class ReadinessGateFilterTest {
+
+    private static final String TOKEN = "0123456789abcdef";
+
+    /**
+     * Tests that requests get 503 before readiness and while refusing traffic, unless they carry the warm-up
+     * token, and pass once accepting.
+     */
+    @Test
+    public void testGateFollowsReadiness() throws Exception {
+        ApplicationAvailabilityBean availability = new ApplicationAvailabilityBean();
+        ReadinessGateFilter filter = new ReadinessGateFilter(availability, TOKEN);
+
+        MockHttpServletResponse starting = run(filter, null);
+        assertEquals(503, starting.getStatus());
+        assertEquals("1", starting.getHeader("Retry-After"));
+        assertEquals(200, run(filter, TOKEN).getStatus());
+        assertEquals(503, run(filter, "true").getStatus());
+        assertEquals(503, run(filter, "").getStatus());
+
+        availability.onApplicationEvent(new AvailabilityChangeEvent<>(this, ReadinessState.ACCEPTING_TRAFFIC));
+        assertEquals(200, run(filter, null).getStatus());
+
+        availability.onApplicationEvent(new AvailabilityChangeEvent<>(this, ReadinessState.REFUSING_TRAFFIC));
+        assertEquals(503, run(filter, null).getStatus());
+    }
+
+    private static MockHttpServletResponse run(ReadinessGateFilter filter, String token) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/turismo");
+        if (token != null) {
+            request.addHeader(ReadinessGateFilter.WARM_UP_HEADER, token);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+}
@@ -1,6 +1,7 @@
 package org.vaadin.example;
 
-import java.lang.reflect.Type;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.net.URI;
 import java.net.URLEncoder;
 import java.net.http.HttpClient;
@@ -11,11 +12,15 @@ import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.vaadin.example.models.Turismo; // For LocalDate
+import org.vaadin.example.models.TurismoCodec;
 
-import com.google.gson.Gson; // For Button Variants (e.g., LUMO_ERROR)
-import com.google.gson.reflect.TypeToken; // For Form Layout
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.vaadin.flow.component.button.Button;
 import com.vaadin.flow.component.button.ButtonVariant;
 import com.vaadin.flow.component.combobox.ComboBox;
@@ -35,12 +40,17 @@ import com.vaadin.flow.router.Route;
 @Route("")
 public class MainView extends VerticalLayout {
 
+    private static final String SMILE_CONTENT_TYPE = "application/x-jackson-smile";
+
     private Grid<Turismo> grid = new Grid<>(Turismo.class); // Grid for CRUD functionality
     private Grid<Turismo> communityGrid = new Grid<>(Turismo.class); // Grid for Group by Community
     private List<Turismo> allRecords = new ArrayList<>(); // Store all records for filtering
-    private List<String> communityCodes = new ArrayList<>(); // List of unique community codes
+    private final String apiUrl; // Base URL of the Turismo API, from backend.url
+
+    public MainView(@Value("${backend.url}") String backendUrl) {
+        apiUrl = (backendUrl.endsWith("/") ? backendUrl.substring(0, backendUrl.length() - 1) : backendUrl)
+            + "/api/turismo";
 
-    public MainView() {
         add(new H1("Tourism Data Management"));
 
         // Create Tabs
@@ -98,9 +108,9 @@ public class MainView extends VerticalLayout {
         communityDropdown.setPlaceholder("Choose a community");
         communityDropdown.setWidth("300px");
 
-        // Fetch community codes and populate ComboBox
-        fetchCommunityCodes();
-        communityDropdown.setItems(communityCodes);
+        // Lazy data source: the backend filters by what the user types (prefix, accents ignored)
+        communityDropdown.setItems(query -> fetchCommunityNames(
+                query.getFilter().orElse(""), query.getOffset(), query.getLimit()).stream());
 
         // Add listener for ComboBox selection
         communityDropdown.addValueChangeListener(event -> {
@@ -148,21 +158,19 @@ public class MainView extends VerticalLayout {
         add(new HorizontalLayout(addButton, datePicker));
     }
 
+    // Records currently loaded in the CRUD grid (used by MainViewLoadTest)
+    List<Turismo> getAllRecords() {
+        return allRecords;
+    }
+
     // Fetch data from the backend and populate the grid
-    private void fetchData() {
+    void fetchData() {
         try {
             HttpClient client = HttpClient.newHttpClient();
-            HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("https://lab2-backend-085cd548673a.herokuapp.com/api/turismo"))
-                //.uri(URI.create("http://localhost:8083/api/turismo"))
-                .build();
+            HttpRequest request = recordsRequest(apiUrl);
     
-            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
-            Gson gson = new Gson();
-            
-            // Use TypeToken for correct deserialization
-            Type listType = new TypeToken<List<Turismo>>() {}.getType();
-            allRecords = gson.fromJson(response.body(), listType); // Save all records for filtering
+            HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            allRecords = readRecords(response); // Save all records for filtering
             
             grid.setItems(allRecords); // Populate grid with the deserialized records
         } catch (Exception e) {
@@ -172,7 +180,7 @@ public class MainView extends VerticalLayout {
     }
 
     // Filter grid rows by a selected date
-    private void filterByDate(LocalDate date) {
+    void filterByDate(LocalDate date) {
         if (date != null) {
             List<Turismo> filtered = allRecords.stream()
                 .filter(record -> record.getTimeRange().getFecha_inicio().equals(date.toString()))
@@ -231,15 +239,13 @@ public class MainView extends VerticalLayout {
         dialog.open();
     }
 
-    private void addRecordToBackend(Turismo turismo) {
+    void addRecordToBackend(Turismo turismo) {
         try {
             HttpClient client = HttpClient.newHttpClient();
-            Gson gson = new Gson();
-            String jsonPayload = gson.toJson(turismo);
+            String jsonPayload = TurismoCodec.toJson(turismo);
 
             HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("https://lab2-backend-085cd548673a.herokuapp.com/api/turismo"))
-                //.uri(URI.create("http://localhost:8083/api/turismo"))
+                .uri(URI.create(apiUrl))
                 .header("Content-Type", "application/json")
                 .POST(HttpRequest.BodyPublishers.ofString(jsonPayload))
                 .build();
@@ -259,8 +265,7 @@ public class MainView extends VerticalLayout {
             // Fetch the latest data for the selected record by its ID
             HttpClient client = HttpClient.newHttpClient();
             HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("https://lab2-backend-085cd548673a.herokuapp.com/api/turismo/" + turismo.get_id())) // Correct API call with ID
-                //.uri(URI.create("http://localhost:8083/api/turismo/" + turismo.get_id())) // Correct API call with ID
+                .uri(URI.create(apiUrl + "/" + turismo.get_id())) // Correct API call with ID
                 .build();
 
             HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
@@ -276,8 +281,10 @@ public class MainView extends VerticalLayout {
             }
 
             // Parse the fetched data
-            Gson gson = new Gson();
-            Turismo latestRecord = gson.fromJson(response.body(), Turismo.class);
+            Turismo latestRecord;
+            try (JsonParser parser = TurismoCodec.JSON.createParser(response.body())) {
+                latestRecord = TurismoCodec.read(parser);
+            }
 
             // Open a dialog to display the form with fetched data
             Dialog dialog = new Dialog();
@@ -323,15 +330,13 @@ public class MainView extends VerticalLayout {
     }
 
     // Update the record in the backend
-    private void updateRecordInBackend(Turismo turismo) {
+    void updateRecordInBackend(Turismo turismo) {
         try {
             HttpClient client = HttpClient.newHttpClient();
-            Gson gson = new Gson();
-            String jsonPayload = gson.toJson(turismo);
+            String jsonPayload = TurismoCodec.toJson(turismo);
 
             HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("https://lab2-backend-085cd548673a.herokuapp.com/api/turismo/" + turismo.get_id())) // API call for updating
-                //.uri(URI.create("http://localhost:8083/api/turismo/" + turismo.get_id())) // API call for updating
+                .uri(URI.create(apiUrl + "/" + turismo.get_id())) // API call for updating
                 .header("Content-Type", "application/json")
                 .PUT(HttpRequest.BodyPublishers.ofString(jsonPayload))
                 .build();
@@ -351,13 +356,12 @@ public class MainView extends VerticalLayout {
     }
 
     // Delete a record
-    private void deleteRecordFromBackend(Turismo turismo) {
+    void deleteRecordFromBackend(Turismo turismo) {
         try {
             HttpClient client = HttpClient.newHttpClient();
 
             HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("https://lab2-backend-085cd548673a.herokuapp.com/api/turismo/" + turismo.get_id()))
-                //.uri(URI.create("http://localhost:8083/api/turismo/" + turismo.get_id()))
+                .uri(URI.create(apiUrl + "/" + turismo.get_id()))
                 .DELETE()
                 .build();
 
@@ -379,44 +383,43 @@ public class MainView extends VerticalLayout {
         communityGrid.addColumn(Turismo::getTotal).setHeader("Total");
     }
 
-    private void fetchCommunityCodes() {
+    // Fetch one page of destination community names matching the filter
+    List<String> fetchCommunityNames(String filter, int offset, int limit) {
         try {
+            String query = "?field=to.comunidad&q=" + URLEncoder.encode(filter, StandardCharsets.UTF_8)
+                + "&offset=" + offset + "&limit=" + limit;
             HttpClient client = HttpClient.newHttpClient();
             HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("https://lab2-backend-085cd548673a.herokuapp.com/api/turismo")) // Adjust the backend endpoint as needed
-                //.uri(URI.create("http://localhost:8083/api/turismo")) // Adjust the backend endpoint as needed
+                .uri(URI.create(apiUrl + "/places" + query))
+                .header("Accept", "application/json")
                 .build();
 
-            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
-            Gson gson = new Gson();
-            Type listType = new TypeToken<List<Turismo>>() {}.getType();
-            List<Turismo> records = gson.fromJson(response.body(), listType);
-
-            // Extract unique community codes and sort alphabetically
-            communityCodes = records.stream()
-                .map(record -> record.getTo().getComunidad())
-                .distinct()
-                .sorted() // Sort alphabetically
-                .collect(Collectors.toList());
-
+            HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            List<String> names = new ArrayList<>();
+            try (JsonParser parser = TurismoCodec.JSON.createParser(response.body())) {
+                if (parser.nextToken() == JsonToken.START_ARRAY) {
+                    while (parser.nextToken() == JsonToken.VALUE_STRING) {
+                        names.add(parser.getText());
+                    }
+                }
+            }
+            return names;
         } catch (Exception e) {
             Notification.show("Failed to fetch community codes: " + e.getMessage());
             e.printStackTrace();
+            return new ArrayList<>();
         }
     }
 
-    private void fetchCommunityData(String communityCode) {
+    void fetchCommunityData(String communityCode) {
         try {
             // URL-encode the community name
             String encodedCommunityCode = URLEncoder.encode(communityCode, StandardCharsets.UTF_8);
     
             HttpClient client = HttpClient.newHttpClient();
-            HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("https://lab2-backend-085cd548673a.herokuapp.com/api/turismo/community/" + encodedCommunityCode))
-                //.uri(URI.create("http://localhost:8083/api/turismo/community/" + encodedCommunityCode))
-                .build();
+            HttpRequest request = recordsRequest(apiUrl + "/community/" + encodedCommunityCode);
     
-            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
     
             if (response.statusCode() == 404) {
                 Notification.show("No records found for community: " + communityCode);
@@ -424,9 +427,7 @@ public class MainView extends VerticalLayout {
                 return;
             }
     
-            Gson gson = new Gson();
-            Type listType = new TypeToken<List<Turismo>>() {}.getType();
-            List<Turismo> communityRecords = gson.fromJson(response.body(), listType);
+            List<Turismo> communityRecords = readRecords(response);
     
             communityGrid.setItems(communityRecords);
         } catch (Exception e) {
@@ -434,5 +435,29 @@ public class MainView extends VerticalLayout {
             e.printStackTrace();
         }
     }
-    
+
+    // Build a GET for a list endpoint that prefers Smile (binary JSON) and gzip
+    private HttpRequest recordsRequest(String url) {
+        return HttpRequest.newBuilder()
+            .uri(URI.create(url))
+            .header("Accept", SMILE_CONTENT_TYPE + ", application/json;q=0.9")
+            .header("Accept-Encoding", "gzip")
+            .build();
+    }
+
+    // Decode a list response in whichever format and encoding the backend chose
+    private List<Turismo> readRecords(HttpResponse<byte[]> response) throws IOException {
+        byte[] body = response.body();
+        if (response.headers().firstValue("Content-Encoding").orElse("").equalsIgnoreCase("gzip")) {
+            try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+                body = in.readAllBytes();
+            }
+        }
+        boolean smile = response.headers().firstValue("Content-Type").orElse("").startsWith(SMILE_CONTENT_TYPE);
+        JsonFactory factory = smile ? TurismoCodec.SMILE : TurismoCodec.JSON;
+        try (JsonParser parser = factory.createParser(body)) {
+            return TurismoCodec.readList(parser);
+        }
+    }
+
 }
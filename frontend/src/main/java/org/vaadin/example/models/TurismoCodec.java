@@ -0,0 +1,257 @@
+package org.vaadin.example.models;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+
+/**
+ * Hand-written streaming codec for Turismo, FromTo and TimeRange.
+ *
+ * Frontend copy of the backend's com.example.lab2.codec.TurismoCodec, kept field for
+ * field in step with it so both sides read and write the same wire format; MainView
+ * uses it for every request and response body. It works on Jackson's streaming parser
+ * and generator, so the same code reads and writes JSON and Smile, and it never uses
+ * reflection. Field names are pre-encoded, null fields
+ * are omitted on write, and unknown fields are skipped on read.
+ *
+ * comunidad, provincia, dates and period take few distinct values, so on read they go
+ * through a small shared table that hands back the previous String instance instead of
+ * allocating a new one per record.
+ */
+public final class TurismoCodec {
+
+    public static final JsonFactory JSON = JsonFactory.builder().build();
+    public static final SmileFactory SMILE = SmileFactory.builder()
+            .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)
+            .build();
+
+    private static final SerializableString ID = new SerializedString("_id");
+    private static final SerializableString FROM = new SerializedString("from");
+    private static final SerializableString TO = new SerializedString("to");
+    private static final SerializableString TIME_RANGE = new SerializedString("timeRange");
+    private static final SerializableString TOTAL = new SerializedString("total");
+    private static final SerializableString COMUNIDAD = new SerializedString("comunidad");
+    private static final SerializableString PROVINCIA = new SerializedString("provincia");
+    private static final SerializableString FECHA_INICIO = new SerializedString("fecha_inicio");
+    private static final SerializableString FECHA_FIN = new SerializedString("fecha_fin");
+    private static final SerializableString PERIOD = new SerializedString("period");
+
+    private static final int MAX_SHARED_LENGTH = 48;
+    // Tabla de tamaño fijo sin lock: una carrera sólo pierde una entrada, los String son inmutables
+    private static final String[] SHARED = new String[4096];
+
+    private TurismoCodec() {}
+
+    public static void write(JsonGenerator generator, Turismo turismo) throws IOException {
+        generator.writeStartObject();
+        writeString(generator, ID, turismo.get_id());
+        if (turismo.getFrom() != null) {
+            generator.writeFieldName(FROM);
+            writeFromTo(generator, turismo.getFrom());
+        }
+        if (turismo.getTo() != null) {
+            generator.writeFieldName(TO);
+            writeFromTo(generator, turismo.getTo());
+        }
+        Turismo.TimeRange timeRange = turismo.getTimeRange();
+        if (timeRange != null) {
+            generator.writeFieldName(TIME_RANGE);
+            generator.writeStartObject();
+            writeString(generator, FECHA_INICIO, timeRange.getFecha_inicio());
+            writeString(generator, FECHA_FIN, timeRange.getFecha_fin());
+            writeString(generator, PERIOD, timeRange.getPeriod());
+            generator.writeEndObject();
+        }
+        generator.writeFieldName(TOTAL);
+        generator.writeNumber(turismo.getTotal());
+        generator.writeEndObject();
+    }
+
+    public static void writeList(JsonGenerator generator, Iterable<Turismo> records) throws IOException {
+        generator.writeStartArray();
+        for (Turismo turismo : records) {
+            write(generator, turismo);
+        }
+        generator.writeEndArray();
+    }
+
+    /**
+     * Encode one record as a JSON string.
+     */
+    public static String toJson(Turismo turismo) throws IOException {
+        StringWriter out = new StringWriter(256);
+        try (JsonGenerator generator = JSON.createGenerator(out)) {
+            write(generator, turismo);
+        }
+        return out.toString();
+    }
+
+    /**
+     * Read one record. The parser may be positioned before or on its START_OBJECT;
+     * a JSON null gives null.
+     */
+    public static Turismo read(JsonParser parser) throws IOException {
+        JsonToken token = current(parser);
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        expect(parser, token, JsonToken.START_OBJECT);
+        Turismo turismo = new Turismo();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            parser.nextToken();
+            switch (name) {
+                case "_id":
+                    turismo.set_id(parser.getValueAsString());
+                    break;
+                case "from":
+                    turismo.setFrom(readFromTo(parser));
+                    break;
+                case "to":
+                    turismo.setTo(readFromTo(parser));
+                    break;
+                case "timeRange":
+                    turismo.setTimeRange(readTimeRange(parser));
+                    break;
+                case "total":
+                    turismo.setTotal(parser.getValueAsInt());
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        return turismo;
+    }
+
+    /**
+     * Read an array of records; a JSON null gives an empty list.
+     */
+    public static List<Turismo> readList(JsonParser parser) throws IOException {
+        List<Turismo> records = new ArrayList<>();
+        JsonToken token = current(parser);
+        if (token == null || token == JsonToken.VALUE_NULL) {
+            return records;
+        }
+        expect(parser, token, JsonToken.START_ARRAY);
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            records.add(read(parser));
+        }
+        return records;
+    }
+
+    private static void writeFromTo(JsonGenerator generator, Turismo.FromTo fromTo) throws IOException {
+        generator.writeStartObject();
+        writeString(generator, COMUNIDAD, fromTo.getComunidad());
+        writeString(generator, PROVINCIA, fromTo.getProvincia());
+        generator.writeEndObject();
+    }
+
+    private static void writeString(JsonGenerator generator, SerializableString name, String value)
+            throws IOException {
+        if (value != null) {
+            generator.writeFieldName(name);
+            generator.writeString(value);
+        }
+    }
+
+    private static Turismo.FromTo readFromTo(JsonParser parser) throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        expect(parser, parser.currentToken(), JsonToken.START_OBJECT);
+        Turismo.FromTo fromTo = new Turismo.FromTo();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            parser.nextToken();
+            switch (name) {
+                case "comunidad":
+                    fromTo.setComunidad(sharedText(parser));
+                    break;
+                case "provincia":
+                    fromTo.setProvincia(sharedText(parser));
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        return fromTo;
+    }
+
+    private static Turismo.TimeRange readTimeRange(JsonParser parser) throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        expect(parser, parser.currentToken(), JsonToken.START_OBJECT);
+        Turismo.TimeRange timeRange = new Turismo.TimeRange();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            parser.nextToken();
+            switch (name) {
+                case "fecha_inicio":
+                    timeRange.setFecha_inicio(sharedText(parser));
+                    break;
+                case "fecha_fin":
+                    timeRange.setFecha_fin(sharedText(parser));
+                    break;
+                case "period":
+                    timeRange.setPeriod(sharedText(parser));
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        return timeRange;
+    }
+
+    private static String sharedText(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.VALUE_STRING || parser.getTextLength() > MAX_SHARED_LENGTH) {
+            return parser.getValueAsString();
+        }
+        char[] chars = parser.getTextCharacters();
+        int offset = parser.getTextOffset();
+        int length = parser.getTextLength();
+        int hash = 0;
+        for (int i = 0; i < length; i++) {
+            hash = 31 * hash + chars[offset + i];
+        }
+        int slot = (hash ^ (hash >>> 16)) & (SHARED.length - 1);
+        String candidate = SHARED[slot];
+        if (candidate != null && candidate.length() == length && matches(candidate, chars, offset)) {
+            return candidate;
+        }
+        String value = new String(chars, offset, length);
+        SHARED[slot] = value;
+        return value;
+    }
+
+    private static boolean matches(String candidate, char[] chars, int offset) {
+        for (int i = 0; i < candidate.length(); i++) {
+            if (candidate.charAt(i) != chars[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static JsonToken current(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        return token != null ? token : parser.nextToken();
+    }
+
+    private static void expect(JsonParser parser, JsonToken actual, JsonToken expected) throws IOException {
+        if (actual != expected) {
+            throw new JsonParseException(parser, "Expected " + expected + " but found " + actual);
+        }
+    }
+}
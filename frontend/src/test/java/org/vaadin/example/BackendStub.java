@@ -0,0 +1,291 @@
+package org.vaadin.example;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+import org.vaadin.example.models.Turismo;
+import org.vaadin.example.models.TurismoCodec;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * In-process stand-in for the backend's Turismo API, for MainViewLoadTest.
+ *
+ * It answers the requests MainView makes, with the backend's wire format: list, by id
+ * and community GETs (JSON or Smile as the Accept header asks, gzip when accepted),
+ * page/size, places prefix search, and POST/PUT/DELETE. Records are generated from a
+ * fixed seed, one per month and origin/destination pair, so every run starts from the
+ * same data. Requests run on virtual threads; responses with status 400 and up are
+ * counted in errors().
+ */
+class BackendStub implements AutoCloseable {
+
+    private static final String SMILE_CONTENT_TYPE = "application/x-jackson-smile";
+    private static final String[][] PLACES = {
+        {"Andalucía", "Málaga", "Sevilla", "Cádiz", "Granada"},
+        {"Cataluña", "Barcelona", "Girona", "Tarragona"},
+        {"Comunidad de Madrid", "Madrid"},
+        {"Comunitat Valenciana", "Valencia", "Alicante", "Castellón"},
+        {"Galicia", "A Coruña", "Pontevedra", "Lugo"},
+        {"Illes Balears", "Illes Balears"},
+        {"Canarias", "Las Palmas", "Santa Cruz de Tenerife"},
+        {"País Vasco", "Bizkaia", "Gipuzkoa", "Araba/Álava"},
+        {"Castilla y León", "León", "Burgos", "Valladolid", "Salamanca"},
+        {"Aragón", "Zaragoza", "Huesca", "Teruel"}
+    };
+
+    private final HttpServer server;
+    // Misma semántica que el store del backend: orden de inserción y búsqueda por id
+    private final Map<String, Turismo> records = new LinkedHashMap<>();
+    private final AtomicLong errors = new AtomicLong();
+
+    BackendStub(int size, long seed) throws IOException {
+        SplittableRandom random = new SplittableRandom(seed);
+        YearMonth first = YearMonth.of(2019, 1);
+        for (int i = 0; i < size; i++) {
+            String[] from = PLACES[random.nextInt(PLACES.length)];
+            String[] to = PLACES[random.nextInt(PLACES.length)];
+            YearMonth month = first.plusMonths(random.nextInt(72));
+            Turismo turismo = new Turismo();
+            turismo.set_id(new UUID(seed, i).toString());
+            turismo.setFrom(fromTo(from[0], from[1 + random.nextInt(from.length - 1)]));
+            turismo.setTo(fromTo(to[0], to[1 + random.nextInt(to.length - 1)]));
+            Turismo.TimeRange timeRange = new Turismo.TimeRange();
+            timeRange.setFecha_inicio(month.atDay(1).toString());
+            timeRange.setFecha_fin(month.atEndOfMonth().toString());
+            timeRange.setPeriod(String.format("%dM%02d", month.getYear(), month.getMonthValue()));
+            turismo.setTimeRange(timeRange);
+            turismo.setTotal((int) Math.exp(4 + 2 * random.nextDouble() * random.nextDouble() * 3));
+            records.put(turismo.get_id(), turismo);
+        }
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 1024);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/api/turismo", this::handle);
+        server.start();
+    }
+
+    /**
+     * Base URL to use as backend.url.
+     */
+    String url() {
+        return "http://localhost:" + server.getAddress().getPort() + "/";
+    }
+
+    long errors() {
+        return errors.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String path = exchange.getRequestURI().getRawPath().substring("/api/turismo".length());
+            Map<String, String> query = query(exchange.getRequestURI().getRawQuery());
+            String method = exchange.getRequestMethod();
+            if (path.isEmpty() || path.equals("/")) {
+                switch (method) {
+                    case "GET" -> sendRecords(exchange, page(query));
+                    case "POST" -> {
+                        Turismo turismo = readBody(exchange);
+                        turismo.set_id(UUID.randomUUID().toString());
+                        synchronized (records) {
+                            records.put(turismo.get_id(), turismo);
+                        }
+                        sendText(exchange, 200, "Record added successfully.");
+                    }
+                    default -> sendText(exchange, 405, "Method not allowed.");
+                }
+            } else if (path.equals("/places")) {
+                sendNames(exchange, places(query));
+            } else if (path.startsWith("/community/")) {
+                String community = URLDecoder.decode(path.substring("/community/".length()), StandardCharsets.UTF_8);
+                List<Turismo> found = new ArrayList<>();
+                synchronized (records) {
+                    for (Turismo turismo : records.values()) {
+                        if (turismo.getTo() != null && community.equals(turismo.getTo().getComunidad())) {
+                            found.add(turismo);
+                        }
+                    }
+                }
+                if (found.isEmpty()) {
+                    sendText(exchange, 404, "");
+                } else {
+                    sendRecords(exchange, found);
+                }
+            } else {
+                String id = URLDecoder.decode(path.substring(1), StandardCharsets.UTF_8);
+                switch (method) {
+                    case "GET" -> {
+                        Turismo turismo;
+                        synchronized (records) {
+                            turismo = records.get(id);
+                        }
+                        if (turismo == null) {
+                            sendText(exchange, 404, "");
+                        } else {
+                            sendRecord(exchange, turismo);
+                        }
+                    }
+                    case "PUT" -> {
+                        Turismo turismo = readBody(exchange);
+                        turismo.set_id(id);
+                        boolean found;
+                        synchronized (records) {
+                            found = records.replace(id, turismo) != null;
+                        }
+                        sendText(exchange, found ? 200 : 404, found ? "Record updated successfully." : "Record not found.");
+                    }
+                    case "DELETE" -> {
+                        boolean found;
+                        synchronized (records) {
+                            found = records.remove(id) != null;
+                        }
+                        sendText(exchange, found ? 200 : 404, found ? "Record deleted successfully." : "Record not found.");
+                    }
+                    default -> sendText(exchange, 405, "Method not allowed.");
+                }
+            }
+        } catch (RuntimeException e) {
+            errors.incrementAndGet();
+            throw e;
+        }
+    }
+
+    private List<Turismo> page(Map<String, String> query) {
+        synchronized (records) {
+            List<Turismo> all = new ArrayList<>(records.values());
+            if (!query.containsKey("page") || !query.containsKey("size")) {
+                return all;
+            }
+            int size = Integer.parseInt(query.get("size"));
+            int start = Math.min(Integer.parseInt(query.get("page")) * size, all.size());
+            return all.subList(start, Math.min(start + size, all.size()));
+        }
+    }
+
+    // Nombres de destino que empiezan por q, sin distinguir mayúsculas ni acentos, como /places
+    private List<String> places(Map<String, String> query) {
+        String prefix = fold(query.getOrDefault("q", ""));
+        TreeSet<String> names = new TreeSet<>();
+        synchronized (records) {
+            for (Turismo turismo : records.values()) {
+                String name = turismo.getTo() != null ? turismo.getTo().getComunidad() : null;
+                if (name != null && fold(name).startsWith(prefix)) {
+                    names.add(name);
+                }
+            }
+        }
+        List<String> sorted = new ArrayList<>(names);
+        int offset = Math.min(Integer.parseInt(query.getOrDefault("offset", "0")), sorted.size());
+        int limit = Integer.parseInt(query.getOrDefault("limit", "50"));
+        return sorted.subList(offset, Math.min(offset + limit, sorted.size()));
+    }
+
+    private static String fold(String text) {
+        return Normalizer.normalize(text, Normalizer.Form.NFD).replaceAll("\\p{M}", "").toLowerCase(Locale.ROOT);
+    }
+
+    private static Turismo readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody(); JsonParser parser = TurismoCodec.JSON.createParser(in)) {
+            return TurismoCodec.read(parser);
+        }
+    }
+
+    private void sendRecords(HttpExchange exchange, List<Turismo> list) throws IOException {
+        send(exchange, generator -> TurismoCodec.writeList(generator, list));
+    }
+
+    private void sendRecord(HttpExchange exchange, Turismo turismo) throws IOException {
+        send(exchange, generator -> TurismoCodec.write(generator, turismo));
+    }
+
+    private void sendNames(HttpExchange exchange, List<String> names) throws IOException {
+        send(exchange, generator -> {
+            generator.writeStartArray();
+            for (String name : names) {
+                generator.writeString(name);
+            }
+            generator.writeEndArray();
+        });
+    }
+
+    private interface Body {
+        void write(JsonGenerator generator) throws IOException;
+    }
+
+    private void send(HttpExchange exchange, Body body) throws IOException {
+        boolean smile = exchange.getRequestHeaders().getFirst("Accept") != null
+                && exchange.getRequestHeaders().getFirst("Accept").contains(SMILE_CONTENT_TYPE);
+        boolean gzip = "gzip".equalsIgnoreCase(exchange.getRequestHeaders().getFirst("Accept-Encoding"));
+        JsonFactory factory = smile ? TurismoCodec.SMILE : TurismoCodec.JSON;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = gzip ? new GZIPOutputStream(bytes) : bytes;
+             JsonGenerator generator = factory.createGenerator(out)) {
+            body.write(generator);
+        }
+        exchange.getResponseHeaders().set("Content-Type", smile ? SMILE_CONTENT_TYPE : "application/json");
+        if (gzip) {
+            exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+        }
+        exchange.sendResponseHeaders(200, bytes.size());
+        exchange.getResponseBody().write(bytes.toByteArray());
+    }
+
+    private void sendText(HttpExchange exchange, int status, String text) throws IOException {
+        if (status >= 400) {
+            errors.incrementAndGet();
+        }
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain;charset=UTF-8");
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        if (bytes.length > 0) {
+            exchange.getResponseBody().write(bytes);
+        }
+    }
+
+    private static Map<String, String> query(String rawQuery) {
+        Map<String, String> params = new LinkedHashMap<>();
+        if (rawQuery != null) {
+            for (String pair : rawQuery.split("&")) {
+                int eq = pair.indexOf('=');
+                if (eq > 0) {
+                    params.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                            URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+                }
+            }
+        }
+        return params;
+    }
+
+    private static Turismo.FromTo fromTo(String comunidad, String provincia) {
+        Turismo.FromTo fromTo = new Turismo.FromTo();
+        fromTo.setComunidad(comunidad);
+        fromTo.setProvincia(provincia);
+        return fromTo;
+    }
+}
@@ -0,0 +1,301 @@
+package org.vaadin.example;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.vaadin.example.models.Turismo;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vaadin.flow.component.UI;
+
+/**
+ * End-to-end load test of the MainView flows and the REST API.
+ *
+ * Simulated Vaadin sessions each get their own UI and MainView, built and driven on
+ * their own virtual thread exactly as a user's clicks would run them on the server:
+ * open the view (list), filter by date, pick a community from the lazy dropdown and
+ * load it, then add a record, edit it and delete it again, so the dataset keeps its
+ * size. REST clients meanwhile read pages, single records and communities straight
+ * from the API. Every operation's latency is recorded, and p50/p95/p99 per operation
+ * are printed at the end together with the peak and final heap of this JVM (which
+ * hosts the sessions) and, for a real backend, the backend's heap from
+ * /actuator/metrics.
+ *
+ * By default the backend is a BackendStub in this JVM with a generated dataset. To load
+ * a real backend, start it on a generated dataset with admission control off (all
+ * clients share one address) and pass its URL:
+ * <pre>
+ *   java -cp lab2-0.0.1-SNAPSHOT.jar -Dloader.main=com.example.lab2.dataset.DatasetGenerator \
+ *        org.springframework.boot.loader.launch.PropertiesLauncher 100000 json /tmp/turismo.json
+ *   java -jar lab2-0.0.1-SNAPSHOT.jar --turismo.data.json=/tmp/turismo.json --turismo.admission.enabled=false
+ *   mvn test -Ploadtest -Dloadtest.backend=http://localhost:8083
+ * </pre>
+ * Other settings: -Dloadtest.sessions (default 50), -Dloadtest.clients (50),
+ * -Dloadtest.duration in seconds (30) and -Dloadtest.records for the stub (5000).
+ * The test fails if any flow went wrong or the stub answered an error.
+ */
+public class MainViewLoadTest {
+
+    private static final String[] OPERATIONS = {
+        "view.list", "view.filterByDate", "view.communityNames", "view.community",
+        "view.add", "view.edit", "view.delete", "rest.page", "rest.byId", "rest.community"
+    };
+
+    private final Map<String, ConcurrentLinkedQueue<Long>> latencies = new ConcurrentHashMap<>();
+    private final AtomicLong failures = new AtomicLong();
+    private final HttpClient client = HttpClient.newHttpClient();
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    public void testMainViewFlowsUnderLoad() throws Exception {
+        int sessions = Integer.getInteger("loadtest.sessions", 50);
+        int clients = Integer.getInteger("loadtest.clients", 50);
+        Duration duration = Duration.ofSeconds(Long.getLong("loadtest.duration", 30));
+        String backend = System.getProperty("loadtest.backend");
+
+        BackendStub stub = backend == null ? new BackendStub(Integer.getInteger("loadtest.records", 5000), 42) : null;
+        String url = stub != null ? stub.url() : backend;
+        String apiUrl = (url.endsWith("/") ? url.substring(0, url.length() - 1) : url) + "/api/turismo";
+        for (String operation : OPERATIONS) {
+            latencies.put(operation, new ConcurrentLinkedQueue<>());
+        }
+
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        AtomicLong peakHeap = new AtomicLong();
+        AtomicLong peakBackendHeap = new AtomicLong(-1);
+        ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+        sampler.scheduleAtFixedRate(() -> {
+            peakHeap.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max);
+            if (backend != null) {
+                peakBackendHeap.accumulateAndGet(backendHeap(url), Math::max);
+            }
+        }, 0, 500, TimeUnit.MILLISECONDS);
+
+        long deadline = System.nanoTime() + duration.toNanos();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < sessions; i++) {
+                int session = i;
+                executor.submit(() -> runSession(session, url, deadline));
+            }
+            for (int i = 0; i < clients; i++) {
+                int seed = i;
+                executor.submit(() -> runClient(seed, apiUrl, deadline));
+            }
+        }
+        sampler.shutdownNow();
+
+        System.gc();
+        System.out.printf("Load test: %d Vaadin sessions + %d REST clients for %d s against %s%n",
+                sessions, clients, duration.toSeconds(), stub != null ? "BackendStub" : backend);
+        System.out.printf("%-22s %8s %9s %9s %9s%n", "operation", "count", "p50 ms", "p95 ms", "p99 ms");
+        for (String operation : OPERATIONS) {
+            long[] values = latencies.get(operation).stream().mapToLong(Long::longValue).sorted().toArray();
+            System.out.printf("%-22s %8d %9.1f %9.1f %9.1f%n", operation, values.length,
+                    percentile(values, 0.50), percentile(values, 0.95), percentile(values, 0.99));
+        }
+        System.out.printf("Heap (sessions JVM): peak %d MB, after GC %d MB%n",
+                peakHeap.get() >> 20, memory.getHeapMemoryUsage().getUsed() >> 20);
+        if (backend != null) {
+            System.out.printf("Heap (backend): peak %d MB, now %d MB%n",
+                    peakBackendHeap.get() >> 20, backendHeap(url) >> 20);
+        }
+        System.out.println("Failed flows: " + failures.get());
+
+        long stubErrors = stub != null ? stub.errors() : 0;
+        if (stub != null) {
+            stub.close();
+        }
+        Assertions.assertTrue(latencies.get("view.list").size() >= sessions, "every session opened the view");
+        Assertions.assertEquals(0, failures.get(), "failed flows");
+        Assertions.assertEquals(0, stubErrors, "error responses from the stub");
+    }
+
+    /**
+     * One Vaadin session: the UI is current on this thread for everything MainView does,
+     * as it is while Vaadin handles a request for the session.
+     */
+    private void runSession(int session, String url, long deadline) {
+        SplittableRandom random = new SplittableRandom(session);
+        UI ui = new UI();
+        UI.setCurrent(ui);
+        try {
+            MainView view = time("view.list", () -> new MainView(url));
+            ui.add(view);
+            for (int round = 0; System.nanoTime() < deadline; round++) {
+                if (view.getAllRecords().isEmpty()) {
+                    failures.incrementAndGet();
+                    return;
+                }
+                LocalDate date = LocalDate.of(2019 + random.nextInt(6), 1 + random.nextInt(12), 1);
+                time("view.filterByDate", () -> view.filterByDate(date));
+                view.filterByDate(null);
+
+                List<String> names = time("view.communityNames", () -> view.fetchCommunityNames("", 0, 50));
+                if (names.isEmpty()) {
+                    failures.incrementAndGet();
+                } else {
+                    String name = names.get(random.nextInt(names.size()));
+                    time("view.community", () -> view.fetchCommunityData(name));
+                }
+
+                // Alta, edición y borrado de un registro propio, localizado por su provincia de origen
+                String marker = "LoadTest " + session + "-" + round;
+                time("view.add", () -> view.addRecordToBackend(record(marker, random.nextInt(1000))));
+                Turismo added = find(view, marker);
+                if (added == null) {
+                    failures.incrementAndGet();
+                    continue;
+                }
+                added.setTotal(added.getTotal() + 1);
+                time("view.edit", () -> view.updateRecordInBackend(added));
+                time("view.delete", () -> view.deleteRecordFromBackend(added));
+                if (find(view, marker) != null) {
+                    failures.incrementAndGet();
+                }
+            }
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            failures.incrementAndGet();
+        } finally {
+            UI.setCurrent(null);
+        }
+    }
+
+    /**
+     * One REST client reading the API the way other consumers do.
+     */
+    private void runClient(int seed, String apiUrl, long deadline) {
+        SplittableRandom random = new SplittableRandom(1000 + seed);
+        List<String> ids = new ArrayList<>();
+        List<String> communities = new ArrayList<>();
+        try {
+            while (System.nanoTime() < deadline) {
+                int page = random.nextInt(20);
+                HttpResponse<String> response = time("rest.page",
+                        () -> get(apiUrl + "?page=" + page + "&size=50"));
+                for (JsonNode record : mapper.readTree(response.body())) {
+                    ids.add(record.path("_id").asText());
+                    communities.add(record.path("to").path("comunidad").asText());
+                }
+                if (ids.isEmpty()) {
+                    continue;
+                }
+                String id = ids.get(random.nextInt(ids.size()));
+                time("rest.byId", () -> get(apiUrl + "/" + id));
+                String community = URLEncoder.encode(communities.get(random.nextInt(communities.size())),
+                        StandardCharsets.UTF_8);
+                time("rest.community", () -> get(apiUrl + "/community/" + community));
+                if (ids.size() > 1000) {
+                    ids.clear();
+                    communities.clear();
+                }
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            failures.incrementAndGet();
+        }
+    }
+
+    private HttpResponse<String> get(String uri) throws Exception {
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(uri)).build(),
+                HttpResponse.BodyHandlers.ofString());
+        // Un registro puede haberse borrado entre la página y la consulta por id
+        if (response.statusCode() >= 400 && response.statusCode() != 404) {
+            failures.incrementAndGet();
+        }
+        return response;
+    }
+
+    // Heap usado del backend según Spring Boot Actuator, o -1 si no responde
+    private long backendHeap(String url) {
+        try {
+            String base = url.endsWith("/") ? url : url + "/";
+            HttpResponse<String> response = client.send(HttpRequest.newBuilder(
+                            URI.create(base + "actuator/metrics/jvm.memory.used?tag=area:heap")).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            return response.statusCode() == 200
+                    ? mapper.readTree(response.body()).path("measurements").path(0).path("value").asLong(-1) : -1;
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+
+    private static Turismo find(MainView view, String marker) {
+        for (Turismo turismo : view.getAllRecords()) {
+            if (turismo.getFrom() != null && marker.equals(turismo.getFrom().getProvincia())) {
+                return turismo;
+            }
+        }
+        return null;
+    }
+
+    private static Turismo record(String marker, int total) {
+        Turismo turismo = new Turismo();
+        Turismo.FromTo from = new Turismo.FromTo();
+        from.setComunidad("Comunidad de Madrid");
+        from.setProvincia(marker);
+        Turismo.FromTo to = new Turismo.FromTo();
+        to.setComunidad("Galicia");
+        to.setProvincia("A Coruña");
+        Turismo.TimeRange timeRange = new Turismo.TimeRange();
+        timeRange.setFecha_inicio("2024-08-01");
+        timeRange.setFecha_fin("2024-08-31");
+        timeRange.setPeriod("2024M08");
+        turismo.setFrom(from);
+        turismo.setTo(to);
+        turismo.setTimeRange(timeRange);
+        turismo.setTotal(total);
+        return turismo;
+    }
+
+    private interface Work<T> {
+        T run() throws Exception;
+    }
+
+    private <T> T time(String operation, Work<T> work) {
+        long start = System.nanoTime();
+        try {
+            return work.run();
+        } catch (Exception e) {
+            throw new IllegalStateException(operation + " failed", e);
+        } finally {
+            latencies.get(operation).add(System.nanoTime() - start);
+        }
+    }
+
+    private void time(String operation, Runnable work) {
+        time(operation, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[(int) Math.ceil(sorted.length * quantile) - 1] / 1_000_000.0;
+    }
+}